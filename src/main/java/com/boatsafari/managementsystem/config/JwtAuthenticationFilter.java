@@ -1,10 +1,13 @@
 package com.boatsafari.managementsystem.config;
 
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
 import com.boatsafari.managementsystem.util.JwtUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -21,6 +24,8 @@ import java.util.List;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     @Autowired
     private JwtUtils jwtUtils;
 
@@ -28,25 +33,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader("Authorization");
 
-        // For debugging
-        System.out.println("Request URI: " + request.getRequestURI());
-        System.out.println("Authorization Header: " + (header != null ? "Present" : "Missing"));
+        if (log.isDebugEnabled()) {
+            log.debug("Request URI: {}, Authorization Header: {}", request.getRequestURI(), header != null ? "Present" : "Missing");
+        }
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
 
-            // Validate the token first
-            if (!jwtUtils.validateToken(token)) {
-                System.out.println("Invalid JWT token");
+            // One parse + signature check (or a cache hit) for all claims
+            JwtUtils.VerifiedToken verified = jwtUtils.parseAndVerify(token);
+            if (verified == null) {
+                log.debug("Invalid JWT token");
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            String email = jwtUtils.getEmailFromToken(token);
-            String role = jwtUtils.getRoleFromToken(token);
-            Long userId = jwtUtils.getUserIdFromToken(token);
+            String email = verified.getEmail();
+            String role = verified.getRole();
+            Long userId = verified.getUserId();
 
-            System.out.println("JWT Token contains - Email: " + email + ", Role: " + role + ", UserId: " + userId);
+            log.debug("JWT Token contains - Email: {}, Role: {}, UserId: {}", email, role, userId);
+
+            if (userId != null) {
+                // Lets CurrentUserUtil find the user by id (cached) instead of by email
+                request.setAttribute(CurrentUserUtil.USER_ID_ATTRIBUTE, userId);
+            }
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Create authority from role - ensure role is uppercase for consistency
@@ -54,7 +65,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         new SimpleGrantedAuthority("ROLE_" + (role != null ? role.toUpperCase() : "USER"))
                 );
 
-                System.out.println("Setting authentication with authority: " + authorities.get(0).getAuthority());
+                log.debug("Setting authentication with authority: {}", authorities.get(0).getAuthority());
 
                 // Create authentication token
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
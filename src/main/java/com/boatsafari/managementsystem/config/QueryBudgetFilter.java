@@ -0,0 +1,125 @@
+package com.boatsafari.managementsystem.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Counts the SQL statements of each request (see QueryCounter), reports them in a Server-Timing
+ * header and logs requests that go over app.query-budget.max-statements - usually a list endpoint
+ * that loads something per row.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    @Value("${app.query-budget.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.query-budget.max-statements:20}")
+    private int maxStatements;
+
+    @Value("${app.query-budget.server-timing:true}")
+    private boolean serverTiming;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        try (QueryCounter.Scope scope = QueryCounter.open(false)) {
+            ServerTimingResponse wrapped = new ServerTimingResponse(response, scope);
+            try {
+                filterChain.doFilter(request, wrapped);
+            } finally {
+                // Responses without a body (204, 304, ...) are not committed yet
+                if (!response.isCommitted()) {
+                    wrapped.addServerTiming();
+                }
+                if (scope.getCount() > maxStatements) {
+                    log.warn("{} {} ran {} SQL statements (budget {}) in {} ms", request.getMethod(),
+                            request.getRequestURI(), scope.getCount(), maxStatements,
+                            scope.getElapsedNanos() / 1_000_000);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the header when the body starts, since headers cannot be set once the response is committed.
+     * Statements run while the body is streamed are logged but not in the header.
+     */
+    private class ServerTimingResponse extends HttpServletResponseWrapper {
+        private final QueryCounter.Scope scope;
+        private boolean added;
+
+        ServerTimingResponse(HttpServletResponse response, QueryCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void addServerTiming() {
+            if (added || !serverTiming) {
+                return;
+            }
+            added = true;
+            addHeader("Server-Timing", String.format(Locale.ROOT, "db;desc=\"%d statements\", app;dur=%.1f",
+                    scope.getCount(), scope.getElapsedNanos() / 1_000_000.0));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
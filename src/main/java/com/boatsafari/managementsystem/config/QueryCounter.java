@@ -0,0 +1,79 @@
+package com.boatsafari.managementsystem.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a scope is open.
+ * Registered through hibernate.session_factory.statement_inspector; QueryBudgetFilter opens one
+ * scope per HTTP request, tests open their own to put a ceiling on a call.
+ * Work handed to other threads (async events, executors) is not counted.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting on this thread. Scopes nest: statements count towards every open scope.
+     * @param keepStatements also remember the SQL text (for test failure messages)
+     */
+    public static Scope open(boolean keepStatements) {
+        Scope scope = new Scope(CURRENT.get(), keepStatements);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private final List<String> statements;
+        private final long startNanos = System.nanoTime();
+        private int count;
+
+        private Scope(Scope parent, boolean keepStatements) {
+            this.parent = parent;
+            this.statements = keepStatements ? new ArrayList<>() : null;
+        }
+
+        private void record(String sql) {
+            count++;
+            if (statements != null) {
+                statements.add(sql);
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getElapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        /**
+         * SQL seen so far; empty unless the scope was opened with keepStatements
+         */
+        public List<String> getStatements() {
+            return statements != null ? Collections.unmodifiableList(statements) : List.of();
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
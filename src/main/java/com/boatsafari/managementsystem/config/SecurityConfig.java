@@ -1,6 +1,7 @@
 // src/main/java/com/boatsafari/managementsystem/config/SecurityConfig.java
 package com.boatsafari.managementsystem.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -20,13 +21,16 @@ public class SecurityConfig {
         return http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // async (CompletableFuture) responses were already authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // static pages/assets
                         .requestMatchers("/", "/*.html", "/assets/**", "/partials/**", "/img/**").permitAll()
                         // auth endpoints
                         .requestMatchers("/api/register", "/api/login").permitAll()
                         // setup endpoints (development only)
                         .requestMatchers("/api/setup/**").permitAll()
-                        // Payment admin endpoints (temporary for testing)
+                        // Payment admin endpoints (temporary for testing); full history pages and exports are admin only
+                        .requestMatchers("/api/admin/payments/history/page", "/api/admin/payments/export").hasRole("ADMIN")
                         .requestMatchers("/api/admin/payments/**").permitAll()
                         // trips browsing allowed without login
                         .requestMatchers(HttpMethod.GET, "/api/trips/**").permitAll()
@@ -2,11 +2,17 @@ package com.boatsafari.managementsystem.controller;
 
 import com.boatsafari.managementsystem.model.User;
 import com.boatsafari.managementsystem.model.Boat;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.observer.AsyncObserverDispatcher;
+import com.boatsafari.managementsystem.service.CardVaultService;
+import com.boatsafari.managementsystem.service.PaymentProcessingService;
 import com.boatsafari.managementsystem.service.UserService;
 import com.boatsafari.managementsystem.service.TripService;
 import com.boatsafari.managementsystem.service.BoatService;
 import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,6 +38,55 @@ public class AdminController {
     @Autowired
     private BoatService boatService;
 
+    @Autowired
+    private AsyncObserverDispatcher asyncObserverDispatcher;
+
+    @Autowired
+    private PaymentProcessingService paymentProcessingService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CardVaultService cardVaultService;
+
+    /**
+     * Queue depth, lag and retry counters of the asynchronous booking observers
+     */
+    @GetMapping("/observers/metrics")
+    public ResponseEntity<List<Map<String, Object>>> getObserverMetrics() {
+        return ResponseEntity.ok(asyncObserverDispatcher.getMetrics());
+    }
+
+    /**
+     * Circuit state, in-flight calls and rejections of each payment method's bulkhead
+     */
+    @GetMapping("/payment-bulkheads")
+    public ResponseEntity<Map<String, Map<String, Object>>> getPaymentBulkheads() {
+        return ResponseEntity.ok(paymentProcessingService.getBulkheadStatus());
+    }
+
+    /**
+     * Card details of a payment from the card vault (number masked; the CVV is never stored)
+     */
+    @GetMapping("/payment-cards/{paymentId}")
+    public ResponseEntity<?> getPaymentCard(@PathVariable Long paymentId) {
+        Optional<Payment> payment = paymentRepository.findById(paymentId);
+        if (payment.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Payment not found"));
+        }
+        Optional<CardVaultService.CardDetails> card = cardVaultService.reveal(payment.get().getCardToken());
+        if (card.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No card details stored for this payment"));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("paymentId", paymentId);
+        response.put("cardHolderName", card.get().holderName());
+        response.put("cardNumber", CardVaultService.mask(payment.get().getCardLast4()));
+        response.put("cardExpiry", card.get().expiry());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get all users for admin management
      */
@@ -0,0 +1,39 @@
+package com.boatsafari.managementsystem.controller;
+
+import com.boatsafari.managementsystem.model.AuditLogEntry;
+import com.boatsafari.managementsystem.service.AuditLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/audit")
+@CrossOrigin(origins = "*")
+public class AuditController {
+
+    @Autowired
+    private AuditLogService auditLogService;
+
+    /**
+     * Audit trail lookup, newest first.
+     * e.g. /api/admin/audit?bookingId=42&from=2024-01-01T00:00:00&to=2024-02-01T00:00:00&limit=100
+     */
+    @GetMapping
+    public ResponseEntity<?> getAuditLog(
+            @RequestParam(required = false) Long bookingId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            List<AuditLogEntry> entries = auditLogService.find(bookingId, from, to, limit);
+            return ResponseEntity.ok(entries);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
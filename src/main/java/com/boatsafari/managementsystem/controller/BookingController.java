@@ -3,10 +3,16 @@ package com.boatsafari.managementsystem.controller;
 
 import com.boatsafari.managementsystem.model.Booking;
 import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.service.BookingEngine;
 import com.boatsafari.managementsystem.service.BookingService;
+import com.boatsafari.managementsystem.service.IdempotencyService;
+import com.boatsafari.managementsystem.service.TripInventoryService;
+import com.boatsafari.managementsystem.service.WaitingRoomService;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,23 +27,64 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final BookingRepository bookingRepository;
+    private final TripInventoryService tripInventoryService;
+
+    // Only present when app.booking.engine.enabled=true
+    @Autowired(required = false)
+    private BookingEngine bookingEngine;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private CurrentUserUtil currentUserUtil;
 
     @Autowired
-    public BookingController(BookingService bookingService, BookingRepository bookingRepository) {
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    public BookingController(BookingService bookingService, BookingRepository bookingRepository,
+                             TripInventoryService tripInventoryService) {
         this.bookingService = bookingService;
         this.bookingRepository = bookingRepository;
+        this.tripInventoryService = tripInventoryService;
     }
 
+    /**
+     * Create a PROVISIONAL booking. Clients may send an Idempotency-Key header so a retried POST
+     * returns the original booking instead of holding seats twice.
+     */
     @PostMapping
-    public ResponseEntity<?> createBooking(@RequestBody BookingRequest request) {
+    public ResponseEntity<?> createBooking(@RequestBody BookingRequest request,
+                                           @RequestHeader(value = "X-Queue-Ticket", required = false) String queueTicket,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("POST /api/bookings", idempotencyKey, currentUserUtil.getCurrentEmail(),
+                request, () -> create(request, queueTicket));
+    }
+
+    private ResponseEntity<?> create(BookingRequest request, String queueTicket) {
+        // High-demand trips only accept bookers admitted by the waiting room
+        boolean queued = waitingRoomService.isHighDemand(request.getTripId());
+        if (queued && !waitingRoomService.isAdmitted(request.getTripId(), queueTicket, currentUserUtil.getCurrentEmail())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "5")
+                    .body(new ErrorResponse("This trip is in high demand. Please join the waiting room at "
+                            + "/api/waiting-room/trips/" + request.getTripId() + "/tickets and retry once admitted."));
+        }
         try {
-            Booking booking = bookingService.createProvisionalBooking(
-                    request.getTripId(),
-                    request.getName(),
-                    request.getContact(),
-                    request.getEmail(),
-                    request.getNumberOfPassengers()
-            );
+            Booking booking = bookingEngine != null
+                    ? bookingEngine.createProvisionalBooking(
+                            request.getTripId(),
+                            request.getName(),
+                            request.getContact(),
+                            request.getEmail(),
+                            request.getNumberOfPassengers())
+                    : bookingService.createProvisionalBooking(
+                            request.getTripId(),
+                            request.getName(),
+                            request.getContact(),
+                            request.getEmail(),
+                            request.getNumberOfPassengers());
             return ResponseEntity
                     .created(URI.create("/api/bookings/" + booking.getBookingId()))
                     .body(booking);
@@ -45,6 +92,11 @@ public class BookingController {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(new ErrorResponse("Failed to create booking"));
+        } finally {
+            // Success or not, the admitted slot goes to the next customer in line
+            if (queued) {
+                waitingRoomService.complete(request.getTripId(), queueTicket);
+            }
         }
     }
 
@@ -58,7 +110,11 @@ public class BookingController {
     @PostMapping("/{bookingId}/confirm")
     public ResponseEntity<?> confirmBooking(@PathVariable Long bookingId) {
         try {
-            bookingService.confirmBooking(bookingId);
+            if (bookingEngine != null) {
+                bookingEngine.confirmBooking(bookingId);
+            } else {
+                bookingService.confirmBooking(bookingId);
+            }
             return ResponseEntity.ok().build();
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -111,6 +167,10 @@ public class BookingController {
                 }
                 
                 Booking updatedBooking = bookingRepository.save(booking);
+                // Free-form edit of passengers/status - rebuild the trip's seat counters
+                if (updatedBooking.getTrip() != null) {
+                    tripInventoryService.resync(updatedBooking.getTrip().getTripId());
+                }
                 return ResponseEntity.ok(updatedBooking);
             }
             return ResponseEntity.notFound().build();
@@ -125,8 +185,13 @@ public class BookingController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteBooking(@PathVariable Long id) {
         try {
-            if (bookingRepository.existsById(id)) {
+            Optional<Booking> bookingOpt = bookingRepository.findById(id);
+            if (bookingOpt.isPresent()) {
+                Long tripId = bookingOpt.get().getTrip() != null ? bookingOpt.get().getTrip().getTripId() : null;
                 bookingRepository.deleteById(id);
+                if (tripId != null) {
+                    tripInventoryService.resync(tripId);
+                }
                 return ResponseEntity.noContent().build();
             }
             return ResponseEntity.notFound().build();
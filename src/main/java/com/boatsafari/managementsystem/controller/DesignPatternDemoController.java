@@ -1,8 +1,8 @@
 package com.boatsafari.managementsystem.controller;
 
 import com.boatsafari.managementsystem.service.PaymentProcessingService;
+import com.boatsafari.managementsystem.service.BookingEngine;
 import com.boatsafari.managementsystem.service.BookingService;
-import com.boatsafari.managementsystem.strategy.PaymentResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.HashMap;
 
 /**
@@ -21,43 +23,49 @@ import java.util.HashMap;
 @CrossOrigin(origins = "*")
 public class DesignPatternDemoController {
 
+    private static final int MAX_QUOTE_AMOUNTS = 100;
+
     @Autowired
     private PaymentProcessingService paymentService;
     
     @Autowired
     private BookingService bookingService;
 
+    @Autowired(required = false)
+    private BookingEngine bookingEngine;
+
     /**
      * Demonstrate Strategy Pattern - Payment Processing
      * Shows how different payment methods are handled using Strategy pattern
      */
     @PostMapping("/payment/process")
-    public ResponseEntity<?> demonstrateStrategyPattern(@RequestBody PaymentDemoRequest request) {
-        try {
-            System.out.println("\n🎯 === STRATEGY PATTERN DEMONSTRATION ===");
-            System.out.println("Processing payment with: " + request.getPaymentMethod());
-            
-            PaymentResult result = paymentService.processPayment(
+    public CompletableFuture<ResponseEntity<?>> demonstrateStrategyPattern(@RequestBody PaymentDemoRequest request) {
+        System.out.println("\n🎯 === STRATEGY PATTERN DEMONSTRATION ===");
+        System.out.println("Processing payment with: " + request.getPaymentMethod());
+        
+        // Answered once the provider responds; no request thread waits in the meantime
+        return paymentService.processPaymentAsync(
                 request.getPaymentMethod(),
                 new BigDecimal(request.getAmount()),
                 request.getCustomerEmail(),
                 request.getPaymentDetails()
-            );
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", result.isSuccess());
-            response.put("message", result.getMessage());
-            response.put("transactionId", result.getTransactionId());
-            response.put("processingFee", result.getProcessingFee());
-            response.put("totalAmount", request.getAmount() + result.getProcessingFee());
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Payment processing failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+            )
+            .<ResponseEntity<?>>thenApply(result -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", result.isSuccess());
+                response.put("message", result.getMessage());
+                response.put("transactionId", result.getTransactionId());
+                response.put("processingFee", result.getProcessingFee());
+                response.put("totalAmount", request.getAmount() + result.getProcessingFee());
+                
+                return ResponseEntity.ok(response);
+            })
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Payment processing failed: " + cause.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            });
     }
 
     /**
@@ -80,15 +88,37 @@ public class DesignPatternDemoController {
         System.out.println("\n💰 Calculating fees for amount: $" + amount);
         
         Map<String, Double> fees = new HashMap<>();
-        List<String> methods = paymentService.getAvailablePaymentMethods();
+        paymentService.quoteProcessingFees(new double[]{amount}).forEach((method, quote) -> {
+            fees.put(method, quote[0]);
+            System.out.println("  " + method + ": $" + quote[0]);
+        });
         
-        for (String method : methods) {
-            double fee = paymentService.calculateProcessingFee(method, new BigDecimal(amount));
-            fees.put(method, fee);
-            System.out.println("  " + method + ": $" + fee);
+        return ResponseEntity.ok(fees);
+    }
+
+    /**
+     * Processing fees of all payment methods for several amounts at once
+     * (e.g. the checkout total for 1..N passengers), so the page does not re-quote per change
+     */
+    @GetMapping("/payment/fees/batch")
+    public ResponseEntity<?> calculateFeesBatch(@RequestParam List<Double> amounts) {
+        if (amounts.isEmpty() || amounts.size() > MAX_QUOTE_AMOUNTS) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Between 1 and " + MAX_QUOTE_AMOUNTS + " amounts are allowed"));
+        }
+        double[] values = new double[amounts.size()];
+        for (int i = 0; i < values.length; i++) {
+            Double amount = amounts.get(i);
+            if (amount == null || amount < 0 || amount.isNaN() || amount.isInfinite()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid amount: " + amount));
+            }
+            values[i] = amount;
         }
         
-        return ResponseEntity.ok(fees);
+        Map<String, Object> response = new HashMap<>();
+        response.put("amounts", values);
+        response.put("fees", paymentService.quoteProcessingFees(values));
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -103,7 +133,11 @@ public class DesignPatternDemoController {
             System.out.println("\n👀 === OBSERVER PATTERN DEMONSTRATION ===");
             System.out.println("Updating booking " + bookingId + " to status: " + newStatus);
             
-            bookingService.updateBookingStatus(bookingId, newStatus);
+            if (bookingEngine != null) {
+                bookingEngine.updateBookingStatus(bookingId, newStatus);
+            } else {
+                bookingService.updateBookingStatus(bookingId, newStatus);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
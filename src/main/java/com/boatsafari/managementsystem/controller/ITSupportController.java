@@ -1,14 +1,23 @@
 package com.boatsafari.managementsystem.controller;
 
+import com.boatsafari.managementsystem.dto.BookingDetailDTO;
+import com.boatsafari.managementsystem.dto.BookingSearchFilter;
 import com.boatsafari.managementsystem.model.Booking;
 import com.boatsafari.managementsystem.model.Feedback;
 import com.boatsafari.managementsystem.model.User;
 import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.FeedbackRepository;
+import com.boatsafari.managementsystem.service.BookingSearchService;
 import com.boatsafari.managementsystem.service.FeedbackService;
 import com.boatsafari.managementsystem.repository.UserRepository;
+import com.boatsafari.managementsystem.repository.UserSpecifications;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,12 +35,21 @@ public class ITSupportController {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingSearchService bookingSearchService;
+
     @Autowired
     private FeedbackService feedbackService;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Value("${app.search.max-page-size:200}")
+    private int maxPageSize;
+
     // ================= Dashboard Overview Endpoints =================
 
     @GetMapping("/dashboard-stats")
@@ -83,43 +101,51 @@ public class ITSupportController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate
     ) {
+        BookingSearchFilter filter = new BookingSearchFilter();
+        filter.setStatus(status);
+        filter.setCustomerEmail(customerEmail);
+        filter.setCustomerName(customerName);
+        filter.setTripId(tripId);
+        filter.setFromDate(fromDate);
+        filter.setToDate(toDate);
         try {
-            List<Booking> bookings = bookingRepository.findAll();
-            
-            // Apply filters
-            List<Booking> filtered = bookings.stream()
-                    .filter(b -> status == null || status.equalsIgnoreCase(b.getStatus()))
-                    .filter(b -> customerEmail == null || 
-                            (b.getCustomer() != null && b.getCustomer().getEmail().toLowerCase()
-                                    .contains(customerEmail.toLowerCase())))
-                    .filter(b -> customerName == null || 
-                            (b.getCustomer() != null && 
-                             (b.getCustomer().getFirstName() + " " + b.getCustomer().getSecondName())
-                                     .toLowerCase().contains(customerName.toLowerCase())))
-                    .filter(b -> tripId == null || 
-                            (b.getTrip() != null && Objects.equals(b.getTrip().getTripId(), tripId)))
-                    .filter(b -> {
-                        if (fromDate == null && toDate == null) return true;
-                        LocalDate bookingDate = b.getTrip() != null ? b.getTrip().getDate() : null;
-                        if (bookingDate == null) return false;
-                        boolean after = fromDate == null || !bookingDate.isBefore(fromDate);
-                        boolean before = toDate == null || !bookingDate.isAfter(toDate);
-                        return after && before;
-                    })
-                    .sorted(Comparator.comparing(Booking::getBookingId).reversed())
-                    .collect(Collectors.toList());
-                    
-            // Convert to detailed DTOs
-            List<BookingDetailDTO> detailedBookings = filtered.stream()
-                    .map(this::toDetailedBookingDTO)
-                    .collect(Collectors.toList());
-                    
-            return ResponseEntity.ok(detailedBookings);
+            return ResponseEntity.ok(bookingSearchService.findBookingDetails(filter));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Same search as /bookings, one page at a time: pass the returned nextCursor to get the next page
+     */
+    @GetMapping("/bookings/page")
+    public ResponseEntity<?> getBookingsPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customerEmail,
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) Long tripId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        BookingSearchFilter filter = new BookingSearchFilter();
+        filter.setStatus(status);
+        filter.setCustomerEmail(customerEmail);
+        filter.setCustomerName(customerName);
+        filter.setTripId(tripId);
+        filter.setFromDate(fromDate);
+        filter.setToDate(toDate);
+        try {
+            return ResponseEntity.ok(bookingSearchService.findBookingDetailsPage(filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve bookings"));
+        }
+    }
+
     @GetMapping("/bookings/{id}")
     public ResponseEntity<?> getBookingDetails(@PathVariable Long id) {
         try {
@@ -138,17 +164,10 @@ public class ITSupportController {
 
     @GetMapping("/customers/{customerId}/bookings")
     public ResponseEntity<List<BookingDetailDTO>> getCustomerBookings(@PathVariable Long customerId) {
+        BookingSearchFilter filter = new BookingSearchFilter();
+        filter.setCustomerId(customerId);
         try {
-            List<Booking> customerBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getCustomer() != null && Objects.equals(b.getCustomer().getUserId(), customerId))
-                    .sorted(Comparator.comparing(Booking::getBookingId).reversed())
-                    .collect(Collectors.toList());
-                    
-            List<BookingDetailDTO> detailedBookings = customerBookings.stream()
-                    .map(this::toDetailedBookingDTO)
-                    .collect(Collectors.toList());
-                    
-            return ResponseEntity.ok(detailedBookings);
+            return ResponseEntity.ok(bookingSearchService.findBookingDetails(filter));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -156,33 +175,34 @@ public class ITSupportController {
 
     // ================= Customer Management Endpoints =================
 
+    /**
+     * One page of customers ordered by name, e.g. /customers?search=smith&page=0&size=50.
+     * Booking and feedback counts of the whole page come from two grouped count queries.
+     */
     @GetMapping("/customers")
-    public ResponseEntity<List<CustomerDetailDTO>> getAllCustomers(
-            @RequestParam(required = false) String search
+    public ResponseEntity<?> getAllCustomers(
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
     ) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "page must not be negative"));
+        }
         try {
-            List<User> customers = userRepository.findAll().stream()
-                    .filter(u -> "CUSTOMER".equalsIgnoreCase(u.getRole()))
-                    .collect(Collectors.toList());
-            
-            if (search != null && !search.trim().isEmpty()) {
-                String searchLower = search.toLowerCase();
-                customers = customers.stream()
-                        .filter(c -> c.getFirstName().toLowerCase().contains(searchLower) ||
-                                   c.getSecondName().toLowerCase().contains(searchLower) ||
-                                   c.getEmail().toLowerCase().contains(searchLower))
-                        .collect(Collectors.toList());
-            }
-                    
-            List<CustomerDetailDTO> customerDetails = customers.stream()
-                    .map(this::toCustomerDetailDTO)
-                    .sorted(Comparator.comparing(CustomerDetailDTO::getLastName)
-                            .thenComparing(CustomerDetailDTO::getFirstName))
-                    .collect(Collectors.toList());
-                    
-            return ResponseEntity.ok(customerDetails);
+            int pageSize = Math.max(1, Math.min(size, maxPageSize));
+            Page<User> customers = userRepository.findAll(UserSpecifications.customersMatching(search),
+                    PageRequest.of(page, pageSize, Sort.by("secondName", "firstName", "userId")));
+
+            CustomerPageDTO result = new CustomerPageDTO();
+            result.setItems(toCustomerDetailDTOs(customers.getContent()));
+            result.setPage(page);
+            result.setSize(pageSize);
+            result.setTotalItems(customers.getTotalElements());
+            result.setTotalPages(customers.getTotalPages());
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve customers"));
         }
     }
 
@@ -191,7 +211,7 @@ public class ITSupportController {
         try {
             Optional<User> customer = userRepository.findById(id);
             if (customer.isPresent() && "CUSTOMER".equalsIgnoreCase(customer.get().getRole())) {
-                CustomerDetailDTO customerDetail = toCustomerDetailDTO(customer.get());
+                CustomerDetailDTO customerDetail = toCustomerDetailDTOs(List.of(customer.get())).get(0);
                 return ResponseEntity.ok(customerDetail);
             } else {
                 return ResponseEntity.notFound().build();
@@ -325,31 +345,37 @@ public class ITSupportController {
         return dto;
     }
 
-    private CustomerDetailDTO toCustomerDetailDTO(User customer) {
-        CustomerDetailDTO dto = new CustomerDetailDTO();
-        dto.setCustomerId(customer.getUserId());
-        dto.setFirstName(customer.getFirstName() != null ? customer.getFirstName() : "");
-        dto.setLastName(customer.getSecondName() != null ? customer.getSecondName() : "");
-        dto.setEmail(customer.getEmail() != null ? customer.getEmail() : "");
-        dto.setPhone(customer.getContactNo() != null ? customer.getContactNo() : "");
-        dto.setRegistrationDate(LocalDateTime.now()); // Registration date not in model, using current time
-        
-        // Count bookings for this customer
-        long bookingCount = bookingRepository.findAll().stream()
-                .filter(b -> b.getCustomer() != null && 
-                           Objects.equals(b.getCustomer().getUserId(), customer.getUserId()))
-                .count();
-        dto.setTotalBookings(bookingCount);
-        
-        // Count feedbacks for this customer
-        try {
-            long feedbackCount = feedbackService.getFeedbacksByUserId(customer.getUserId()).size();
-            dto.setTotalFeedbacks(feedbackCount);
-        } catch (Exception e) {
-            dto.setTotalFeedbacks(0L);
+    private List<CustomerDetailDTO> toCustomerDetailDTOs(List<User> customers) {
+        if (customers.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        return dto;
+        List<Long> ids = customers.stream().map(User::getUserId).collect(Collectors.toList());
+        Map<Long, Long> bookingCounts = countsById(bookingRepository.countByCustomers(ids));
+        Map<Long, Long> feedbackCounts = countsById(feedbackRepository.countByUsers(ids));
+
+        List<CustomerDetailDTO> result = new ArrayList<>(customers.size());
+        for (User customer : customers) {
+            CustomerDetailDTO dto = new CustomerDetailDTO();
+            dto.setCustomerId(customer.getUserId());
+            dto.setFirstName(customer.getFirstName() != null ? customer.getFirstName() : "");
+            dto.setLastName(customer.getSecondName() != null ? customer.getSecondName() : "");
+            dto.setEmail(customer.getEmail() != null ? customer.getEmail() : "");
+            dto.setPhone(customer.getContactNo() != null ? customer.getContactNo() : "");
+            dto.setRegistrationDate(LocalDateTime.now()); // Registration date not in model, using current time
+            dto.setTotalBookings(bookingCounts.getOrDefault(customer.getUserId(), 0L));
+            dto.setTotalFeedbacks(feedbackCounts.getOrDefault(customer.getUserId(), 0L));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    // [id, count] rows of a grouped count query
+    private static Map<Long, Long> countsById(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
     }
 
     private FeedbackDetailDTO toFeedbackDetailDTO(Feedback feedback) {
@@ -384,32 +410,6 @@ public class ITSupportController {
 
     // ================= DTO Classes =================
 
-    @Data
-    public static class BookingDetailDTO {
-        private Long bookingId;
-        private String status;
-        private Integer numberOfPassengers;
-        private LocalDateTime bookingDate;
-        
-        // Customer details
-        private Long customerId;
-        private String customerName;
-        private String customerEmail;
-        private String customerPhone;
-        
-        // Trip details
-        private Long tripId;
-        private String tripName;
-        private LocalDate tripDate;
-        private String tripLocation;
-        private Double tripPrice;
-        
-        // Boat and Guide details
-        private String boatName;
-        private Integer boatCapacity;
-        private String guideName;
-    }
-
     @Data
     public static class CustomerDetailDTO {
         private Long customerId;
@@ -422,6 +422,15 @@ public class ITSupportController {
         private Long totalFeedbacks;
     }
 
+    @Data
+    public static class CustomerPageDTO {
+        private List<CustomerDetailDTO> items;
+        private int page;
+        private int size;
+        private long totalItems;
+        private int totalPages;
+    }
+
     @Data
     public static class FeedbackDetailDTO {
         private Long feedbackId;
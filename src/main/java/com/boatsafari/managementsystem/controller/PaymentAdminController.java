@@ -1,13 +1,20 @@
 package com.boatsafari.managementsystem.controller;
 
 import com.boatsafari.managementsystem.dto.PaymentHistoryDTO;
+import com.boatsafari.managementsystem.dto.PaymentHistoryPageDTO;
 import com.boatsafari.managementsystem.dto.PaymentStatsDTO;
 import com.boatsafari.managementsystem.service.PaymentAdminService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/payments")
@@ -38,4 +45,50 @@ public class PaymentAdminController {
         List<PaymentHistoryDTO> results = paymentAdminService.searchPayments(customerName, email, status, paymentMethod);
         return ResponseEntity.ok(results);
     }
-}
\ No newline at end of file
+
+    /**
+     * Cursor-paginated history, newest first. Pass the returned nextCursor as ?cursor= for the next page.
+     */
+    @GetMapping("/history/page")
+    public ResponseEntity<?> getPaymentHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod) {
+        try {
+            PaymentHistoryPageDTO page = paymentAdminService.getPaymentHistoryPage(
+                    customerName, email, status, paymentMethod, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Streaming export, e.g. /api/admin/payments/export?format=csv&from=2024-01-01&to=2024-12-31
+     * (format=ndjson for one JSON object per line)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> paymentAdminService.exportPaymentHistory(
+                format, from, to, customerName, email, status, paymentMethod, out);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType("application/x-ndjson") : MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"payments." + (ndjson ? "ndjson" : "csv") + "\"")
+                .body(body);
+    }
+}
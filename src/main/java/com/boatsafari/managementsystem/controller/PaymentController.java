@@ -1,12 +1,22 @@
 package com.boatsafari.managementsystem.controller;
 
 import com.boatsafari.managementsystem.dto.PaymentRequest;
+import com.boatsafari.managementsystem.service.IdempotencyService;
+import com.boatsafari.managementsystem.service.PaymentProcessingService;
 import com.boatsafari.managementsystem.service.PaymentService;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -16,9 +26,100 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentProcessingService paymentProcessingService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CurrentUserUtil currentUserUtil;
+
+    /**
+     * Card payments are charged asynchronously: the request thread is handed back to Tomcat while the
+     * gateway works, and the response is written once the charge is recorded.
+     */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> process(@RequestBody PaymentRequest request) {
-        Map<String, Object> result = paymentService.processPayment(request);
-        return ResponseEntity.ok(result);
+    public CompletableFuture<ResponseEntity<?>> process(@RequestBody PaymentRequest request,
+                                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // A retried POST with the same key gets the first outcome instead of recording a second payment
+        return idempotencyService.executeAsync("POST /api/payments", idempotencyKey, currentUserUtil.getCurrentEmail(),
+                request, attempt -> pay(request, attempt));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> pay(PaymentRequest request, IdempotencyService.Attempt attempt) {
+        Double amount;
+        try {
+            amount = "CARD".equalsIgnoreCase(request.getMethod()) ? paymentService.prepareCardCharge(request) : null;
+            if (amount == null) {
+                // Pay on arrival, or a card payment that already went through
+                return CompletableFuture.completedFuture(ResponseEntity.ok(paymentService.processPayment(request)));
+            }
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(badRequest(e));
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(conflict(e));
+        }
+
+        // From here a failure (timeout, recording conflict) may come after the card was charged
+        attempt.sideEffectsStarted();
+        return paymentProcessingService.processPaymentAsync("CREDIT_CARD", BigDecimal.valueOf(amount),
+                        null, request.getCardNumber())
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return record(request, result.isSuccess(), result.getMessage());
+                    }
+                    if (unwrap(error) instanceof RejectedExecutionException) {
+                        attempt.sideEffectsAvoided(); // refused before the gateway was called
+                    }
+                    return CompletableFuture.<ResponseEntity<?>>completedFuture(gatewayError(error));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    // The gateway has answered; the payment is recorded on PaymentService's recorder threads, not the gateway's
+    private CompletableFuture<ResponseEntity<?>> record(PaymentRequest request, boolean charged, String gatewayMessage) {
+        if (!charged) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(Map.of("message", gatewayMessage)));
+        }
+        return paymentService.processPaymentAsync(request)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof IllegalStateException) {
+                        return conflict((IllegalStateException) cause);
+                    }
+                    if (cause instanceof IllegalArgumentException) {
+                        return badRequest((IllegalArgumentException) cause);
+                    }
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+                });
+    }
+
+    // Booking in a state that cannot take the payment, or still contended after the retries
+    private static ResponseEntity<Map<String, Object>> conflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+
+    private static ResponseEntity<Map<String, Object>> gatewayError(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("message", "The payment provider did not answer in time, please try again"));
+        }
+        if (cause instanceof IllegalStateException || cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", cause.getMessage() != null ? cause.getMessage() : "Payments are busy, please try again shortly"));
+        }
+        throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.boatsafari.managementsystem.controller;
+
+import com.boatsafari.managementsystem.model.ReconciliationFinding;
+import com.boatsafari.managementsystem.repository.ReconciliationFindingRepository;
+import com.boatsafari.managementsystem.schedule.PaymentReconciliationJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+@CrossOrigin(origins = "*")
+public class ReconciliationController {
+
+    @Autowired
+    private PaymentReconciliationJob reconciliationJob;
+
+    @Autowired
+    private ReconciliationFindingRepository findingRepository;
+
+    /**
+     * Reconcile a range of settlement days now, e.g. POST /api/admin/reconciliation/run?from=2024-06-01&to=2024-06-30
+     * (restart=true reconciles finished days again from scratch)
+     */
+    @PostMapping("/run")
+    public ResponseEntity<?> run(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean restart) {
+        try {
+            return ResponseEntity.ok(reconciliationJob.reconcile(from, to, restart));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Flag pay-on-arrival payments stuck in PENDING now, instead of waiting for the nightly run
+     */
+    @PostMapping("/stuck-pending")
+    public ResponseEntity<?> stuckPending() {
+        return ResponseEntity.ok(Map.of("flagged", reconciliationJob.flagStuckPending()));
+    }
+
+    /**
+     * Checkpoint (status, payments checked, findings) of each day in the range
+     */
+    @GetMapping("/progress")
+    public ResponseEntity<?> progress(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reconciliationJob.getProgress(from, to));
+    }
+
+    @GetMapping("/findings")
+    public ResponseEntity<List<ReconciliationFinding>> findings(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(findingRepository.findBySettlementDateOrderByPaymentIdAsc(
+                date, PageRequest.of(0, Math.max(1, Math.min(limit, 5000)))));
+    }
+}
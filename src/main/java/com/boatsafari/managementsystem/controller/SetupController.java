@@ -2,6 +2,7 @@ package com.boatsafari.managementsystem.controller;
 
 import com.boatsafari.managementsystem.model.*;
 import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.service.CardVaultService;
 import com.boatsafari.managementsystem.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +24,9 @@ public class SetupController {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private CardVaultService cardVaultService;
+
     @PostMapping("/create-users")
     public ResponseEntity<?> createTestUsers() {
         try {
@@ -193,7 +197,7 @@ public class SetupController {
             payment1.setPaymentDate(LocalDateTime.now().minusDays(1));
             payment1.setAmount(250.00);
             payment1.setStatus("Completed");
-            payment1.setCardHolderName("John Smith");
+            payment1.setCardToken(cardVaultService.tokenize(null, null, "John Smith"));
             paymentRepository.save(payment1);
 
             Payment payment2 = new Payment();
@@ -201,7 +205,7 @@ public class SetupController {
             payment2.setPaymentDate(LocalDateTime.now().minusDays(2));
             payment2.setAmount(180.00);
             payment2.setStatus("Completed");
-            payment2.setCardHolderName("Jane Doe");
+            payment2.setCardToken(cardVaultService.tokenize(null, null, "Jane Doe"));
             paymentRepository.save(payment2);
 
             Payment payment3 = new Payment();
@@ -216,7 +220,7 @@ public class SetupController {
             payment4.setPaymentDate(LocalDateTime.now().minusDays(4));
             payment4.setAmount(450.00);
             payment4.setStatus("Completed");
-            payment4.setCardHolderName("Mike Johnson");
+            payment4.setCardToken(cardVaultService.tokenize(null, null, "Mike Johnson"));
             paymentRepository.save(payment4);
 
             Payment payment5 = new Payment();
@@ -224,7 +228,7 @@ public class SetupController {
             payment5.setPaymentDate(LocalDateTime.now().minusDays(5));
             payment5.setAmount(290.00);
             payment5.setStatus("Failed");
-            payment5.setCardHolderName("Sarah Wilson");
+            payment5.setCardToken(cardVaultService.tokenize(null, null, "Sarah Wilson"));
             paymentRepository.save(payment5);
 
             Payment payment6 = new Payment();
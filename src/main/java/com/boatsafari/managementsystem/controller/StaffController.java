@@ -7,6 +7,8 @@ import com.boatsafari.managementsystem.repository.UserRepository;
 import com.boatsafari.managementsystem.service.UserService;
 import com.boatsafari.managementsystem.service.TripService;
 import com.boatsafari.managementsystem.service.BoatService;
+import com.boatsafari.managementsystem.service.TripCancellationService;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +16,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,12 +37,18 @@ public class StaffController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CurrentUserUtil currentUserUtil;
+
     @Autowired
     private TripService tripService;
 
     @Autowired
     private BoatService boatService;
 
+    @Autowired
+    private TripCancellationService tripCancellationService;
+
     // === DASHBOARD ENDPOINTS ===
 
     /**
@@ -355,6 +364,36 @@ public class StaffController {
         }
     }
 
+    /**
+     * Cancel a trip and all its bookings (e.g. bad weather). Refunds and notifications run in the
+     * background; poll the returned progress URL.
+     */
+    @PostMapping("/trips/{tripId}/cancel")
+    public ResponseEntity<?> cancelTrip(@PathVariable Long tripId) {
+        try {
+            TripCancellationService.Progress progress = tripCancellationService.cancelTrip(tripId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/staff/trips/cancellations/" + progress.getJobId()))
+                .body(progress);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of a trip cancellation started with POST /trips/{tripId}/cancel
+     */
+    @GetMapping("/trips/cancellations/{jobId}")
+    public ResponseEntity<?> getCancellationProgress(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(tripCancellationService.getProgress(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Update trip details
      */
@@ -687,6 +726,7 @@ public class StaffController {
 
             // Save the updated staff member
             User updatedStaff = userRepository.save(staff);
+            currentUserUtil.invalidate(updatedStaff.getUserId());
             return ResponseEntity.ok(updatedStaff);
 
         } catch (Exception e) {
@@ -705,6 +745,7 @@ public class StaffController {
             }
 
             userRepository.deleteById(id);
+            currentUserUtil.invalidate(id);
             return ResponseEntity.ok().build();
 
         } catch (Exception e) {
@@ -1,12 +1,13 @@
 // src/main/java/com/boatsafari/managementsystem/controller/SupportController.java
 package com.boatsafari.managementsystem.controller;
 
+import com.boatsafari.managementsystem.dto.BookingSearchFilter;
 import com.boatsafari.managementsystem.model.Booking;
 import com.boatsafari.managementsystem.model.SupportTicket;
 import com.boatsafari.managementsystem.model.User;
-import com.boatsafari.managementsystem.repository.BookingRepository;
 import com.boatsafari.managementsystem.repository.SupportTicketRepository;
 import com.boatsafari.managementsystem.repository.UserRepository;
+import com.boatsafari.managementsystem.service.BookingSearchService;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -30,7 +31,7 @@ public class SupportController {
     private UserRepository userRepository;
 
     @Autowired
-    private BookingRepository bookingRepository;
+    private BookingSearchService bookingSearchService;
 
     // Public: customers can send support messages
     @PostMapping("/contact")
@@ -65,17 +66,7 @@ public class SupportController {
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String assignedTo
     ) {
-        List<SupportTicket> all = supportTicketRepository.findAll();
-        
-        List<SupportTicket> filtered = all.stream()
-                .filter(t -> isEmpty(status) || status.equalsIgnoreCase(opt(t.getStatus())))
-                .filter(t -> isEmpty(priority) || priority.equalsIgnoreCase(opt(t.getPriority())))
-                .filter(t -> isEmpty(category) || category.equalsIgnoreCase(opt(t.getCategory())))
-                .filter(t -> isEmpty(assignedTo) || opt(t.getAssignedTo()).toLowerCase().contains(assignedTo.toLowerCase()))
-                .sorted(Comparator.comparing(SupportTicket::getCreatedAt).reversed())
-                .collect(Collectors.toList());
-                
-        return ResponseEntity.ok(filtered);
+        return ResponseEntity.ok(bookingSearchService.findTickets(status, priority, category, assignedTo));
     }
 
     // IT Support: Get ticket by ID
@@ -232,25 +223,13 @@ public class SupportController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate
     ) {
-        List<Booking> all = bookingRepository.findAll();
-
-        List<Booking> filtered = all.stream()
-                .filter(b -> isEmpty(status) || status.equalsIgnoreCase(opt(b.getStatus())))
-                .filter(b -> isEmpty(email) || opt(b.getCustomer() != null ? b.getCustomer().getEmail() : "")
-                        .toLowerCase(Locale.ROOT).contains(email.toLowerCase(Locale.ROOT)))
-                .filter(b -> tripId == null || (b.getTrip() != null && Objects.equals(b.getTrip().getTripId(), tripId)))
-                .filter(b -> {
-                    if (fromDate == null && toDate == null) return true;
-                    LocalDate d = b.getTrip() != null ? b.getTrip().getDate() : null;
-                    if (d == null) return false;
-                    boolean after = fromDate == null || !d.isBefore(fromDate);
-                    boolean before = toDate == null || !d.isAfter(toDate);
-                    return after && before;
-                })
-                .sorted(Comparator.comparing(Booking::getBookingId).reversed())
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(filtered);
+        BookingSearchFilter filter = new BookingSearchFilter();
+        filter.setStatus(status);
+        filter.setCustomerEmail(email);
+        filter.setTripId(tripId);
+        filter.setFromDate(fromDate);
+        filter.setToDate(toDate);
+        return ResponseEntity.ok(bookingSearchService.findBookings(filter));
     }
 
     private static boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
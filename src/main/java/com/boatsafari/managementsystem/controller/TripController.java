@@ -1,12 +1,21 @@
 package com.boatsafari.managementsystem.controller;
 
+import com.boatsafari.managementsystem.dto.TripAvailabilityDTO;
 import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.service.TripAvailabilityService;
+import com.boatsafari.managementsystem.service.TripCatalog;
 import com.boatsafari.managementsystem.service.TripService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,9 +25,44 @@ public class TripController {
     @Autowired
     private TripService tripService;
 
+    @Autowired
+    private TripAvailabilityService tripAvailabilityService;
+
+    @Autowired
+    private TripCatalog tripCatalog;
+
+    /**
+     * All trips, served from the in-memory catalog. Clients that send the ETag back in If-None-Match
+     * get 304 Not Modified until a trip changes.
+     */
     @GetMapping
-    public List<Trip> getAllTrips() {
-        return tripService.getAllTrips();
+    public ResponseEntity<byte[]> getAllTrips(WebRequest request) {
+        TripCatalog.Snapshot catalog = tripCatalog.get();
+        if (request.checkNotModified(catalog.etag())) {
+            return null; // 304, headers already set
+        }
+        return ResponseEntity.ok()
+                .eTag(catalog.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalog.json());
+    }
+
+    /**
+     * Booked/held/remaining seats for many trips in one call.
+     * e.g. /api/trips/availability?from=2024-06-01&to=2024-06-30 or /api/trips/availability?ids=1,2,3
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Long> ids) {
+        try {
+            List<TripAvailabilityDTO> availability = tripAvailabilityService.getAvailability(from, to, ids);
+            return ResponseEntity.ok(availability);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,55 @@
+package com.boatsafari.managementsystem.controller;
+
+import com.boatsafari.managementsystem.service.WaitingRoomService;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Queue tickets for high-demand trips.
+ * Clients join, poll until ADMITTED, then send the ticket id as X-Queue-Ticket on POST /api/bookings.
+ */
+@RestController
+@RequestMapping("/api/waiting-room")
+@CrossOrigin(origins = "*")
+public class WaitingRoomController {
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private CurrentUserUtil currentUserUtil;
+
+    @PostMapping("/trips/{tripId}/tickets")
+    public ResponseEntity<?> join(@PathVariable Long tripId) {
+        String email = currentUserUtil.getCurrentEmail();
+        if (email == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
+        }
+        if (!waitingRoomService.isHighDemand(tripId)) {
+            return ResponseEntity.ok(Map.of("tripId", tripId, "queueRequired", false));
+        }
+        try {
+            return ResponseEntity.ok(waitingRoomService.join(tripId, email));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/trips/{tripId}/tickets/{ticketId}")
+    public ResponseEntity<?> poll(@PathVariable Long tripId, @PathVariable String ticketId) {
+        String email = currentUserUtil.getCurrentEmail();
+        if (email == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
+        }
+        try {
+            return ResponseEntity.ok(waitingRoomService.poll(tripId, ticketId, email));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.boatsafari.managementsystem.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Booking with its customer, trip, boat and guide, as shown on the IT support screens
+ */
+@Data
+public class BookingDetailDTO {
+    private Long bookingId;
+    private String status;
+    private Integer numberOfPassengers;
+    private LocalDateTime bookingDate;
+
+    // Customer details
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private String customerPhone;
+
+    // Trip details
+    private Long tripId;
+    private String tripName;
+    private LocalDate tripDate;
+    private String tripLocation;
+    private Double tripPrice;
+
+    // Boat and Guide details
+    private String boatName;
+    private Integer boatCapacity;
+    private String guideName;
+}
@@ -0,0 +1,19 @@
+package com.boatsafari.managementsystem.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Filters of the booking search screens (IT support, booking history); null fields are not applied
+ */
+@Data
+public class BookingSearchFilter {
+    private String status;
+    private String customerEmail;
+    private String customerName;
+    private Long customerId;
+    private Long tripId;
+    private LocalDate fromDate; // trip date, inclusive
+    private LocalDate toDate;   // trip date, inclusive
+}
@@ -0,0 +1,16 @@
+package com.boatsafari.managementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of payment history; pass nextCursor back to get the following page (null on the last page)
+ */
+@Data
+@AllArgsConstructor
+public class PaymentHistoryPageDTO {
+    private List<PaymentHistoryDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.boatsafari.managementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripAvailabilityDTO {
+    private Long tripId;
+    private LocalDate date;
+    private int capacity;
+    private int confirmedSeats; // CONFIRMED/COMPLETED bookings
+    private int heldSeats;      // PROVISIONAL bookings
+    private int remainingSeats;
+}
@@ -0,0 +1,47 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only audit trail of booking events, written in batches by AuditLogService.
+ */
+@Entity
+@Data
+@Table(name = "audit_log", indexes = {
+        @Index(name = "IX_audit_log_booking_created", columnList = "booking_id, created_at"),
+        @Index(name = "IX_audit_log_created", columnList = "created_at")
+})
+public class AuditLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // BOOKING_CREATED, BOOKING_STATUS_CHANGED, PAYMENT_RECORDED
+    @Column(name = "event_type", nullable = false, length = 40)
+    private String eventType;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(name = "old_status", length = 30)
+    private String oldStatus;
+
+    @Column(name = "new_status", length = 30)
+    private String newStatus;
+
+    @Column(name = "details", length = 500)
+    private String details;
+}
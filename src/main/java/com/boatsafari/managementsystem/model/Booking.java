@@ -47,4 +47,9 @@ public class Booking {
     @OneToOne
     @JoinColumn(name = "payment_id")
     private Payment payment;
+
+    // Optimistic locking: concurrent payment callbacks must not overwrite each other
+    @Version
+    @Column(name = "version", columnDefinition = "bigint not null default 0")
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encrypted card details, kept apart from Payments. A payment only holds the opaque token
+ * (and the last four digits for display); see CardVaultService.
+ */
+@Entity
+@Data
+@Table(name = "card_vault")
+public class CardVaultEntry {
+
+    @Id
+    @Column(name = "token", length = 40)
+    private String token;
+
+    // Identifies the key file the entry was encrypted with
+    @Column(name = "key_id", nullable = false, length = 16)
+    private String keyId;
+
+    // AES-GCM: 12 byte IV followed by ciphertext and tag
+    @Column(name = "ciphertext", nullable = false, columnDefinition = "varbinary(1024)")
+    private byte[] ciphertext;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
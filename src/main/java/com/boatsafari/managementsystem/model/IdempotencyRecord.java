@@ -0,0 +1,64 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a POST sent with an Idempotency-Key header, so a retry with the same key gets the
+ * original response back instead of creating a second booking or payment.
+ * The unique (scope, owner, idem_key) constraint guarantees only one request per key ever runs.
+ */
+@Entity
+@Data
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "UX_idempotency_scope_owner_key", columnNames = {"scope", "owner", "idem_key"}),
+        indexes = @Index(name = "IX_idempotency_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+    // Failed after its side effect may have happened (e.g. card charged, then a timeout); replayed, never re-run
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    // Endpoint the key belongs to, e.g. "POST /api/bookings"
+    @Column(name = "scope", nullable = false, length = 50)
+    private String scope;
+
+    // Email of the caller (keys are per customer)
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+
+    @Column(name = "idem_key", nullable = false, length = 255)
+    private String idemKey;
+
+    // SHA-256 of the request body; reusing a key with a different body is rejected
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = IN_PROGRESS;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "nvarchar(max)")
+    private String responseBody;
+
+    @Column(name = "response_location", length = 255)
+    private String responseLocation;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,76 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking/payment event written in the same transaction as the change itself
+ * (app.booking.observers.dispatch=outbox) and delivered to the BookingObservers by OutboxRelay.
+ */
+@Entity
+@Data
+@Table(name = "outbox", indexes = {
+        @Index(name = "IX_outbox_status_id", columnList = "status, id"),
+        @Index(name = "IX_outbox_aggregate", columnList = "aggregate_type, aggregate_id, id")
+})
+public class OutboxEvent {
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 30)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    // BOOKING_CREATED, BOOKING_STATUS_CHANGED, PAYMENT_RECORDED
+    @Column(name = "event_type", nullable = false, length = 40)
+    private String eventType;
+
+    @Column(name = "old_status", length = 30)
+    private String oldStatus;
+
+    @Column(name = "new_status", length = 30)
+    private String newStatus;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Comma separated observer names that already received this event (makes replays idempotent)
+    @Column(name = "delivered_observers", length = 500)
+    private String deliveredObservers;
+
+    // Not claimed again before this time after a failed delivery (null = due now)
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
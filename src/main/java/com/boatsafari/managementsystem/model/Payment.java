@@ -1,13 +1,17 @@
 package com.boatsafari.managementsystem.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Data
 @Table(name = "Payments")
+@EntityListeners(PaymentStatsListener.class)
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,16 +30,41 @@ public class Payment {
     @Column(name = "status")
     private String status;
 
-    // Added via ALTER
-    @Column(name = "card_number")
-    private String cardNumber;
+    // Card details live encrypted in the card vault (CardVaultService); only the token stays here
+    @Column(name = "card_token", length = 40)
+    private String cardToken;
 
-    @Column(name = "card_expiry")
-    private String cardExpiry;
+    @Column(name = "card_last4", length = 4)
+    private String cardLast4;
 
-    @Column(name = "card_cvv")
-    private String cardCvv;
+    // When the refund was last handed to the provider (REFUND_SENDING); older than the lease means stale
+    @Column(name = "refund_sent_at")
+    private LocalDateTime refundSentAt;
 
-    @Column(name = "card_holder_name")
-    private String cardHolderName;
-}
\ No newline at end of file
+    @Version
+    @Column(name = "version", columnDefinition = "bigint not null default 0")
+    private long version;
+
+    // Method, status and amount as last read from or written to the database, so PaymentStatsListener
+    // can move an updated payment out of its old counter. Not persisted, not part of the API.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    transient String statsMethod;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    transient String statsStatus;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    transient Double statsAmount;
+
+    void rememberStats() {
+        statsMethod = paymentMethod;
+        statsStatus = status;
+        statsAmount = amount;
+    }
+}
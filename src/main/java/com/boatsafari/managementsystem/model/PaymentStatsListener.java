@@ -0,0 +1,49 @@
+package com.boatsafari.managementsystem.model;
+
+import com.boatsafari.managementsystem.service.PaymentStatsService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Keeps PaymentStatsService in step with every write to the Payments table. The counters move when
+ * the transaction commits; an update moves the payment from its counter as loaded to its new one.
+ */
+public class PaymentStatsListener {
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @PostLoad
+    public void onLoad(Payment payment) {
+        payment.rememberStats();
+    }
+
+    @PostPersist
+    public void onInsert(Payment payment) {
+        paymentStatsService.record(payment.getPaymentMethod(), payment.getStatus(), payment.getAmount(), 1);
+        payment.rememberStats();
+    }
+
+    @PostRemove
+    public void onDelete(Payment payment) {
+        if (payment.statsAmount != null) {
+            paymentStatsService.record(payment.statsMethod, payment.statsStatus, payment.statsAmount, -1);
+        } else {
+            paymentStatsService.record(payment.getPaymentMethod(), payment.getStatus(), payment.getAmount(), -1);
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Payment payment) {
+        if (payment.statsAmount == null) {
+            paymentStatsService.markStale(); // old values unknown; reload once this commits
+        } else {
+            paymentStatsService.move(payment.statsMethod, payment.statsStatus, payment.statsAmount,
+                    payment.getPaymentMethod(), payment.getStatus(), payment.getAmount());
+        }
+        payment.rememberStats();
+    }
+}
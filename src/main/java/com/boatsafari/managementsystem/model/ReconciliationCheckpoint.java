@@ -0,0 +1,52 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the payment reconciliation for one settlement day, so an interrupted run
+ * resumes after the last payment it fully checked instead of starting over.
+ * A run owns the day while it is RUNNING and its lease has not run out; nobody else reconciles it meanwhile.
+ */
+@Entity
+@Data
+@Table(name = "reconciliation_checkpoints")
+public class ReconciliationCheckpoint {
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String NO_LEDGER = "NO_LEDGER";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @Column(name = "settlement_date")
+    private LocalDate settlementDate;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = RUNNING;
+
+    // Every payment (and ledger entry) with an id up to this one has been reconciled
+    @Column(name = "last_payment_id", nullable = false)
+    private long lastPaymentId;
+
+    @Column(name = "rows_checked", nullable = false)
+    private long rowsChecked;
+
+    @Column(name = "findings", nullable = false)
+    private long findings;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // The run reconciling this day right now, and until when its claim holds without progress
+    @Column(name = "owner", length = 36)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,54 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A difference between the Payments table and the gateway settlement ledger
+ */
+@Entity
+@Data
+@Table(name = "reconciliation_findings", indexes = {
+        @Index(name = "UX_reconciliation_findings_day_payment_type", columnList = "settlement_date, payment_id, finding_type",
+               unique = true),
+        @Index(name = "IX_reconciliation_findings_payment", columnList = "payment_id, finding_type")
+})
+public class ReconciliationFinding {
+    // Captured in our database but not settled by the gateway
+    public static final String MISSING_CAPTURE = "MISSING_CAPTURE";
+    // Settled by the gateway but unknown to us
+    public static final String UNKNOWN_CAPTURE = "UNKNOWN_CAPTURE";
+    public static final String AMOUNT_MISMATCH = "AMOUNT_MISMATCH";
+    public static final String STATUS_MISMATCH = "STATUS_MISMATCH";
+    // Pay-on-arrival payment still PENDING long after it was taken
+    public static final String STUCK_PENDING = "STUCK_PENDING";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "settlement_date", nullable = false)
+    private LocalDate settlementDate;
+
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+
+    @Column(name = "finding_type", nullable = false, length = 30)
+    private String findingType;
+
+    @Column(name = "db_amount")
+    private Double dbAmount;
+
+    @Column(name = "ledger_amount")
+    private Double ledgerAmount;
+
+    @Column(name = "details", length = 500)
+    private String details;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
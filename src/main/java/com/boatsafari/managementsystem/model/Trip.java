@@ -51,6 +51,11 @@ public class Trip {
     @Column(name = "status")
     private String status = "ACTIVE"; // Default status
 
+    // Bookings for high-demand trips are admitted through the waiting room (WaitingRoomService).
+    // Boolean so an update body without the field leaves the flag alone
+    @Column(name = "high_demand", columnDefinition = "bit not null default 0")
+    private Boolean highDemand;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "boat_id")
     private Boat boat;
@@ -58,4 +63,11 @@ public class Trip {
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "guide_id")
     private SafariGuide guide;
+
+    @PrePersist
+    protected void onCreate() {
+        if (highDemand == null) {
+            highDemand = false;
+        }
+    }
 }
\ No newline at end of file
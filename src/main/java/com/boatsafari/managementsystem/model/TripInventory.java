@@ -0,0 +1,24 @@
+package com.boatsafari.managementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Live seat counters for a trip.
+ * Held seats belong to PROVISIONAL bookings, confirmed seats to CONFIRMED/COMPLETED ones.
+ * Rows are only ever changed through the conditional UPDATEs in TripInventoryRepository.
+ */
+@Entity
+@Data
+@Table(name = "trip_inventory")
+public class TripInventory {
+    @Id
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Column(name = "held_seats", nullable = false)
+    private int heldSeats;
+
+    @Column(name = "confirmed_seats", nullable = false)
+    private int confirmedSeats;
+}
@@ -0,0 +1,203 @@
+package com.boatsafari.managementsystem.observer;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs BookingObserver callbacks off the request thread (app.booking.observers.dispatch=async).
+ *
+ * Every observer gets its own single-thread executor with a bounded queue, so a slow observer
+ * (e.g. email) never delays the others and events reach each observer in order. When a queue is
+ * full the submitting thread waits up to app.booking.observers.offer-timeout-ms for room, which
+ * slows producers down without running callbacks out of order; an event that still does not fit
+ * is dropped and counted. Failed callbacks are retried with exponential backoff.
+ */
+@Component
+public class AsyncObserverDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncObserverDispatcher.class);
+
+    @Value("${app.booking.observers.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.booking.observers.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.booking.observers.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    @Value("${app.booking.observers.drain-timeout-ms:10000}")
+    private long drainTimeoutMs;
+
+    @Value("${app.booking.observers.offer-timeout-ms:5000}")
+    private long offerTimeoutMs;
+
+    private final Map<String, ObserverChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Queue one callback for an observer
+     */
+    public void submit(BookingObserver observer, String event, Consumer<BookingObserver> callback) {
+        ObserverChannel channel = channels.computeIfAbsent(observer.getObserverName(), ObserverChannel::new);
+        channel.submitted.incrementAndGet();
+        channel.executor.execute(new DispatchTask(channel, observer, event, callback));
+    }
+
+    /**
+     * Per-observer queue depth, lag and counters
+     */
+    public List<Map<String, Object>> getMetrics() {
+        List<Map<String, Object>> metrics = new ArrayList<>();
+        channels.values().forEach(channel -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("observer", channel.name);
+            m.put("queueDepth", channel.executor.getQueue().size());
+            m.put("queueCapacity", queueCapacity);
+            m.put("oldestQueuedMs", channel.oldestQueuedMs());
+            m.put("lastLagMs", channel.lastLagMs.get());
+            m.put("maxLagMs", channel.maxLagMs.get());
+            m.put("submitted", channel.submitted.get());
+            m.put("completed", channel.completed.get());
+            m.put("retried", channel.retried.get());
+            m.put("failed", channel.failed.get());
+            m.put("blocked", channel.blocked.get());
+            m.put("dropped", channel.dropped.get());
+            metrics.add(m);
+        });
+        return metrics;
+    }
+
+    // Let queued notifications finish before the application context goes away
+    @PreDestroy
+    public void drain() throws InterruptedException {
+        channels.values().forEach(channel -> channel.executor.shutdown());
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        for (ObserverChannel channel : channels.values()) {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            if (!channel.executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                log.warn("Observer {} did not drain in time, {} notifications dropped",
+                        channel.name, channel.executor.shutdownNow().size());
+            }
+        }
+    }
+
+    private final class ObserverChannel {
+        final String name;
+        final ThreadPoolExecutor executor;
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong retried = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong blocked = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong lastLagMs = new AtomicLong();
+        final AtomicLong maxLagMs = new AtomicLong();
+
+        ObserverChannel(String name) {
+            this.name = name;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, "observer-" + name);
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    (task, ex) -> waitForRoom(task));
+        }
+
+        /**
+         * Queue full: wait for the observer thread to make room rather than run the callback here,
+         * which would overtake the events already queued for this observer
+         */
+        private void waitForRoom(Runnable task) {
+            if (executor.isShutdown()) {
+                dropped.incrementAndGet();
+                log.warn("Observer {} is shutting down, {} dropped", name, describe(task));
+                return;
+            }
+            blocked.incrementAndGet();
+            try {
+                if (executor.getQueue().offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped.incrementAndGet();
+            log.error("Observer {} queue stayed full for {} ms, {} dropped", name, offerTimeoutMs, describe(task));
+        }
+
+        private String describe(Runnable task) {
+            return task instanceof DispatchTask ? ((DispatchTask) task).event : "notification";
+        }
+
+        long oldestQueuedMs() {
+            Runnable head = executor.getQueue().peek();
+            return head instanceof DispatchTask
+                    ? System.currentTimeMillis() - ((DispatchTask) head).enqueuedAt : 0;
+        }
+    }
+
+    private final class DispatchTask implements Runnable {
+        private final ObserverChannel channel;
+        private final BookingObserver observer;
+        private final String event;
+        private final Consumer<BookingObserver> callback;
+        private final long enqueuedAt = System.currentTimeMillis();
+
+        DispatchTask(ObserverChannel channel, BookingObserver observer, String event, Consumer<BookingObserver> callback) {
+            this.channel = channel;
+            this.observer = observer;
+            this.event = event;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            long lag = System.currentTimeMillis() - enqueuedAt;
+            channel.lastLagMs.set(lag);
+            channel.maxLagMs.accumulateAndGet(lag, Math::max);
+
+            long backoff = retryBackoffMs;
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                try {
+                    callback.accept(observer);
+                    channel.completed.incrementAndGet();
+                    return;
+                } catch (Exception e) {
+                    if (attempt == maxAttempts) {
+                        channel.failed.incrementAndGet();
+                        log.error("Observer {} failed on {} after {} attempts: {}",
+                                channel.name, event, attempt, e.getMessage());
+                        return;
+                    }
+                    channel.retried.incrementAndGet();
+                    log.warn("Observer {} failed on {} (attempt {}), retrying in {} ms: {}",
+                            channel.name, event, attempt, backoff, e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        channel.failed.incrementAndGet();
+                        return;
+                    }
+                    backoff *= 2;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.boatsafari.managementsystem.observer;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.OutboxEvent;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Observer Pattern - Subject
+ * Holds the registered BookingObservers and notifies them of booking events.
+ * Shared by BookingService, the booking engine and background jobs (e.g. hold expiry).
+ *
+ * app.booking.observers.dispatch=sync (default) calls observers inline;
+ * async hands them to AsyncObserverDispatcher once the surrounding transaction has committed;
+ * outbox writes an OutboxEvent row in the surrounding transaction and leaves delivery to OutboxRelay.
+ */
+@Component
+public class BookingEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingEventPublisher.class);
+
+    private final List<BookingObserver> observers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private AsyncObserverDispatcher asyncDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Value("${app.booking.observers.dispatch:sync}")
+    private String dispatchMode;
+
+    public BookingEventPublisher(List<BookingObserver> observers) {
+        this.observers.addAll(observers);
+
+        log.info("BookingEventPublisher initialized with {} observers: {}",
+                observers.size(),
+                observers.stream().map(BookingObserver::getObserverName).toList());
+    }
+
+    /**
+     * Notify all observers when a new booking is created
+     */
+    public void bookingCreated(Booking booking) {
+        log.info("Notifying {} observers about booking creation: {}", observers.size(), booking.getBookingId());
+        if (isOutboxMode()) {
+            writeOutbox(booking.getBookingId(), "BOOKING_CREATED", null, booking.getStatus(), null);
+            return;
+        }
+        dispatch("creation of booking " + booking.getBookingId(), observer -> observer.onBookingCreated(booking));
+    }
+
+    /**
+     * Notify all observers when booking status changes
+     */
+    public void bookingStatusChanged(Booking booking, String oldStatus, String newStatus) {
+        log.info("Notifying {} observers about status change: {} -> {}",
+                observers.size(), oldStatus, newStatus);
+        if (isOutboxMode()) {
+            writeOutbox(booking.getBookingId(), "BOOKING_STATUS_CHANGED", oldStatus, newStatus, null);
+            return;
+        }
+        dispatch("status change " + oldStatus + " -> " + newStatus + " of booking " + booking.getBookingId(),
+                observer -> observer.onBookingStatusChanged(booking, oldStatus, newStatus));
+    }
+
+    /**
+     * Notify all observers about a bulk status change (e.g. a cancelled trip): one outbox batch or
+     * one hand-off to the async dispatcher for the whole list instead of one per booking.
+     * oldStatuses.get(i) is the status bookings.get(i) had before.
+     */
+    public void bookingsStatusChanged(List<Booking> bookings, List<String> oldStatuses, String newStatus) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        log.info("Notifying {} observers about {} status changes -> {}", observers.size(), bookings.size(), newStatus);
+        if (isOutboxMode()) {
+            List<OutboxEvent> events = new ArrayList<>(bookings.size());
+            for (int i = 0; i < bookings.size(); i++) {
+                events.add(outboxEvent(bookings.get(i).getBookingId(), "BOOKING_STATUS_CHANGED",
+                        oldStatuses.get(i), newStatus, null));
+            }
+            outboxEventRepository.saveAll(events);
+            return;
+        }
+        dispatch(bookings.size() + " status changes -> " + newStatus, observer -> {
+            for (int i = 0; i < bookings.size(); i++) {
+                try {
+                    observer.onBookingStatusChanged(bookings.get(i), oldStatuses.get(i), newStatus);
+                } catch (Exception e) {
+                    // Keep going: one bad booking must not hold back (or, on retry, repeat) the rest
+                    log.error("Observer {} failed on booking {}: {}", observer.getObserverName(),
+                            bookings.get(i).getBookingId(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Notify all observers when a payment is recorded against a booking
+     */
+    public void paymentRecorded(Booking booking, Payment payment) {
+        log.info("Notifying {} observers about payment {} for booking {}",
+                observers.size(), payment.getPaymentId(), booking.getBookingId());
+        if (isOutboxMode()) {
+            writeOutbox(booking.getBookingId(), "PAYMENT_RECORDED", null, booking.getStatus(), payment.getPaymentId());
+            return;
+        }
+        dispatch("payment " + payment.getPaymentId() + " of booking " + booking.getBookingId(),
+                observer -> observer.onPaymentRecorded(booking, payment));
+    }
+
+    /**
+     * In outbox mode events must be published inside the transaction that made the change
+     */
+    public boolean isOutboxMode() {
+        return "outbox".equalsIgnoreCase(dispatchMode);
+    }
+
+    public List<BookingObserver> getObservers() {
+        return List.copyOf(observers);
+    }
+
+    private void writeOutbox(Long bookingId, String eventType, String oldStatus, String newStatus, Long paymentId) {
+        outboxEventRepository.save(outboxEvent(bookingId, eventType, oldStatus, newStatus, paymentId));
+    }
+
+    private static OutboxEvent outboxEvent(Long bookingId, String eventType, String oldStatus, String newStatus, Long paymentId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType("BOOKING");
+        event.setAggregateId(bookingId);
+        event.setEventType(eventType);
+        event.setOldStatus(oldStatus);
+        event.setNewStatus(newStatus);
+        event.setPaymentId(paymentId);
+        return event;
+    }
+
+    private void dispatch(String event, Consumer<BookingObserver> callback) {
+        if (!"async".equalsIgnoreCase(dispatchMode)) {
+            observers.forEach(observer -> {
+                try {
+                    callback.accept(observer);
+                } catch (Exception e) {
+                    log.error("Error notifying observer {}: {}", observer.getObserverName(), e.getMessage());
+                }
+            });
+            return;
+        }
+
+        Runnable enqueue = () -> observers.forEach(observer -> asyncDispatcher.submit(observer, event, callback));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Nothing is sent for a booking that is rolled back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    public void addObserver(BookingObserver observer) {
+        if (observers.addIfAbsent(observer)) {
+            log.info("Added observer: {}", observer.getObserverName());
+        }
+    }
+
+    public void removeObserver(BookingObserver observer) {
+        if (observers.remove(observer)) {
+            log.info("Removed observer: {}", observer.getObserverName());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.boatsafari.managementsystem.observer;
 
 import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Payment;
 
 /**
  * Observer Pattern Implementation
@@ -22,6 +23,14 @@ public interface BookingObserver {
      */
     void onBookingCreated(Booking booking);
     
+    /**
+     * Called when a payment has been recorded against a booking
+     * @param booking The booking that was paid
+     * @param payment The recorded payment
+     */
+    default void onPaymentRecorded(Booking booking, Payment payment) {
+    }
+    
     /**
      * Get observer name for logging purposes
      */
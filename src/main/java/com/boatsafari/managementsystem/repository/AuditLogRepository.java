@@ -0,0 +1,21 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.AuditLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AuditLogRepository extends JpaRepository<AuditLogEntry, Long> {
+
+    // Served by IX_audit_log_booking_created
+    List<AuditLogEntry> findByBookingIdAndCreatedAtBetweenOrderByCreatedAtDescIdDesc(
+            Long bookingId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    // Served by IX_audit_log_created
+    List<AuditLogEntry> findByCreatedAtBetweenOrderByCreatedAtDescIdDesc(
+            LocalDateTime from, LocalDateTime to, Pageable pageable);
+}
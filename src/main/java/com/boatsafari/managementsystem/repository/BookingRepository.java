@@ -3,15 +3,83 @@ package com.boatsafari.managementsystem.repository;
 
 import com.boatsafari.managementsystem.dto.PaymentHistoryDTO;
 import com.boatsafari.managementsystem.model.Booking;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
     List<Booking> findByTrip_TripId(Long tripId);
+
+    @Query("SELECT b.trip.tripId FROM Booking b WHERE b.bookingId = :bookingId")
+    Optional<Long> findTripIdByBookingId(@Param("bookingId") Long bookingId);
+
+    // Seats per inventory bucket for one trip: [held (PROVISIONAL), confirmed (CONFIRMED/COMPLETED)]
+    @Query("SELECT COALESCE(SUM(CASE WHEN UPPER(b.status) = 'PROVISIONAL' THEN b.passengers ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN UPPER(b.status) IN ('CONFIRMED', 'COMPLETED') THEN b.passengers ELSE 0 END), 0) " +
+           "FROM Booking b WHERE b.trip.tripId = :tripId")
+    List<Object[]> sumSeatsByTrip(@Param("tripId") Long tripId);
+
+    // Same sums for many trips at once: [tripId, held, confirmed]
+    @Query("SELECT b.trip.tripId, " +
+           "COALESCE(SUM(CASE WHEN UPPER(b.status) = 'PROVISIONAL' THEN b.passengers ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN UPPER(b.status) IN ('CONFIRMED', 'COMPLETED') THEN b.passengers ELSE 0 END), 0) " +
+           "FROM Booking b WHERE b.trip.tripId IN :tripIds GROUP BY b.trip.tripId")
+    List<Object[]> sumSeatsByTrips(@Param("tripIds") Collection<Long> tripIds);
+
+    // Booking counts of many customers at once: [customerId, count] (customers without bookings are missing)
+    @Query("SELECT b.customer.userId, COUNT(b) FROM Booking b " +
+           "WHERE b.customer.userId IN :customerIds GROUP BY b.customer.userId")
+    List<Object[]> countByCustomers(@Param("customerIds") Collection<Long> customerIds);
+
+    // Confirmed bookings of a trip with their check-in flag (null when never checked in):
+    // [bookingId, name, contact, email, passengers, checkedIn]
+    @Query("SELECT b.bookingId, b.name, b.contact, b.email, b.passengers, c.checkedIn FROM Booking b " +
+           "LEFT JOIN PassengerCheckIn c ON c.booking.bookingId = b.bookingId " +
+           "WHERE b.trip.tripId = :tripId AND b.status = 'CONFIRMED' " +
+           "ORDER BY b.bookingId")
+    List<Object[]> findConfirmedPassengersByTrip(@Param("tripId") Long tripId);
+
+    // Hold deadlines of all PROVISIONAL bookings: [bookingId, holdTimer] (used once at startup by HoldExpiryReaper)
+    @Query("SELECT b.bookingId, b.holdTimer FROM Booking b " +
+           "WHERE UPPER(b.status) = 'PROVISIONAL' AND b.holdTimer IS NOT NULL")
+    List<Object[]> findProvisionalHoldDeadlines();
+
+    // Lock the given bookings that are still PROVISIONAL with an expired hold
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.bookingId IN :ids " +
+           "AND UPPER(b.status) = 'PROVISIONAL' AND b.holdTimer < :now")
+    List<Booking> lockExpiredHolds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'EXPIRED', b.version = b.version + 1 WHERE b.bookingId IN :ids")
+    int markExpired(@Param("ids") Collection<Long> ids);
     
+    // Bookings a trip cancellation affects, locked until the cancelling transaction commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.trip.tripId = :tripId AND UPPER(b.status) IN ('PROVISIONAL', 'CONFIRMED') " +
+           "ORDER BY b.bookingId")
+    List<Booking> lockActiveByTrip(@Param("tripId") Long tripId);
+
+    // Cancel every active booking of a trip in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED', b.version = b.version + 1 " +
+           "WHERE b.trip.tripId = :tripId AND UPPER(b.status) IN ('PROVISIONAL', 'CONFIRMED')")
+    int cancelActiveByTrip(@Param("tripId") Long tripId);
+
     @Query("SELECT new com.boatsafari.managementsystem.dto.PaymentHistoryDTO(" +
            "p.paymentId, b.bookingId, " +
            "COALESCE(u.firstName, b.name), " +
@@ -48,4 +116,92 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                                 @Param("email") String email, 
                                                 @Param("status") String status, 
                                                 @Param("paymentMethod") String paymentMethod);
-}
\ No newline at end of file
+
+    // Keyset page: rows strictly after the cursor (paymentDate, paymentId) in newest-first order.
+    // Pass PageRequest.of(0, n) to limit the page size; never uses OFFSET.
+    @Query("SELECT new com.boatsafari.managementsystem.dto.PaymentHistoryDTO(" +
+           "p.paymentId, b.bookingId, " +
+           "COALESCE(u.firstName, b.name), " +
+           "COALESCE(u.email, b.email), " +
+           "COALESCE(u.contactNo, b.contact), " +
+           "p.paymentMethod, p.status, p.amount, p.paymentDate, " +
+           "t.name, CAST(t.date AS string), b.passengers) " +
+           "FROM Booking b " +
+           "LEFT JOIN b.payment p " +
+           "LEFT JOIN b.customer u " +
+           "LEFT JOIN b.trip t " +
+           "WHERE p IS NOT NULL " +
+           "AND (:customerName IS NULL OR LOWER(COALESCE(u.firstName, b.name)) LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:email IS NULL OR LOWER(COALESCE(u.email, b.email)) LIKE LOWER(CONCAT('%', :email, '%'))) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (:paymentMethod IS NULL OR p.paymentMethod = :paymentMethod) " +
+           "AND (:afterDate IS NULL OR p.paymentDate < :afterDate " +
+           "     OR (p.paymentDate = :afterDate AND p.paymentId < :afterId)) " +
+           "ORDER BY p.paymentDate DESC, p.paymentId DESC")
+    List<PaymentHistoryDTO> findPaymentHistoryPage(@Param("customerName") String customerName,
+                                                   @Param("email") String email,
+                                                   @Param("status") String status,
+                                                   @Param("paymentMethod") String paymentMethod,
+                                                   @Param("afterDate") LocalDateTime afterDate,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    // Export: streamed row by row (must be consumed inside a transaction and closed)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.boatsafari.managementsystem.dto.PaymentHistoryDTO(" +
+           "p.paymentId, b.bookingId, " +
+           "COALESCE(u.firstName, b.name), " +
+           "COALESCE(u.email, b.email), " +
+           "COALESCE(u.contactNo, b.contact), " +
+           "p.paymentMethod, p.status, p.amount, p.paymentDate, " +
+           "t.name, CAST(t.date AS string), b.passengers) " +
+           "FROM Booking b " +
+           "LEFT JOIN b.payment p " +
+           "LEFT JOIN b.customer u " +
+           "LEFT JOIN b.trip t " +
+           "WHERE p IS NOT NULL " +
+           "AND (:customerName IS NULL OR LOWER(COALESCE(u.firstName, b.name)) LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:email IS NULL OR LOWER(COALESCE(u.email, b.email)) LIKE LOWER(CONCAT('%', :email, '%'))) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (:paymentMethod IS NULL OR p.paymentMethod = :paymentMethod) " +
+           "AND p.paymentDate >= :from AND p.paymentDate < :to " +
+           "ORDER BY p.paymentDate DESC, p.paymentId DESC")
+    Stream<PaymentHistoryDTO> streamPaymentHistory(@Param("customerName") String customerName,
+                                                   @Param("email") String email,
+                                                   @Param("status") String status,
+                                                   @Param("paymentMethod") String paymentMethod,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
+
+    // Payment history rows for the given payment ids (search index hits), with the status/method filters
+    @Query("SELECT new com.boatsafari.managementsystem.dto.PaymentHistoryDTO(" +
+           "p.paymentId, b.bookingId, " +
+           "COALESCE(u.firstName, b.name), " +
+           "COALESCE(u.email, b.email), " +
+           "COALESCE(u.contactNo, b.contact), " +
+           "p.paymentMethod, p.status, p.amount, p.paymentDate, " +
+           "t.name, CAST(t.date AS string), b.passengers) " +
+           "FROM Booking b " +
+           "JOIN b.payment p " +
+           "LEFT JOIN b.customer u " +
+           "LEFT JOIN b.trip t " +
+           "WHERE p.paymentId IN :paymentIds " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (:paymentMethod IS NULL OR p.paymentMethod = :paymentMethod)")
+    List<PaymentHistoryDTO> findPaymentHistoryByPaymentIds(@Param("paymentIds") Collection<Long> paymentIds,
+                                                           @Param("status") String status,
+                                                           @Param("paymentMethod") String paymentMethod);
+
+    // Search index source: [paymentId, payer name, payer email] for payments with id > afterId, in id order
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.paymentId, COALESCE(u.firstName, b.name), COALESCE(u.email, b.email) " +
+           "FROM Booking b JOIN b.payment p LEFT JOIN b.customer u " +
+           "WHERE p.paymentId > :afterId ORDER BY p.paymentId")
+    Stream<Object[]> streamPayerDetailsAfter(@Param("afterId") Long afterId);
+}
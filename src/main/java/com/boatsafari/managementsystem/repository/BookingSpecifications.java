@@ -0,0 +1,85 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.dto.BookingSearchFilter;
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.boatsafari.managementsystem.repository.SearchPredicates.contains;
+import static com.boatsafari.managementsystem.repository.SearchPredicates.equalsIgnoreCase;
+import static com.boatsafari.managementsystem.repository.SearchPredicates.isEmpty;
+import static com.boatsafari.managementsystem.repository.SearchPredicates.leftJoin;
+
+/**
+ * Booking search filters as Specifications, evaluated by the database instead of in Java
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> matching(BookingSearchFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (!isEmpty(filter.getStatus())) {
+                predicates.add(equalsIgnoreCase(cb, root.get("status"), filter.getStatus()));
+            }
+            if (!isEmpty(filter.getCustomerEmail())) {
+                Join<Booking, User> customer = leftJoin(root, "customer");
+                predicates.add(contains(cb, customer.get("email"), filter.getCustomerEmail()));
+            }
+            if (!isEmpty(filter.getCustomerName())) {
+                Join<Booking, User> customer = leftJoin(root, "customer");
+                predicates.add(contains(cb, cb.concat(cb.concat(customer.get("firstName"), " "),
+                        customer.get("secondName")), filter.getCustomerName()));
+            }
+            if (filter.getCustomerId() != null) {
+                predicates.add(cb.equal(leftJoin(root, "customer").get("userId"), filter.getCustomerId()));
+            }
+            if (filter.getTripId() != null) {
+                predicates.add(cb.equal(leftJoin(root, "trip").get("tripId"), filter.getTripId()));
+            }
+            if (filter.getFromDate() != null) {
+                Join<Booking, Trip> trip = leftJoin(root, "trip");
+                predicates.add(cb.greaterThanOrEqualTo(trip.<LocalDate>get("date"), filter.getFromDate()));
+            }
+            if (filter.getToDate() != null) {
+                Join<Booking, Trip> trip = leftJoin(root, "trip");
+                predicates.add(cb.lessThanOrEqualTo(trip.<LocalDate>get("date"), filter.getToDate()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Keyset condition for results ordered by bookingId descending
+     */
+    public static Specification<Booking> idBefore(Long bookingId) {
+        return (root, query, cb) -> bookingId == null ? null : cb.lessThan(root.get("bookingId"), bookingId);
+    }
+
+    /**
+     * Load customer, trip (with boat and guide) and payment in the same SELECT instead of one query per row
+     */
+    public static Specification<Booking> fetchDetails() {
+        return (root, query, cb) -> {
+            if (Long.class != query.getResultType() && long.class != query.getResultType()) {
+                root.fetch("customer", JoinType.LEFT);
+                Fetch<Booking, Trip> trip = root.fetch("trip", JoinType.LEFT);
+                trip.fetch("boat", JoinType.LEFT);
+                trip.fetch("guide", JoinType.LEFT);
+                root.fetch("payment", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.CardVaultEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardVaultRepository extends JpaRepository<CardVaultEntry, String> {
+}
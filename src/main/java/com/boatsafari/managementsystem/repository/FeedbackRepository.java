@@ -4,8 +4,10 @@ import com.boatsafari.managementsystem.model.Feedback;
 import com.boatsafari.managementsystem.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -44,6 +46,10 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     @Query("SELECT COUNT(f) FROM Feedback f WHERE f.reply IS NOT NULL")
     Long countFeedbacksWithReplies();
     
+    // Feedback counts of many users at once: [userId, count] (users without feedback are missing)
+    @Query("SELECT f.user.userId, COUNT(f) FROM Feedback f WHERE f.user.userId IN :userIds GROUP BY f.user.userId")
+    List<Object[]> countByUsers(@Param("userIds") Collection<Long> userIds);
+    
     // Find feedbacks related to a specific booking
     List<Feedback> findByBooking_BookingIdAndIsVisibleTrueOrderByCreatedAtDesc(Long bookingId);
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Claim the next batch of deliverable events for this relay (SQL Server).
+     * READPAST skips rows another node is claiming right now, so nodes never claim the same event.
+     * An event is only deliverable once every earlier event of the same booking is finished,
+     * which keeps per-booking ordering across nodes. Stale claims of a crashed node are taken over.
+     * Events waiting out a retry backoff (next_attempt_at in the future) are left alone.
+     */
+    @Modifying
+    @Query(value = "WITH batch AS (" +
+                   "  SELECT TOP (:limit) o.status, o.claim_token, o.claimed_at " +
+                   "  FROM outbox o WITH (UPDLOCK, READPAST, ROWLOCK) " +
+                   "  WHERE (o.status = 'PENDING' OR (o.status = 'PROCESSING' AND o.claimed_at < :staleBefore)) " +
+                   "  AND (o.next_attempt_at IS NULL OR o.next_attempt_at <= :now) " +
+                   "  AND NOT EXISTS (SELECT 1 FROM outbox p " +
+                   "                  WHERE p.aggregate_type = o.aggregate_type AND p.aggregate_id = o.aggregate_id " +
+                   "                  AND p.id < o.id AND p.status NOT IN ('DONE', 'FAILED')) " +
+                   "  ORDER BY o.id) " +
+                   "UPDATE batch SET status = 'PROCESSING', claim_token = :token, claimed_at = :now",
+           nativeQuery = true)
+    int claimBatch(@Param("limit") int limit, @Param("token") String token,
+                   @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    List<OutboxEvent> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    long countByStatus(String status);
+
+    // Housekeeping: delivered events older than the retention window
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :before")
+    int deleteDeliveredBefore(@Param("before") LocalDateTime before);
+}
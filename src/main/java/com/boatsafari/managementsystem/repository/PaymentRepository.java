@@ -1,24 +1,85 @@
 package com.boatsafari.managementsystem.repository;
 
 import com.boatsafari.managementsystem.model.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     @Query("SELECT COALESCE(SUM(p.amount), 0.0) FROM Payment p WHERE p.status = 'Completed'")
     Double getTotalRevenue();
-    
-    @Query("SELECT COUNT(p) FROM Payment p")
-    Long getTotalPaymentCount();
-    
-    @Query("SELECT COUNT(p) FROM Payment p WHERE p.paymentMethod = :method")
-    Long getPaymentCountByMethod(@Param("method") String method);
-    
-    @Query("SELECT COALESCE(SUM(p.amount), 0.0) FROM Payment p WHERE p.paymentMethod = :method AND p.status = 'Completed'")
-    Double getRevenueByMethod(@Param("method") String method);
-    
-    @Query("SELECT COUNT(p) FROM Payment p WHERE p.status = :status")
-    Long getPaymentCountByStatus(@Param("status") String status);
-}
\ No newline at end of file
+
+    // rows: [paymentMethod, status, count, amount] - everything the payment dashboard needs in one pass
+    @Query("SELECT p.paymentMethod, p.status, COUNT(p), COALESCE(SUM(p.amount), 0.0) FROM Payment p " +
+           "GROUP BY p.paymentMethod, p.status")
+    List<Object[]> summarizeByMethodAndStatus();
+
+    // Reconciliation: next chunk of payments taken in [from, to) after afterId, in payment id order.
+    // rows: [paymentId, paymentMethod, status, amount, paymentDate]
+    @Query("SELECT p.paymentId, p.paymentMethod, p.status, p.amount, p.paymentDate FROM Payment p " +
+           "WHERE p.paymentDate >= :from AND p.paymentDate < :to AND p.paymentId > :afterId " +
+           "ORDER BY p.paymentId")
+    List<Object[]> findReconciliationChunk(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    // Reconciliation: the given payments, whatever day they were taken on.
+    // rows: [paymentId, paymentMethod, status, amount, paymentDate]
+    @Query("SELECT p.paymentId, p.paymentMethod, p.status, p.amount, p.paymentDate FROM Payment p " +
+           "WHERE p.paymentId IN :ids")
+    List<Object[]> findReconciliationRows(@Param("ids") Collection<Long> ids);
+
+    // Reconciliation: next chunk of pay-on-arrival payments still PENDING that were taken before :before,
+    // whatever their settlement day. rows: [paymentId, amount, paymentDate]
+    @Query("SELECT p.paymentId, p.amount, p.paymentDate FROM Payment p " +
+           "WHERE p.status = 'PENDING' AND UPPER(p.paymentMethod) NOT LIKE '%CARD%' " +
+           "AND p.paymentDate < :before AND p.paymentId > :afterId ORDER BY p.paymentId")
+    List<Object[]> findStuckPendingChunk(@Param("before") LocalDateTime before,
+                                         @Param("afterId") long afterId,
+                                         Pageable pageable);
+
+    // Bulk status change (refunds of a cancelled trip); bypasses the entity listener
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.version = p.version + 1 WHERE p.paymentId IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") String status);
+
+    // Bulk status change of the payments still in 'expected'; bypasses the entity listener
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.version = p.version + 1 " +
+           "WHERE p.paymentId IN :ids AND p.status = :expected")
+    int updateStatusIf(@Param("ids") Collection<Long> ids, @Param("expected") String expected,
+                       @Param("status") String status);
+
+    // Claim an owed refund for sending: exactly one caller (on any node) gets 1 back
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = 'REFUND_SENDING', p.refundSentAt = :now, p.version = p.version + 1 " +
+           "WHERE p.paymentId = :id AND p.status = 'REFUND_PENDING'")
+    int claimRefund(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Settle a refund left in REFUND_SENDING since before :sentBefore (its sender died or lost the answer)
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.version = p.version + 1 " +
+           "WHERE p.paymentId = :id AND p.status = 'REFUND_SENDING' AND p.refundSentAt < :sentBefore")
+    int settleStaleRefund(@Param("id") Long id, @Param("sentBefore") LocalDateTime sentBefore,
+                          @Param("status") String status);
+
+    // Refunds in REFUND_SENDING since before :sentBefore, next chunk after afterId. rows: [paymentId, paymentMethod]
+    @Query("SELECT p.paymentId, p.paymentMethod FROM Payment p " +
+           "WHERE p.status = 'REFUND_SENDING' AND p.refundSentAt < :sentBefore AND p.paymentId > :afterId " +
+           "ORDER BY p.paymentId")
+    List<Object[]> findStaleRefundChunk(@Param("sentBefore") LocalDateTime sentBefore,
+                                        @Param("afterId") long afterId, Pageable pageable);
+
+    // Refunds still owed, next chunk after afterId. rows: [paymentId, paymentMethod, amount, booking email]
+    @Query("SELECT p.paymentId, p.paymentMethod, p.amount, b.email FROM Booking b JOIN b.payment p " +
+           "WHERE p.status = 'REFUND_PENDING' AND p.paymentId > :afterId ORDER BY p.paymentId")
+    List<Object[]> findRefundPendingChunk(@Param("afterId") long afterId, Pageable pageable);
+}
@@ -0,0 +1,44 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, LocalDate> {
+
+    List<ReconciliationCheckpoint> findBySettlementDateBetweenOrderBySettlementDateAsc(LocalDate from, LocalDate to);
+
+    // Claim a day for one run: exactly one caller (on any node) gets 1 back while the day is unowned or its lease
+    // ran out. DONE days are only claimed again when restarting.
+    @Modifying
+    @Query("UPDATE ReconciliationCheckpoint c SET c.status = 'RUNNING', c.owner = :owner, c.leaseUntil = :leaseUntil, " +
+           "c.lastError = NULL, c.updatedAt = :now " +
+           "WHERE c.settlementDate = :day AND (c.status <> 'RUNNING' OR c.leaseUntil IS NULL OR c.leaseUntil < :now) " +
+           "AND (:restart = true OR c.status <> 'DONE')")
+    int claim(@Param("day") LocalDate day, @Param("owner") String owner, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("restart") boolean restart);
+
+    // Record progress and renew the lease; 0 means the claim was lost to another run
+    @Modifying
+    @Query("UPDATE ReconciliationCheckpoint c SET c.lastPaymentId = :lastPaymentId, c.rowsChecked = :rowsChecked, " +
+           "c.findings = :findings, c.leaseUntil = :leaseUntil, c.updatedAt = :now " +
+           "WHERE c.settlementDate = :day AND c.owner = :owner")
+    int advance(@Param("day") LocalDate day, @Param("owner") String owner, @Param("lastPaymentId") long lastPaymentId,
+                @Param("rowsChecked") long rowsChecked, @Param("findings") long findings,
+                @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Give the day up with its final status, if this run still owns it
+    @Modifying
+    @Query("UPDATE ReconciliationCheckpoint c SET c.status = :status, c.lastError = :error, c.owner = NULL, " +
+           "c.leaseUntil = NULL, c.updatedAt = :now WHERE c.settlementDate = :day AND c.owner = :owner")
+    int release(@Param("day") LocalDate day, @Param("owner") String owner, @Param("status") String status,
+                @Param("error") String error, @Param("now") LocalDateTime now);
+}
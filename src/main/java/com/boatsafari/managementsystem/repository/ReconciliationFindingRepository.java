@@ -0,0 +1,29 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.ReconciliationFinding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReconciliationFindingRepository extends JpaRepository<ReconciliationFinding, Long> {
+
+    // Served by UX_reconciliation_findings_day_payment_type
+    List<ReconciliationFinding> findBySettlementDateOrderByPaymentIdAsc(LocalDate settlementDate, Pageable pageable);
+
+    // Which of these payments already have a finding of this type (IX_reconciliation_findings_payment)
+    @Query("SELECT f.paymentId FROM ReconciliationFinding f WHERE f.findingType = :type AND f.paymentId IN :paymentIds")
+    List<Long> findPaymentIdsWithFinding(@Param("type") String type, @Param("paymentIds") Collection<Long> paymentIds);
+
+    // Used when a day is reconciled again from scratch
+    @Modifying
+    @Query("DELETE FROM ReconciliationFinding f WHERE f.settlementDate = :day")
+    int deleteBySettlementDate(@Param("day") LocalDate day);
+}
@@ -0,0 +1,59 @@
+package com.boatsafari.managementsystem.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.Locale;
+
+/**
+ * Building blocks shared by the Specification classes of the search screens
+ */
+public final class SearchPredicates {
+
+    private SearchPredicates() {
+    }
+
+    /**
+     * The LEFT join of an association, reusing a join or fetch the query already has for it
+     * (so filters and projections do not join the same table twice)
+     */
+    @SuppressWarnings("unchecked")
+    public static <X, Y> Join<X, Y> leftJoin(From<?, X> from, String attribute) {
+        for (Join<X, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return (Join<X, Y>) join;
+            }
+        }
+        for (Fetch<X, ?> fetch : from.getFetches()) {
+            if (fetch.getAttribute().getName().equals(attribute) && fetch instanceof Join) {
+                return (Join<X, Y>) fetch;
+            }
+        }
+        return from.join(attribute, JoinType.LEFT);
+    }
+
+    /**
+     * Case-insensitive equality
+     */
+    public static Predicate equalsIgnoreCase(CriteriaBuilder cb, Expression<String> column, String value) {
+        return cb.equal(cb.upper(column), value.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Case-insensitive substring match; % and _ in the value are matched literally
+     */
+    public static Predicate contains(CriteriaBuilder cb, Expression<String> column, String value) {
+        String escaped = value.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return cb.like(cb.lower(column), "%" + escaped + "%", '\\');
+    }
+
+    public static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+}
@@ -3,5 +3,6 @@ package com.boatsafari.managementsystem.repository;
 
 import com.boatsafari.managementsystem.model.SupportTicket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface SupportTicketRepository extends JpaRepository<SupportTicket, Long> { }
\ No newline at end of file
+public interface SupportTicketRepository extends JpaRepository<SupportTicket, Long>, JpaSpecificationExecutor<SupportTicket> { }
\ No newline at end of file
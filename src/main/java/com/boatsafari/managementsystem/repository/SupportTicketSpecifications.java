@@ -0,0 +1,40 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.SupportTicket;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.boatsafari.managementsystem.repository.SearchPredicates.contains;
+import static com.boatsafari.managementsystem.repository.SearchPredicates.equalsIgnoreCase;
+import static com.boatsafari.managementsystem.repository.SearchPredicates.isEmpty;
+
+/**
+ * Support ticket filters as Specifications, evaluated by the database instead of in Java
+ */
+public final class SupportTicketSpecifications {
+
+    private SupportTicketSpecifications() {
+    }
+
+    public static Specification<SupportTicket> matching(String status, String priority, String category, String assignedTo) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (!isEmpty(status)) {
+                predicates.add(equalsIgnoreCase(cb, root.get("status"), status));
+            }
+            if (!isEmpty(priority)) {
+                predicates.add(equalsIgnoreCase(cb, root.get("priority"), priority));
+            }
+            if (!isEmpty(category)) {
+                predicates.add(equalsIgnoreCase(cb, root.get("category"), category));
+            }
+            if (!isEmpty(assignedTo)) {
+                predicates.add(contains(cb, root.get("assignedTo"), assignedTo));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
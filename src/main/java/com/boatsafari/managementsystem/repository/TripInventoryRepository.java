@@ -0,0 +1,64 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.TripInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TripInventoryRepository extends JpaRepository<TripInventory, Long> {
+
+    // Take seats for a new hold only if the trip still has room (single atomic statement)
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.heldSeats = i.heldSeats + :seats " +
+           "WHERE i.tripId = :tripId " +
+           "AND i.heldSeats + i.confirmedSeats + :seats <= (SELECT t.capacity FROM Trip t WHERE t.tripId = :tripId)")
+    int tryHold(@Param("tripId") Long tripId, @Param("seats") int seats);
+
+    // Take confirmed seats directly (e.g. a cancelled booking being re-confirmed by staff)
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.confirmedSeats = i.confirmedSeats + :seats " +
+           "WHERE i.tripId = :tripId " +
+           "AND i.heldSeats + i.confirmedSeats + :seats <= (SELECT t.capacity FROM Trip t WHERE t.tripId = :tripId)")
+    int tryConfirm(@Param("tripId") Long tripId, @Param("seats") int seats);
+
+    // Move seats from held to confirmed
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.heldSeats = i.heldSeats - :seats, i.confirmedSeats = i.confirmedSeats + :seats " +
+           "WHERE i.tripId = :tripId AND i.heldSeats >= :seats")
+    int promoteHeld(@Param("tripId") Long tripId, @Param("seats") int seats);
+
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.heldSeats = i.heldSeats - :seats " +
+           "WHERE i.tripId = :tripId AND i.heldSeats >= :seats")
+    int releaseHeld(@Param("tripId") Long tripId, @Param("seats") int seats);
+
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.confirmedSeats = i.confirmedSeats - :seats " +
+           "WHERE i.tripId = :tripId AND i.confirmedSeats >= :seats")
+    int releaseConfirmed(@Param("tripId") Long tripId, @Param("seats") int seats);
+
+    // Apply a net change to both counters; growth is only allowed while the trip has room
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.heldSeats = i.heldSeats + :held, i.confirmedSeats = i.confirmedSeats + :confirmed " +
+           "WHERE i.tripId = :tripId " +
+           "AND i.heldSeats + :held >= 0 AND i.confirmedSeats + :confirmed >= 0 " +
+           "AND (:held + :confirmed <= 0 " +
+           "OR i.heldSeats + i.confirmedSeats + :held + :confirmed <= (SELECT t.capacity FROM Trip t WHERE t.tripId = :tripId))")
+    int applyDelta(@Param("tripId") Long tripId, @Param("held") int held, @Param("confirmed") int confirmed);
+
+    // Overwrite counters with absolute values (used when re-syncing from the bookings table)
+    @Modifying
+    @Query("UPDATE TripInventory i SET i.heldSeats = :held, i.confirmedSeats = :confirmed WHERE i.tripId = :tripId")
+    int overwrite(@Param("tripId") Long tripId, @Param("held") int held, @Param("confirmed") int confirmed);
+
+    // Insert the row only if it is not there yet (SQL Server)
+    @Modifying
+    @Query(value = "INSERT INTO trip_inventory (trip_id, held_seats, confirmed_seats) " +
+                   "SELECT :tripId, :held, :confirmed " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM trip_inventory WITH (UPDLOCK, HOLDLOCK) WHERE trip_id = :tripId)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("tripId") Long tripId, @Param("held") int held, @Param("confirmed") int confirmed);
+}
@@ -5,10 +5,13 @@ import com.boatsafari.managementsystem.model.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TripRepository extends JpaRepository<Trip, Long> {
@@ -21,9 +24,43 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
     @Query("update Trip t set t.date = :today where t.date < :today")
     int bulkRollPastTripsToToday(LocalDate today);
 
+    // Seat counters for many trips in one query: [tripId, date, capacity, heldSeats, confirmedSeats]
+    // held/confirmed are null for trips without a trip_inventory row yet
+    @Query("SELECT t.tripId, t.date, t.capacity, i.heldSeats, i.confirmedSeats " +
+           "FROM Trip t LEFT JOIN TripInventory i ON i.tripId = t.tripId " +
+           "WHERE t.tripId IN :ids")
+    List<Object[]> findAvailabilityByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT t.tripId, t.date, t.capacity, i.heldSeats, i.confirmedSeats " +
+           "FROM Trip t LEFT JOIN TripInventory i ON i.tripId = t.tripId " +
+           "WHERE t.date >= :from AND t.date <= :to " +
+           "ORDER BY t.date, t.tripId")
+    List<Object[]> findAvailabilityBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT t.highDemand FROM Trip t WHERE t.tripId = :tripId")
+    Optional<Boolean> findHighDemandById(@Param("tripId") Long tripId);
+
     // Find trips assigned to a specific guide
     List<Trip> findByGuide_UserId(Long guideId);
 
+    // Guide dashboard rows with their passenger counts in one statement:
+    // [tripId, name, description, date, startTime, endTime, location, route, boatName, capacity,
+    //  confirmedPassengers, checkedInBookings]; from/to are optional bounds (from inclusive, to exclusive)
+    @Query("SELECT t.tripId, t.name, t.description, t.date, t.startTime, t.endTime, t.location, t.route, " +
+           "bt.boatName, t.capacity, " +
+           "(SELECT COALESCE(SUM(b.passengers), 0) FROM Booking b " +
+           " WHERE b.trip.tripId = t.tripId AND b.status = 'CONFIRMED'), " +
+           "(SELECT COUNT(c) FROM PassengerCheckIn c " +
+           " WHERE c.booking.trip.tripId = t.tripId AND c.checkedIn = true) " +
+           "FROM Trip t LEFT JOIN t.boat bt " +
+           "WHERE t.guide.userId = :guideId " +
+           "AND (:from IS NULL OR t.date >= :from) " +
+           "AND (:to IS NULL OR t.date < :to) " +
+           "ORDER BY t.date, t.startTime, t.tripId")
+    List<Object[]> findGuideTripSummaries(@Param("guideId") Long guideId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+
     // Find upcoming trips for a guide (today or future)
     List<Trip> findByGuide_UserIdAndDateGreaterThanEqual(Long guideId, LocalDate date);
 
@@ -2,7 +2,8 @@ package com.boatsafari.managementsystem.repository;
 
 import com.boatsafari.managementsystem.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     User findByEmail(String email);
-}
\ No newline at end of file
+}
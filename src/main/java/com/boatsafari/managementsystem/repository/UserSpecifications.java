@@ -0,0 +1,37 @@
+package com.boatsafari.managementsystem.repository;
+
+import com.boatsafari.managementsystem.model.User;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.boatsafari.managementsystem.repository.SearchPredicates.contains;
+import static com.boatsafari.managementsystem.repository.SearchPredicates.equalsIgnoreCase;
+
+/**
+ * User search filters as Specifications, evaluated by the database instead of in Java
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Customers whose first name, second name or email contains the search text (all customers when it is blank)
+     */
+    public static Specification<User> customersMatching(String search) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(equalsIgnoreCase(cb, root.get("roleType"), "CUSTOMER"));
+            if (search != null && !search.trim().isEmpty()) {
+                predicates.add(cb.or(
+                        contains(cb, root.get("firstName"), search),
+                        contains(cb, root.get("secondName"), search),
+                        contains(cb, root.get("email"), search)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
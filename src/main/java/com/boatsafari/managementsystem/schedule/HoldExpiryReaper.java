@@ -0,0 +1,168 @@
+// src/main/java/com/boatsafari/managementsystem/schedule/HoldExpiryReaper.java
+package com.boatsafari.managementsystem.schedule;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.observer.BookingEventPublisher;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.service.TripInventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires PROVISIONAL bookings whose 15 minute hold has run out and gives their seats back.
+ *
+ * Upcoming deadlines are kept in memory in a DelayQueue (loaded once at startup, then fed by
+ * track() whenever a hold is created), so the job only ever touches bookings that are actually due
+ * instead of scanning the bookings table. Due holds are expired in batches: lock the rows that are
+ * still PROVISIONAL, one bulk UPDATE to EXPIRED, one seat release per trip, then observers are told.
+ */
+@Component
+public class HoldExpiryReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryReaper.class);
+    private static final String EXPIRED = "EXPIRED";
+
+    private final BookingRepository bookingRepository;
+    private final TripInventoryService tripInventoryService;
+    private final BookingEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<HoldDeadline> deadlines = new DelayQueue<>();
+
+    @Value("${app.booking.hold-expiry.batch-size:500}")
+    private int batchSize;
+
+    public HoldExpiryReaper(BookingRepository bookingRepository,
+                            TripInventoryService tripInventoryService,
+                            BookingEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.tripInventoryService = tripInventoryService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Rebuild the deadline queue from the database once the application is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingHolds() {
+        List<Object[]> rows = bookingRepository.findProvisionalHoldDeadlines();
+        for (Object[] row : rows) {
+            deadlines.add(new HoldDeadline((Long) row[0], (LocalDateTime) row[1]));
+        }
+        log.info("HoldExpiryReaper (startup): tracking {} provisional holds", rows.size());
+    }
+
+    /**
+     * Start tracking the hold of a PROVISIONAL booking. Anything else is ignored.
+     */
+    public void track(Booking booking) {
+        if (booking.getBookingId() == null || booking.getHoldTimer() == null
+                || !"PROVISIONAL".equalsIgnoreCase(booking.getStatus())) {
+            return;
+        }
+        deadlines.add(new HoldDeadline(booking.getBookingId(), booking.getHoldTimer()));
+    }
+
+    public int getTrackedCount() {
+        return deadlines.size();
+    }
+
+    // Every few seconds: expire whatever is due, in batches
+    @Scheduled(fixedDelayString = "${app.booking.hold-expiry.interval-ms:5000}")
+    public void expireDueHolds() {
+        List<Long> due = new ArrayList<>(batchSize);
+        HoldDeadline next;
+        while ((next = deadlines.poll()) != null) {
+            due.add(next.bookingId);
+            if (due.size() == batchSize) {
+                expireBatch(due);
+                due.clear();
+            }
+        }
+        if (!due.isEmpty()) {
+            expireBatch(due);
+        }
+    }
+
+    private void expireBatch(List<Long> bookingIds) {
+        List<Booking> expired;
+        try {
+            expired = transactionTemplate.execute(tx -> {
+                // Bookings confirmed/cancelled in the meantime are simply not returned
+                List<Booking> locked = bookingRepository.lockExpiredHolds(bookingIds, LocalDateTime.now());
+                if (locked.isEmpty()) {
+                    return locked;
+                }
+                bookingRepository.markExpired(locked.stream().map(Booking::getBookingId).toList());
+
+                Map<Long, Integer> seatsByTrip = new HashMap<>();
+                for (Booking booking : locked) {
+                    if (booking.getTrip() != null) {
+                        seatsByTrip.merge(booking.getTrip().getTripId(), booking.getPassengers(), Integer::sum);
+                    }
+                }
+                seatsByTrip.forEach(tripInventoryService::releaseHeldSeats);
+                if (eventPublisher.isOutboxMode()) {
+                    locked.forEach(booking -> eventPublisher.bookingStatusChanged(booking, booking.getStatus(), EXPIRED));
+                }
+                return locked;
+            });
+        } catch (Exception e) {
+            // Put them back so the next run retries
+            log.error("HoldExpiryReaper: failed to expire {} holds, will retry: {}", bookingIds.size(), e.getMessage());
+            LocalDateTime now = LocalDateTime.now();
+            bookingIds.forEach(id -> deadlines.add(new HoldDeadline(id, now)));
+            return;
+        }
+
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        log.info("HoldExpiryReaper: expired {} provisional bookings", expired.size());
+        if (eventPublisher.isOutboxMode()) {
+            return; // already written to the outbox in the same transaction
+        }
+        for (Booking booking : expired) {
+            String oldStatus = booking.getStatus();
+            booking.setStatus(EXPIRED); // detached copy, the row was updated in bulk
+            eventPublisher.bookingStatusChanged(booking, oldStatus, EXPIRED);
+        }
+    }
+
+    private static final class HoldDeadline implements Delayed {
+        private final Long bookingId;
+        private final long deadlineMillis;
+
+        HoldDeadline(Long bookingId, LocalDateTime holdTimer) {
+            this.bookingId = bookingId;
+            this.deadlineMillis = holdTimer.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineMillis, ((HoldDeadline) other).deadlineMillis);
+        }
+    }
+}
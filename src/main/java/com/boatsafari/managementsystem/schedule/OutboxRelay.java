@@ -0,0 +1,202 @@
+// src/main/java/com/boatsafari/managementsystem/schedule/OutboxRelay.java
+package com.boatsafari.managementsystem.schedule;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.OutboxEvent;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.observer.BookingEventPublisher;
+import com.boatsafari.managementsystem.observer.BookingObserver;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.OutboxEventRepository;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Delivers outbox events to the BookingObservers (app.booking.observers.dispatch=outbox).
+ *
+ * Each run claims an ordered batch with a single UPDLOCK/READPAST statement, so several nodes can
+ * drain the table at the same time without delivering an event twice. Observers that already got an
+ * event are recorded on the row, so a replay after a crash or a retry only calls the ones that missed it.
+ * A failed event is retried after an exponential backoff (app.outbox.retry-backoff-ms, doubling up to
+ * app.outbox.max-backoff-ms) instead of being claimed again on the next pass.
+ */
+@Component
+@ConditionalOnProperty(name = "app.booking.observers.dispatch", havingValue = "outbox")
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final BookingEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${app.outbox.claim-timeout-ms:60000}")
+    private long claimTimeoutMs;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       BookingRepository bookingRepository,
+                       PaymentRepository paymentRepository,
+                       BookingEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.bookingRepository = bookingRepository;
+        this.paymentRepository = paymentRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.interval-ms:1000}")
+    public void relay() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claim();
+            Set<Long> blockedBookings = new HashSet<>();
+            for (OutboxEvent event : batch) {
+                // Keep per-booking order: once an event fails, later ones of that booking wait for the retry
+                if (blockedBookings.contains(event.getAggregateId()) || !deliver(event)) {
+                    blockedBookings.add(event.getAggregateId());
+                    if (!OutboxEvent.FAILED.equals(event.getStatus())) {
+                        event.setStatus(OutboxEvent.PENDING);
+                    }
+                }
+                event.setClaimToken(null);
+                outboxEventRepository.save(event);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // Nightly clean-up of delivered events
+    @Scheduled(cron = "0 30 0 * * *")
+    public void purgeDelivered() {
+        Integer deleted = transactionTemplate.execute(tx ->
+                outboxEventRepository.deleteDeliveredBefore(LocalDateTime.now().minusDays(retentionDays)));
+        log.info("OutboxRelay: purged {} delivered events", deleted);
+    }
+
+    private List<OutboxEvent> claim() {
+        String token = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(tx -> outboxEventRepository.claimBatch(
+                batchSize, token, now, now.minusNanos(claimTimeoutMs * 1_000_000)));
+        if (claimed == null || claimed == 0) {
+            return List.of();
+        }
+        return outboxEventRepository.findByClaimTokenOrderByIdAsc(token);
+    }
+
+    /**
+     * Call every observer that has not received the event yet.
+     * @return true when all observers have it
+     */
+    private boolean deliver(OutboxEvent event) {
+        Optional<Booking> bookingOpt = bookingRepository.findById(event.getAggregateId());
+        if (bookingOpt.isEmpty()) {
+            // Booking deleted since - nothing left to tell anyone about
+            markDone(event);
+            return true;
+        }
+        Booking booking = bookingOpt.get();
+        if (event.getNewStatus() != null) {
+            booking.setStatus(event.getNewStatus()); // state as of the event (detached copy)
+        }
+        Payment payment = event.getPaymentId() != null
+                ? paymentRepository.findById(event.getPaymentId()).orElse(null) : null;
+
+        Set<String> delivered = new LinkedHashSet<>();
+        if (event.getDeliveredObservers() != null && !event.getDeliveredObservers().isBlank()) {
+            delivered.addAll(Arrays.asList(event.getDeliveredObservers().split(",")));
+        }
+
+        String error = null;
+        for (BookingObserver observer : eventPublisher.getObservers()) {
+            if (delivered.contains(observer.getObserverName())) {
+                continue;
+            }
+            try {
+                switch (event.getEventType()) {
+                    case "BOOKING_CREATED":
+                        observer.onBookingCreated(booking);
+                        break;
+                    case "BOOKING_STATUS_CHANGED":
+                        observer.onBookingStatusChanged(booking, event.getOldStatus(), event.getNewStatus());
+                        break;
+                    case "PAYMENT_RECORDED":
+                        if (payment != null) {
+                            observer.onPaymentRecorded(booking, payment);
+                        }
+                        break;
+                    default:
+                        log.warn("OutboxRelay: unknown event type {} (id {})", event.getEventType(), event.getId());
+                }
+                delivered.add(observer.getObserverName());
+            } catch (Exception e) {
+                error = observer.getObserverName() + ": " + e.getMessage();
+                log.error("OutboxRelay: observer {} failed on event {}: {}",
+                        observer.getObserverName(), event.getId(), e.getMessage());
+            }
+        }
+        event.setDeliveredObservers(String.join(",", delivered));
+
+        if (error == null) {
+            markDone(event);
+            return true;
+        }
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxEvent.FAILED);
+            log.error("OutboxRelay: giving up on event {} after {} attempts", event.getId(), event.getAttempts());
+        } else {
+            long backoff = backoffMs(event.getAttempts());
+            event.setNextAttemptAt(LocalDateTime.now().plusNanos(backoff * 1_000_000));
+            log.info("OutboxRelay: event {} retried in {} ms (attempt {})", event.getId(), backoff, event.getAttempts());
+        }
+        return false;
+    }
+
+    // retryBackoffMs, doubled per failed attempt, capped at maxBackoffMs
+    private long backoffMs(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(maxBackoffMs, retryBackoffMs << doublings);
+    }
+
+    private void markDone(OutboxEvent event) {
+        event.setStatus(OutboxEvent.DONE);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setNextAttemptAt(null);
+        event.setLastError(null);
+    }
+}
@@ -0,0 +1,383 @@
+// src/main/java/com/boatsafari/managementsystem/schedule/PaymentReconciliationJob.java
+package com.boatsafari.managementsystem.schedule;
+
+import com.boatsafari.managementsystem.model.ReconciliationCheckpoint;
+import com.boatsafari.managementsystem.model.ReconciliationFinding;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.repository.ReconciliationCheckpointRepository;
+import com.boatsafari.managementsystem.repository.ReconciliationFindingRepository;
+import com.boatsafari.managementsystem.strategy.SettlementLedger;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nightly reconciliation of Payments against the gateway settlement ledger.
+ *
+ * Each settlement day is a partition, and partitions run in parallel. Within a day both sides are
+ * read in payment id order - the database in keyset chunks, the ledger line by line - and merged
+ * like a sort-merge join, so memory use stays at one chunk however many payments there are.
+ * The findings of a chunk and the checkpoint after it commit together, so a crashed or stopped
+ * run resumes where it left off without reporting anything twice. A run claims its day on the
+ * checkpoint (owner + lease) first, so two runs - on this node or another - never reconcile the
+ * same day at once; the lease is renewed with every chunk and a day left by a dead run is taken over.
+ *
+ * The database side of a day is the payments taken on it, the ledger side what the gateway settled on it.
+ * A capture taken shortly before midnight may settle the next day, so a day is only reconciled once the
+ * ledger of the next day is there too: a captured payment settled there is not missing, and a ledger
+ * entry for a payment taken the day before is compared with that payment instead of reported as unknown.
+ *
+ * Pay-on-arrival payments stuck in PENDING are not a ledger question, so they are checked in a
+ * separate pass over all PENDING payments, whatever day they were taken on.
+ */
+@Component
+public class PaymentReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationJob.class);
+    private static final double AMOUNT_TOLERANCE = 0.005;
+
+    private final PaymentRepository paymentRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final ReconciliationFindingRepository findingRepository;
+    private final SettlementLedger settlementLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService partitions;
+
+    @Value("${app.reconciliation.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.reconciliation.lookback-days:3}")
+    private int lookbackDays;
+
+    @Value("${app.reconciliation.stuck-pending-days:3}")
+    private int stuckPendingDays;
+
+    @Value("${app.reconciliation.lease-ms:900000}")
+    private long leaseMs;
+
+    public PaymentReconciliationJob(PaymentRepository paymentRepository,
+                                    ReconciliationCheckpointRepository checkpointRepository,
+                                    ReconciliationFindingRepository findingRepository,
+                                    SettlementLedger settlementLedger,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.reconciliation.parallelism:4}") int parallelism) {
+        this.paymentRepository = paymentRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.findingRepository = findingRepository;
+        this.settlementLedger = settlementLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.partitions = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "reconciliation-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partitions.shutdownNow();
+    }
+
+    // Every night: the last few settlement days (days already DONE are skipped), then stuck pay-on-arrival payments
+    @Scheduled(cron = "${app.reconciliation.cron:0 0 2 * * *}")
+    public void nightly() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Map<LocalDate, String> result = reconcile(yesterday.minusDays(lookbackDays - 1L), yesterday, false);
+        log.info("PaymentReconciliationJob (nightly): {}", result);
+        try {
+            flagStuckPending();
+        } catch (Exception e) {
+            log.error("PaymentReconciliationJob: stuck PENDING check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Record a STUCK_PENDING finding for every pay-on-arrival payment still PENDING more than
+     * app.reconciliation.stuck-pending-days after it was taken. Independent of settlement days and
+     * checkpoints; a payment that already has such a finding is not reported again.
+     * @return number of new findings
+     */
+    public int flagStuckPending() {
+        LocalDateTime stuckBefore = LocalDateTime.now().minusDays(stuckPendingDays);
+        long afterId = 0;
+        int flagged = 0;
+        List<Object[]> chunk;
+        do {
+            chunk = paymentRepository.findStuckPendingChunk(stuckBefore, afterId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Long> ids = chunk.stream().map(row -> (Long) row[0]).toList();
+            Set<Long> known = new HashSet<>(findingRepository.findPaymentIdsWithFinding(
+                    ReconciliationFinding.STUCK_PENDING, ids));
+            List<ReconciliationFinding> findings = new ArrayList<>();
+            for (Object[] row : chunk) {
+                long paymentId = (Long) row[0];
+                if (known.contains(paymentId)) {
+                    continue;
+                }
+                LocalDateTime paymentDate = (LocalDateTime) row[2];
+                findings.add(finding(paymentDate.toLocalDate(), paymentId, ReconciliationFinding.STUCK_PENDING,
+                        ((Number) row[1]).doubleValue(), null,
+                        "Pay-on-arrival payment still PENDING since " + paymentDate));
+            }
+            transactionTemplate.executeWithoutResult(tx -> findingRepository.saveAll(findings));
+            flagged += findings.size();
+            afterId = ids.get(ids.size() - 1);
+        } while (chunk.size() == chunkSize);
+
+        log.info("PaymentReconciliationJob: {} stuck PENDING payments flagged", flagged);
+        return flagged;
+    }
+
+    /**
+     * Reconcile every settlement day in [from, to], several days at a time. Blocks until all are done.
+     * @param restart reconcile DONE days again from scratch (their findings are replaced)
+     * @return final status per day
+     */
+    public Map<LocalDate, String> reconcile(LocalDate from, LocalDate to, boolean restart) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        Map<LocalDate, Future<String>> running = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate partition = day;
+            running.put(day, partitions.submit(() -> reconcileDay(partition, restart)));
+        }
+        Map<LocalDate, String> result = new LinkedHashMap<>();
+        running.forEach((day, future) -> {
+            try {
+                result.put(day, future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.put(day, "INTERRUPTED");
+            } catch (ExecutionException e) {
+                result.put(day, ReconciliationCheckpoint.FAILED);
+            }
+        });
+        return result;
+    }
+
+    public List<ReconciliationCheckpoint> getProgress(LocalDate from, LocalDate to) {
+        return checkpointRepository.findBySettlementDateBetweenOrderBySettlementDateAsc(from, to);
+    }
+
+    private String reconcileDay(LocalDate day, boolean restart) {
+        String owner = UUID.randomUUID().toString();
+        ReconciliationCheckpoint checkpoint = claim(day, owner, restart);
+        if (checkpoint == null) {
+            String status = checkpointRepository.findById(day).map(ReconciliationCheckpoint::getStatus)
+                    .orElse(ReconciliationCheckpoint.RUNNING);
+            if (!ReconciliationCheckpoint.DONE.equals(status)) {
+                log.info("PaymentReconciliationJob: {} is being reconciled by another run", day);
+            }
+            return status;
+        }
+
+        try {
+            if (restart) {
+                checkpoint.setLastPaymentId(0);
+                checkpoint.setRowsChecked(0);
+                checkpoint.setFindings(0);
+                transactionTemplate.executeWithoutResult(tx -> {
+                    findingRepository.deleteBySettlementDate(day);
+                    advance(checkpoint, owner);
+                });
+            }
+            LocalDate nextDay = day.plusDays(1);
+            for (LocalDate ledgerDay : List.of(day, nextDay)) {
+                if (!settlementLedger.exists(ledgerDay)) {
+                    // Not delivered yet - try again on the next run
+                    return release(day, owner, ReconciliationCheckpoint.NO_LEDGER,
+                            "Waiting for the settlement ledger of " + ledgerDay);
+                }
+            }
+
+            try (SettlementLedger.Cursor ledger = settlementLedger.open(day, checkpoint.getLastPaymentId());
+                 SettlementLedger.Cursor nextLedger = settlementLedger.open(nextDay, checkpoint.getLastPaymentId())) {
+                LocalDateTime start = day.atStartOfDay();
+                LocalDateTime end = nextDay.atStartOfDay();
+
+                List<Object[]> chunk;
+                do {
+                    chunk = paymentRepository.findReconciliationChunk(start, end, checkpoint.getLastPaymentId(),
+                            PageRequest.of(0, chunkSize));
+                    boolean last = chunk.size() < chunkSize;
+                    List<ReconciliationFinding> findings = new ArrayList<>();
+                    List<SettlementLedger.Entry> unmatched = new ArrayList<>();
+
+                    for (Object[] row : chunk) {
+                        long paymentId = (Long) row[0];
+                        while (ledger.peek() != null && ledger.peek().paymentId() < paymentId) {
+                            unmatched.add(ledger.next());
+                        }
+                        SettlementLedger.Entry match = ledger.peek() != null && ledger.peek().paymentId() == paymentId
+                                ? ledger.next() : null;
+                        compare(day, row, match, match == null && settledIn(nextLedger, paymentId), findings);
+                    }
+                    if (last) {
+                        while (ledger.peek() != null) {
+                            unmatched.add(ledger.next());
+                        }
+                    }
+                    findings.addAll(unmatchedEntries(day, unmatched));
+
+                    long lastId = chunk.isEmpty() ? checkpoint.getLastPaymentId() : (Long) chunk.get(chunk.size() - 1)[0];
+                    checkpoint.setLastPaymentId(lastId);
+                    checkpoint.setRowsChecked(checkpoint.getRowsChecked() + chunk.size());
+                    checkpoint.setFindings(checkpoint.getFindings() + findings.size());
+                    transactionTemplate.executeWithoutResult(tx -> {
+                        findingRepository.saveAll(findings);
+                        advance(checkpoint, owner);
+                    });
+                } while (chunk.size() == chunkSize);
+            }
+
+            log.info("PaymentReconciliationJob: {} reconciled, {} payments checked, {} findings",
+                    day, checkpoint.getRowsChecked(), checkpoint.getFindings());
+            return release(day, owner, ReconciliationCheckpoint.DONE, null);
+        } catch (Exception e) {
+            log.error("PaymentReconciliationJob: {} failed after payment {}: {}",
+                    day, checkpoint.getLastPaymentId(), e.getMessage());
+            return release(day, owner, ReconciliationCheckpoint.FAILED, e.getMessage());
+        }
+    }
+
+    // Take the day for this run; null if another run holds it (or it is DONE and this is no restart)
+    private ReconciliationCheckpoint claim(LocalDate day, String owner, boolean restart) {
+        if (!checkpointRepository.existsById(day)) {
+            ReconciliationCheckpoint fresh = new ReconciliationCheckpoint();
+            fresh.setSettlementDate(day);
+            fresh.setUpdatedAt(LocalDateTime.now());
+            try {
+                transactionTemplate.executeWithoutResult(tx -> checkpointRepository.saveAndFlush(fresh));
+            } catch (DataIntegrityViolationException e) {
+                // Another run created it first; the claim below decides who gets it
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(tx ->
+                checkpointRepository.claim(day, owner, now, now.plusNanos(leaseMs * 1_000_000), restart));
+        return claimed != null && claimed == 1 ? checkpointRepository.findById(day).orElse(null) : null;
+    }
+
+    // Persist progress and renew the lease, in the caller's transaction; fails (rolling it back) if the claim was lost
+    private void advance(ReconciliationCheckpoint checkpoint, String owner) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = checkpointRepository.advance(checkpoint.getSettlementDate(), owner, checkpoint.getLastPaymentId(),
+                checkpoint.getRowsChecked(), checkpoint.getFindings(), now, now.plusNanos(leaseMs * 1_000_000));
+        if (updated == 0) {
+            throw new IllegalStateException("Reconciliation of " + checkpoint.getSettlementDate()
+                    + " was taken over by another run");
+        }
+    }
+
+    private String release(LocalDate day, String owner, String status, String error) {
+        String lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        transactionTemplate.executeWithoutResult(tx ->
+                checkpointRepository.release(day, owner, status, lastError, LocalDateTime.now()));
+        return status;
+    }
+
+    // Whether the gateway settled this payment in the (forward-only) ledger of the next day
+    private static boolean settledIn(SettlementLedger.Cursor nextLedger, long paymentId) {
+        while (nextLedger.peek() != null && nextLedger.peek().paymentId() < paymentId) {
+            nextLedger.next();
+        }
+        return nextLedger.peek() != null && nextLedger.peek().paymentId() == paymentId;
+    }
+
+    // Ledger entries with no payment taken on this day. An entry for a payment taken the day before is its late
+    // settlement and is compared with it; anything else is an unknown capture.
+    private List<ReconciliationFinding> unmatchedEntries(LocalDate day, List<SettlementLedger.Entry> entries) {
+        List<ReconciliationFinding> findings = new ArrayList<>();
+        LocalDate dayBefore = day.minusDays(1);
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<SettlementLedger.Entry> batch = entries.subList(from, Math.min(entries.size(), from + chunkSize));
+            Map<Long, Object[]> payments = new HashMap<>();
+            for (Object[] row : paymentRepository.findReconciliationRows(
+                    batch.stream().map(SettlementLedger.Entry::paymentId).toList())) {
+                payments.put((Long) row[0], row);
+            }
+            for (SettlementLedger.Entry entry : batch) {
+                Object[] row = payments.get(entry.paymentId());
+                if (row != null && dayBefore.equals(((LocalDateTime) row[4]).toLocalDate())) {
+                    compare(day, row, entry, false, findings);
+                } else {
+                    findings.add(unknownCapture(day, entry));
+                }
+            }
+        }
+        return findings;
+    }
+
+    // row: [paymentId, paymentMethod, status, amount, paymentDate]
+    private void compare(LocalDate day, Object[] row, SettlementLedger.Entry ledger, boolean settledNextDay,
+                         List<ReconciliationFinding> findings) {
+        long paymentId = (Long) row[0];
+        String method = (String) row[1];
+        String status = (String) row[2];
+        double amount = ((Number) row[3]).doubleValue();
+
+        boolean card = method != null && method.toUpperCase().contains("CARD");
+        boolean captured = "SUCCESS".equalsIgnoreCase(status) || "COMPLETED".equalsIgnoreCase(status);
+
+        if (ledger == null) {
+            // Settled the next day: that day's run compares it
+            if (card && captured && !settledNextDay) {
+                findings.add(finding(day, paymentId, ReconciliationFinding.MISSING_CAPTURE, amount, null,
+                        "Payment is " + status + " but the gateway did not settle it"));
+            }
+            return;
+        }
+        if (!card || !captured) {
+            findings.add(finding(day, paymentId, ReconciliationFinding.STATUS_MISMATCH, amount, ledger.amount(),
+                    "Gateway settled a " + method + " payment with status " + status + " (ledger: " + ledger.status() + ")"));
+        } else if (Math.abs(amount - ledger.amount()) > AMOUNT_TOLERANCE) {
+            findings.add(finding(day, paymentId, ReconciliationFinding.AMOUNT_MISMATCH, amount, ledger.amount(),
+                    "Amount differs from the settled amount"));
+        }
+    }
+
+    private ReconciliationFinding unknownCapture(LocalDate day, SettlementLedger.Entry entry) {
+        return finding(day, entry.paymentId(), ReconciliationFinding.UNKNOWN_CAPTURE, null, entry.amount(),
+                "Settled by the gateway (" + entry.status() + ") but no such payment on " + day + " or the day before");
+    }
+
+    private ReconciliationFinding finding(LocalDate day, long paymentId, String type,
+                                          Double dbAmount, Double ledgerAmount, String details) {
+        ReconciliationFinding finding = new ReconciliationFinding();
+        finding.setSettlementDate(day);
+        finding.setPaymentId(paymentId);
+        finding.setFindingType(type);
+        finding.setDbAmount(dbAmount);
+        finding.setLedgerAmount(ledgerAmount);
+        finding.setDetails(details.length() > 500 ? details.substring(0, 500) : details);
+        finding.setCreatedAt(LocalDateTime.now());
+        return finding;
+    }
+}
@@ -0,0 +1,214 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.AuditLogEntry;
+import com.boatsafari.managementsystem.repository.AuditLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only audit store.
+ *
+ * Callers only enqueue entries; a single writer thread drains the queue and inserts everything that
+ * arrived in one JDBC batch (group commit), so bursts of bookings cost one round trip instead of one
+ * insert each. A batch that fails to insert is retried with backoff (app.audit.max-attempts); if it
+ * still fails, its entries are written to the error log so the trail can be restored by hand. Queued
+ * entries are flushed on shutdown but lost if the JVM dies, so app.audit.write-through=true inserts
+ * each entry straight away instead, inside the caller's transaction when there is one.
+ * Lookups go through the (booking_id, created_at) and (created_at) indexes.
+ */
+@Service
+public class AuditLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_log (created_at, event_type, booking_id, trip_id, customer_email, old_status, new_status, details) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.max-results:1000}")
+    private int maxResults;
+
+    @Value("${app.audit.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.audit.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${app.audit.write-through:false}")
+    private boolean writeThrough;
+
+    private BlockingQueue<AuditLogEntry> queue;
+    private Thread writer;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::writeLoop, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Write whatever is still queued before shutting down
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        List<AuditLogEntry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        while (!rest.isEmpty()) {
+            List<AuditLogEntry> batch = rest.subList(0, Math.min(batchSize, rest.size()));
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queue an entry for the next batch. Blocks when the queue is full so entries are never dropped.
+     */
+    public void append(AuditLogEntry entry) {
+        if (entry.getCreatedAt() == null) {
+            entry.setCreatedAt(LocalDateTime.now());
+        }
+        if (writeThrough) {
+            insert(List.of(entry)); // part of the caller's transaction, failures reach the caller
+            return;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flush(List.of(entry));
+        }
+    }
+
+    /**
+     * Newest first. bookingId is optional; the time range defaults to everything up to now.
+     */
+    public List<AuditLogEntry> find(Long bookingId, LocalDateTime from, LocalDateTime to, int limit) {
+        LocalDateTime start = from != null ? from : LocalDateTime.of(2000, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, maxResults)));
+        return bookingId != null
+                ? auditLogRepository.findByBookingIdAndCreatedAtBetweenOrderByCreatedAtDescIdDesc(bookingId, start, end, page)
+                : auditLogRepository.findByCreatedAtBetweenOrderByCreatedAtDescIdDesc(start, end, page);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<AuditLogEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLogEntry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert one batch, retrying with exponential backoff. While a batch is being retried new entries
+     * wait in the queue (and append() blocks once it is full) rather than being thrown away.
+     */
+    private void flush(List<AuditLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                insert(entries);
+                return;
+            } catch (Exception e) {
+                if (attempt == maxAttempts) {
+                    log.error("Failed to write {} audit log entries after {} attempts: {}",
+                            entries.size(), attempt, e.getMessage());
+                    break;
+                }
+                log.warn("Failed to write {} audit log entries (attempt {}), retrying in {} ms: {}",
+                        entries.size(), attempt, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff *= 2;
+            }
+        }
+        // Last resort: keep the trail in the application log
+        for (AuditLogEntry e : entries) {
+            log.error("Unwritten audit entry: {} {} booking={} trip={} customer={} {} -> {} {}",
+                    e.getCreatedAt(), e.getEventType(), e.getBookingId(), e.getTripId(), e.getCustomerEmail(),
+                    e.getOldStatus(), e.getNewStatus(), e.getDetails());
+        }
+    }
+
+    private void insert(List<AuditLogEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, e) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(e.getCreatedAt()));
+            ps.setString(2, e.getEventType());
+            setLong(ps, 3, e.getBookingId());
+            setLong(ps, 4, e.getTripId());
+            ps.setString(5, e.getCustomerEmail());
+            ps.setString(6, e.getOldStatus());
+            ps.setString(7, e.getNewStatus());
+            ps.setString(8, e.getDetails());
+        });
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -14,6 +14,9 @@ public class BoatService {
     @Autowired
     private BoatRepository boatRepository;
 
+    @Autowired
+    private TripCatalog tripCatalog; // trips embed their boat
+
     public List<Boat> getAllBoats() {
         return boatRepository.findAll();
     }
@@ -38,7 +41,9 @@ public class BoatService {
      * @return The updated boat
      */
     public Boat updateBoat(Boat boat) {
-        return boatRepository.save(boat);
+        Boat saved = boatRepository.save(boat);
+        tripCatalog.invalidate();
+        return saved;
     }
 
     /**
@@ -56,6 +61,7 @@ public class BoatService {
      */
     public void deleteBoat(Long id) {
         boatRepository.deleteById(id);
+        tripCatalog.invalidate();
     }
 
     /**
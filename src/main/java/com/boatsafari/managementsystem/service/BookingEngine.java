@@ -0,0 +1,426 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.TripInventory;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.observer.BookingEventPublisher;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import com.boatsafari.managementsystem.schedule.HoldExpiryReaper;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional single-writer booking engine (app.booking.engine.enabled=true).
+ *
+ * Every create/confirm/status command for a trip is routed to one shard (tripId % shards).
+ * Each shard is a single thread that owns the live seat counts of its trips, so no locks are
+ * needed to check capacity. Commands are drained from the shard mailbox in micro-batches and each
+ * batch is persisted in one transaction with one inventory UPDATE per trip.
+ * The conditional inventory UPDATE is still the source of truth, so other writers (other nodes,
+ * admin edits) can never cause an oversell - a conflicting batch is rolled back and replayed
+ * one command at a time against freshly loaded counts.
+ */
+@Service
+@ConditionalOnProperty(name = "app.booking.engine.enabled", havingValue = "true")
+public class BookingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingEngine.class);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TripInventoryService tripInventoryService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private CurrentUserUtil currentUserUtil;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private HoldExpiryReaper holdExpiryReaper;
+
+    @Autowired
+    private BookingEventPublisher eventPublisher;
+
+    @Value("${app.booking.engine.shards:0}")
+    private int shardCount;
+
+    @Value("${app.booking.engine.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${app.booking.engine.mailbox-size:10000}")
+    private int mailboxSize;
+
+    @Value("${app.booking.engine.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${app.booking.engine.seat-cache-ttl-ms:5000}")
+    private long seatCacheTtlMs;
+
+    private Shard[] shards;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+            shards[i].start();
+        }
+        log.info("BookingEngine started with {} shards (max batch {})", count, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+        }
+        for (Shard shard : shards) {
+            shard.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        log.info("BookingEngine stopped");
+    }
+
+    // ================= Public API (same contract as BookingService) =================
+
+    public Booking createProvisionalBooking(Long tripId, String name, String contact, String email, int passengers) {
+        User user = currentUserUtil.getCurrentUser(); // resolved on the caller thread (security context)
+        bookingService.validateBookingRequest(name, contact, email, passengers);
+        if (tripId == null) {
+            throw new IllegalArgumentException("Trip not found");
+        }
+        return await(shardFor(tripId).submit(new CreateCommand(tripId, user, name, contact, email, passengers)));
+    }
+
+    public void confirmBooking(Long bookingId) {
+        await(shardFor(tripIdOf(bookingId)).submit(new StatusCommand(bookingId, "CONFIRMED", true)));
+    }
+
+    public void updateBookingStatus(Long bookingId, String newStatus) {
+        await(shardFor(tripIdOf(bookingId)).submit(new StatusCommand(bookingId, newStatus, false)));
+    }
+
+    private Long tripIdOf(Long bookingId) {
+        return bookingRepository.findTripIdByBookingId(bookingId)
+                .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
+    }
+
+    private Shard shardFor(Long tripId) {
+        return shards[(int) Math.floorMod(tripId, (long) shards.length)];
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Booking failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Booking engine timed out, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Booking interrupted");
+        }
+    }
+
+    // ================= Shard worker =================
+
+    /**
+     * Seat counts of one trip as seen by its shard. Only ever touched by the shard thread.
+     */
+    private static class TripSeats {
+        Trip trip;
+        int held;
+        int confirmed;
+        long loadedAt;
+
+        int free() {
+            return Math.max(0, trip.getCapacity() - held - confirmed);
+        }
+    }
+
+    private final class Shard extends Thread {
+        private final BlockingQueue<Command<?>> mailbox = new LinkedBlockingQueue<>(mailboxSize);
+        private final Map<Long, TripSeats> seats = new HashMap<>();
+        private volatile boolean running = true;
+
+        Shard(int index) {
+            super("booking-engine-" + index);
+            setDaemon(true);
+        }
+
+        <T> CompletableFuture<T> submit(Command<T> command) {
+            if (!running || !mailbox.offer(command)) {
+                command.future.completeExceptionally(
+                        new IllegalStateException("Booking engine is busy, please retry"));
+            } else if (!running && mailbox.remove(command)) {
+                // Stopped while we were queueing and the worker may already have drained its mailbox
+                command.future.completeExceptionally(
+                        new IllegalStateException("Booking engine is shutting down, please retry"));
+            }
+            return command.future;
+        }
+
+        @Override
+        public void run() {
+            List<Command<?>> batch = new ArrayList<>(maxBatch);
+            while (running || !mailbox.isEmpty()) {
+                try {
+                    Command<?> first = mailbox.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    mailbox.drainTo(batch, maxBatch - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    running = false;
+                } catch (Exception e) {
+                    log.error("{}: unexpected error", getName(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void process(List<Command<?>> batch) {
+            Map<Long, int[]> deltas = new HashMap<>();
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    batch.forEach(c -> c.reset());
+                    for (Command<?> command : batch) {
+                        try {
+                            command.apply(this, deltas);
+                        } catch (IllegalArgumentException | IllegalStateException e) {
+                            command.error = e; // business rejection, the rest of the batch goes ahead
+                        }
+                    }
+                    for (Map.Entry<Long, int[]> delta : deltas.entrySet()) {
+                        int[] d = delta.getValue();
+                        if (!tripInventoryService.applyDelta(delta.getKey(), d[0], d[1])) {
+                            throw new ConcurrentInventoryChangeException(delta.getKey());
+                        }
+                    }
+                    if (eventPublisher.isOutboxMode()) {
+                        // Outbox rows have to commit together with the batch
+                        for (Command<?> command : batch) {
+                            if (command.error == null) {
+                                command.notifyObservers(bookingService);
+                            }
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                deltas.keySet().forEach(seats::remove);
+                if (batch.size() > 1) {
+                    log.warn("{}: batch of {} rolled back ({}), replaying one by one", getName(), batch.size(), e.getMessage());
+                    for (Command<?> command : batch) {
+                        process(List.of(command));
+                    }
+                } else {
+                    batch.get(0).future.completeExceptionally(e instanceof ConcurrentInventoryChangeException
+                            ? new IllegalArgumentException("Not enough seats available. Please try again.") : e);
+                }
+                return;
+            }
+            // Committed - answer callers and notify observers outside the transaction
+            boolean notify = !eventPublisher.isOutboxMode();
+            for (Command<?> command : batch) {
+                command.complete(bookingService, notify);
+            }
+        }
+
+        TripSeats seatsFor(Long tripId, Map<Long, int[]> deltas, boolean forceReload) {
+            TripSeats current = seats.get(tripId);
+            if (current != null && !forceReload && System.currentTimeMillis() - current.loadedAt < seatCacheTtlMs) {
+                return current;
+            }
+            Trip trip = tripRepository.findById(tripId)
+                    .orElseThrow(() -> new IllegalArgumentException("Trip not found"));
+            TripInventory inventory = tripInventoryService.getInventory(tripId);
+            int[] pending = deltas.getOrDefault(tripId, new int[2]);
+            TripSeats loaded = new TripSeats();
+            loaded.trip = trip;
+            loaded.held = inventory.getHeldSeats() + pending[0];
+            loaded.confirmed = inventory.getConfirmedSeats() + pending[1];
+            loaded.loadedAt = System.currentTimeMillis();
+            seats.put(tripId, loaded);
+            return loaded;
+        }
+    }
+
+    private static class ConcurrentInventoryChangeException extends RuntimeException {
+        ConcurrentInventoryChangeException(Long tripId) {
+            super("Trip inventory changed concurrently for trip " + tripId);
+        }
+    }
+
+    // ================= Commands =================
+
+    private abstract static class Command<T> {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        RuntimeException error;
+
+        void reset() {
+            result = null;
+            error = null;
+        }
+
+        abstract void apply(Shard shard, Map<Long, int[]> deltas);
+
+        abstract void notifyObservers(BookingService bookingService);
+
+        abstract void afterCommit();
+
+        void complete(BookingService bookingService, boolean notify) {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            afterCommit();
+            if (notify) {
+                notifyObservers(bookingService);
+            }
+            future.complete(result);
+        }
+
+        static void addDelta(Map<Long, int[]> deltas, Long tripId, int held, int confirmed) {
+            int[] d = deltas.computeIfAbsent(tripId, k -> new int[2]);
+            d[0] += held;
+            d[1] += confirmed;
+        }
+    }
+
+    private final class CreateCommand extends Command<Booking> {
+        private final Long tripId;
+        private final User user;
+        private final String name;
+        private final String contact;
+        private final String email;
+        private final int passengers;
+
+        CreateCommand(Long tripId, User user, String name, String contact, String email, int passengers) {
+            this.tripId = tripId;
+            this.user = user;
+            this.name = name;
+            this.contact = contact;
+            this.email = email;
+            this.passengers = passengers;
+        }
+
+        @Override
+        void apply(Shard shard, Map<Long, int[]> deltas) {
+            TripSeats tripSeats = shard.seatsFor(tripId, deltas, false);
+            if (tripSeats.free() < passengers) {
+                // Our view may be stale (expired holds, cancellations on other nodes) - check again before refusing
+                tripSeats = shard.seatsFor(tripId, deltas, true);
+                if (tripSeats.free() < passengers) {
+                    throw new IllegalArgumentException("Not enough seats available. Available: " + tripSeats.free());
+                }
+            }
+            tripSeats.held += passengers;
+            addDelta(deltas, tripId, passengers, 0);
+
+            Booking booking = bookingService.newProvisionalBooking(user, tripSeats.trip, name, contact, email, passengers);
+            result = bookingRepository.save(booking);
+        }
+
+        @Override
+        void afterCommit() {
+            holdExpiryReaper.track(result);
+        }
+
+        @Override
+        void notifyObservers(BookingService bookingService) {
+            bookingService.notifyBookingCreated(result);
+        }
+    }
+
+    private final class StatusCommand extends Command<Void> {
+        private final Long bookingId;
+        private final String newStatus;
+        private final boolean confirm;
+        private Booking booking;
+        private String oldStatus;
+
+        StatusCommand(Long bookingId, String newStatus, boolean confirm) {
+            this.bookingId = bookingId;
+            this.newStatus = newStatus;
+            this.confirm = confirm;
+        }
+
+        @Override
+        void apply(Shard shard, Map<Long, int[]> deltas) {
+            booking = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
+            if (confirm) {
+                bookingService.checkConfirmable(booking);
+            }
+            oldStatus = booking.getStatus();
+
+            if (booking.getTrip() != null) {
+                Long tripId = booking.getTrip().getTripId();
+                int[] d = TripInventoryService.seatDeltas(oldStatus, newStatus, booking.getPassengers());
+                if (d[0] + d[1] > 0) {
+                    // Reinstating seats - make sure the trip still has room
+                    TripSeats tripSeats = shard.seatsFor(tripId, deltas, true);
+                    if (tripSeats.free() < d[0] + d[1]) {
+                        throw new IllegalStateException("Not enough seats available to reinstate booking " + bookingId);
+                    }
+                }
+                TripSeats tripSeats = shard.seatsFor(tripId, deltas, false);
+                tripSeats.held += d[0];
+                tripSeats.confirmed += d[1];
+                addDelta(deltas, tripId, d[0], d[1]);
+            }
+
+            booking.setStatus(newStatus);
+            bookingRepository.save(booking);
+        }
+
+        @Override
+        void afterCommit() {
+            holdExpiryReaper.track(booking);
+        }
+
+        @Override
+        void notifyObservers(BookingService bookingService) {
+            bookingService.notifyBookingStatusChanged(booking, oldStatus, newStatus);
+        }
+    }
+}
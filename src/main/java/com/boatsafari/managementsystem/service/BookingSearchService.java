@@ -0,0 +1,170 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.dto.BookingDetailDTO;
+import com.boatsafari.managementsystem.dto.BookingDetailPageDTO;
+import com.boatsafari.managementsystem.dto.BookingSearchFilter;
+import com.boatsafari.managementsystem.model.Boat;
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.SafariGuide;
+import com.boatsafari.managementsystem.model.SupportTicket;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.BookingSpecifications;
+import com.boatsafari.managementsystem.repository.SupportTicketRepository;
+import com.boatsafari.managementsystem.repository.SupportTicketSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.boatsafari.managementsystem.repository.SearchPredicates.leftJoin;
+
+/**
+ * Booking and support ticket searches for the support screens.
+ * Filters and sort run in the database (see BookingSpecifications / SupportTicketSpecifications);
+ * the booking detail list is read as a flat projection in a single query, newest booking first,
+ * and can be paged with a keyset cursor (the last booking id seen).
+ */
+@Service
+@Transactional(readOnly = true)
+public class BookingSearchService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SupportTicketRepository supportTicketRepository;
+
+    @Value("${app.search.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * One page of booking details, newest first
+     * @throws IllegalArgumentException when the cursor is not one returned by an earlier page
+     */
+    public BookingDetailPageDTO findBookingDetailsPage(BookingSearchFilter filter, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        // One extra row tells whether there is a next page
+        List<BookingDetailDTO> rows = queryDetails(filter, afterId, size + 1);
+        if (rows.size() <= size) {
+            return new BookingDetailPageDTO(rows, null);
+        }
+        List<BookingDetailDTO> page = List.copyOf(rows.subList(0, size));
+        return new BookingDetailPageDTO(page, String.valueOf(page.get(size - 1).getBookingId()));
+    }
+
+    /**
+     * All booking details matching the filter, newest first
+     */
+    public List<BookingDetailDTO> findBookingDetails(BookingSearchFilter filter) {
+        return queryDetails(filter, null, 0);
+    }
+
+    /**
+     * Booking entities matching the filter, newest first, with customer, trip and payment loaded in the same query
+     */
+    public List<Booking> findBookings(BookingSearchFilter filter) {
+        return bookingRepository.findAll(
+                Specification.where(BookingSpecifications.fetchDetails()).and(BookingSpecifications.matching(filter)),
+                Sort.by(Sort.Direction.DESC, "bookingId"));
+    }
+
+    /**
+     * Support tickets matching the filters, newest first
+     */
+    public List<SupportTicket> findTickets(String status, String priority, String category, String assignedTo) {
+        return supportTicketRepository.findAll(
+                SupportTicketSpecifications.matching(status, priority, category, assignedTo),
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "ticketId")));
+    }
+
+    private List<BookingDetailDTO> queryDetails(BookingSearchFilter filter, Long afterId, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, User> customer = leftJoin(booking, "customer");
+        Join<Booking, Trip> trip = leftJoin(booking, "trip");
+        Join<Trip, Boat> boat = leftJoin(trip, "boat");
+        Join<Trip, SafariGuide> guide = leftJoin(trip, "guide");
+
+        query.multiselect(
+                booking.get("bookingId"), booking.get("status"), booking.get("passengers"),
+                customer.get("userId"), customer.get("firstName"), customer.get("secondName"),
+                customer.get("email"), customer.get("contactNo"),
+                trip.get("tripId"), trip.get("name"), trip.get("date"), trip.get("location"), trip.get("price"),
+                boat.get("boatName"), boat.get("capacity"),
+                guide.get("userId"), guide.get("firstName"), guide.get("secondName"));
+        Specification<Booking> spec = Specification.where(BookingSpecifications.matching(filter))
+                .and(BookingSpecifications.idBefore(afterId));
+        query.where(spec.toPredicate(booking, query, cb));
+        query.orderBy(cb.desc(booking.get("bookingId")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (maxResults > 0) {
+            typed.setMaxResults(maxResults);
+        }
+        List<Tuple> tuples = typed.getResultList();
+        List<BookingDetailDTO> result = new ArrayList<>(tuples.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Tuple row : tuples) {
+            result.add(toDetail(row, now));
+        }
+        return result;
+    }
+
+    // Same shape the IT support screen always got from the entity graph
+    private static BookingDetailDTO toDetail(Tuple row, LocalDateTime now) {
+        BookingDetailDTO dto = new BookingDetailDTO();
+        dto.setBookingId(row.get(0, Long.class));
+        dto.setStatus(row.get(1, String.class));
+        dto.setNumberOfPassengers(row.get(2, Integer.class));
+        dto.setBookingDate(now); // Booking date not stored in model, using current time
+
+        if (row.get(3) != null) {
+            dto.setCustomerId(row.get(3, Long.class));
+            dto.setCustomerName(row.get(4, String.class) + " " + row.get(5, String.class));
+            dto.setCustomerEmail(row.get(6, String.class));
+            dto.setCustomerPhone(row.get(7, String.class));
+        }
+        if (row.get(8) != null) {
+            dto.setTripId(row.get(8, Long.class));
+            dto.setTripName(row.get(9, String.class));
+            dto.setTripDate(row.get(10, LocalDate.class));
+            dto.setTripLocation(row.get(11, String.class));
+            dto.setTripPrice(row.get(12, Double.class));
+            dto.setBoatName(row.get(13, String.class));
+            dto.setBoatCapacity(row.get(14, Integer.class));
+            if (row.get(15) != null) {
+                dto.setGuideName(row.get(16, String.class) + " " + row.get(17, String.class));
+            }
+        }
+        return dto;
+    }
+}
@@ -7,7 +7,9 @@ import com.boatsafari.managementsystem.model.User;
 import com.boatsafari.managementsystem.repository.BookingRepository;
 import com.boatsafari.managementsystem.repository.TripRepository;
 import com.boatsafari.managementsystem.util.CurrentUserUtil;
+import com.boatsafari.managementsystem.observer.BookingEventPublisher;
 import com.boatsafari.managementsystem.observer.BookingObserver;
+import com.boatsafari.managementsystem.schedule.HoldExpiryReaper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,8 +18,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.ArrayList;
 import java.util.regex.Pattern;
 
 @Service
@@ -34,8 +34,14 @@ public class BookingService {
     @Autowired
     private CurrentUserUtil currentUserUtil;
 
-    // Observer Pattern Implementation
-    private final List<BookingObserver> observers = new ArrayList<>();
+    @Autowired
+    private TripInventoryService tripInventoryService;
+
+    @Autowired
+    private HoldExpiryReaper holdExpiryReaper;
+
+    // Observer Pattern Implementation (subject lives in BookingEventPublisher)
+    private final BookingEventPublisher eventPublisher;
 
     /**
      * Constructor injection for observers - demonstrates Observer pattern with Spring DI
@@ -44,15 +50,15 @@ public class BookingService {
     public BookingService(BookingRepository bookingRepository, 
                          TripRepository tripRepository,
                          CurrentUserUtil currentUserUtil,
-                         List<BookingObserver> observers) {
+                         TripInventoryService tripInventoryService,
+                         HoldExpiryReaper holdExpiryReaper,
+                         BookingEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
         this.tripRepository = tripRepository;
         this.currentUserUtil = currentUserUtil;
-        this.observers.addAll(observers);
-        
-        log.info("BookingService initialized with {} observers: {}", 
-                observers.size(), 
-                observers.stream().map(BookingObserver::getObserverName).toList());
+        this.tripInventoryService = tripInventoryService;
+        this.holdExpiryReaper = holdExpiryReaper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -62,46 +68,19 @@ public class BookingService {
         log.info("Create booking: userId={}, tripId={}, name={}, email={}, contact={}, pax={}",
                 user.getUserId(), tripId, name, email, contact, passengers);
 
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalArgumentException("Name is required");
-        }
-        if (contact == null || contact.trim().isEmpty()) {
-            throw new IllegalArgumentException("Contact number is required");
-        }
-        if (email == null || !Pattern.matches("^[A-Za-z0-9+_.-]+@(.+)$", email)) {
-            throw new IllegalArgumentException("Valid email is required");
-        }
-        if (passengers <= 0) {
-            throw new IllegalArgumentException("Number of passengers must be at least 1");
-        }
+        validateBookingRequest(name, contact, email, passengers);
 
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new IllegalArgumentException("Trip not found"));
 
-        int bookedSeats = bookingRepository.findByTrip_TripId(tripId).stream()
-                .mapToInt(Booking::getPassengers).sum();
+        // Atomic conditional UPDATE on the trip's seat counters - no per-booking scan, no oversell race
+        tripInventoryService.holdSeats(trip, passengers);
 
-        if (bookedSeats + passengers > trip.getCapacity()) {
-            int available = Math.max(0, trip.getCapacity() - bookedSeats);
-            throw new IllegalArgumentException("Not enough seats available. Available: " + available);
-        }
-
-        BigDecimal totalCost = BigDecimal.valueOf(trip.getPrice())
-                .multiply(BigDecimal.valueOf(passengers));
-
-        Booking booking = new Booking();
-        booking.setName(name);
-        booking.setContact(contact);
-        booking.setEmail(email);
-        booking.setPassengers(passengers);
-        booking.setStatus("PROVISIONAL");
-        booking.setHoldTimer(LocalDateTime.now().plusMinutes(15));
-        booking.setTotalCost(totalCost.doubleValue());
-        booking.setCustomer(user);
-        booking.setTrip(trip);
+        Booking booking = newProvisionalBooking(user, trip, name, contact, email, passengers);
 
         Booking saved = bookingRepository.save(booking);
         log.info("Booking saved: id={}, status={}", saved.getBookingId(), saved.getStatus());
+        holdExpiryReaper.track(saved);
         
         // Observer Pattern: Notify all observers about new booking creation
         notifyBookingCreated(saved);
@@ -114,16 +93,12 @@ public class BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
 
-        if (booking.getHoldTimer() != null && booking.getHoldTimer().isBefore(LocalDateTime.now())) {
-            throw new IllegalStateException("Booking has expired");
-        }
-        if (!"PROVISIONAL".equalsIgnoreCase(booking.getStatus())) {
-            throw new IllegalStateException("Booking is not in PROVISIONAL state");
-        }
+        checkConfirmable(booking);
 
         String oldStatus = booking.getStatus();
         booking.setStatus("CONFIRMED");
         bookingRepository.save(booking);
+        tripInventoryService.applyStatusChange(booking, oldStatus, "CONFIRMED");
         log.info("Booking confirmed: id={}", bookingId);
         
         // Observer Pattern: Notify all observers about status change
@@ -142,6 +117,8 @@ public class BookingService {
         String oldStatus = booking.getStatus();
         booking.setStatus(newStatus);
         bookingRepository.save(booking);
+        tripInventoryService.applyStatusChange(booking, oldStatus, newStatus);
+        holdExpiryReaper.track(booking);
         
         log.info("Booking status updated: id={}, {} -> {}", bookingId, oldStatus, newStatus);
         
@@ -149,55 +126,83 @@ public class BookingService {
         notifyBookingStatusChanged(booking, oldStatus, newStatus);
     }
 
+    /**
+     * Validate the customer-supplied booking fields
+     */
+    public void validateBookingRequest(String name, String contact, String email, int passengers) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name is required");
+        }
+        if (contact == null || contact.trim().isEmpty()) {
+            throw new IllegalArgumentException("Contact number is required");
+        }
+        if (email == null || !Pattern.matches("^[A-Za-z0-9+_.-]+@(.+)$", email)) {
+            throw new IllegalArgumentException("Valid email is required");
+        }
+        if (passengers <= 0) {
+            throw new IllegalArgumentException("Number of passengers must be at least 1");
+        }
+    }
+
+    /**
+     * Build (but do not save) a PROVISIONAL booking with a 15 minute hold
+     */
+    public Booking newProvisionalBooking(User user, Trip trip, String name, String contact, String email, int passengers) {
+        BigDecimal totalCost = BigDecimal.valueOf(trip.getPrice())
+                .multiply(BigDecimal.valueOf(passengers));
+
+        Booking booking = new Booking();
+        booking.setName(name);
+        booking.setContact(contact);
+        booking.setEmail(email);
+        booking.setPassengers(passengers);
+        booking.setStatus("PROVISIONAL");
+        booking.setHoldTimer(LocalDateTime.now().plusMinutes(15));
+        booking.setTotalCost(totalCost.doubleValue());
+        booking.setCustomer(user);
+        booking.setTrip(trip);
+        return booking;
+    }
+
+    /**
+     * A booking can only be confirmed while it is PROVISIONAL and its hold has not expired
+     */
+    public void checkConfirmable(Booking booking) {
+        if (booking.getHoldTimer() != null && booking.getHoldTimer().isBefore(LocalDateTime.now())) {
+            throw new IllegalStateException("Booking has expired");
+        }
+        if (!"PROVISIONAL".equalsIgnoreCase(booking.getStatus())) {
+            throw new IllegalStateException("Booking is not in PROVISIONAL state");
+        }
+    }
+
     // Observer Pattern Methods
     
     /**
      * Notify all observers when a new booking is created
      */
-    private void notifyBookingCreated(Booking booking) {
-        log.info("Notifying {} observers about booking creation: {}", observers.size(), booking.getBookingId());
-        
-        observers.forEach(observer -> {
-            try {
-                observer.onBookingCreated(booking);
-            } catch (Exception e) {
-                log.error("Error notifying observer {}: {}", observer.getObserverName(), e.getMessage());
-            }
-        });
+    public void notifyBookingCreated(Booking booking) {
+        eventPublisher.bookingCreated(booking);
     }
     
     /**
      * Notify all observers when booking status changes
      */
-    private void notifyBookingStatusChanged(Booking booking, String oldStatus, String newStatus) {
-        log.info("Notifying {} observers about status change: {} -> {}", 
-                observers.size(), oldStatus, newStatus);
-        
-        observers.forEach(observer -> {
-            try {
-                observer.onBookingStatusChanged(booking, oldStatus, newStatus);
-            } catch (Exception e) {
-                log.error("Error notifying observer {}: {}", observer.getObserverName(), e.getMessage());
-            }
-        });
+    public void notifyBookingStatusChanged(Booking booking, String oldStatus, String newStatus) {
+        eventPublisher.bookingStatusChanged(booking, oldStatus, newStatus);
     }
     
     /**
      * Add observer at runtime (useful for dynamic observer registration)
      */
     public void addObserver(BookingObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
-            log.info("Added observer: {}", observer.getObserverName());
-        }
+        eventPublisher.addObserver(observer);
     }
     
     /**
      * Remove observer (useful for dynamic observer management)
      */
     public void removeObserver(BookingObserver observer) {
-        if (observers.remove(observer)) {
-            log.info("Removed observer: {}", observer.getObserverName());
-        }
+        eventPublisher.removeObserver(observer);
     }
 }
\ No newline at end of file
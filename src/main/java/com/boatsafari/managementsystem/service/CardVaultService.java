@@ -0,0 +1,280 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.CardVaultEntry;
+import com.boatsafari.managementsystem.repository.CardVaultRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Card data vault. Card number, expiry and holder name are encrypted (AES-256-GCM, key from a local
+ * key file) into the card_vault table, and the payment keeps only an opaque token and the last four
+ * digits. The CVV is never stored.
+ *
+ * Reading card details back is rare (admin lookups), so decrypted entries are kept in a small
+ * in-memory cache for a few minutes. On startup, card data still stored inline in Payments by
+ * earlier versions is moved into the vault.
+ */
+@Service
+public class CardVaultService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardVaultService.class);
+
+    private static final String TOKEN_PREFIX = "tok_";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int MIGRATION_CHUNK = 500;
+
+    @Autowired
+    private CardVaultRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.card-vault.key-file:card-vault.key}")
+    private String keyFile;
+
+    @Value("${app.card-vault.cache-max-size:1000}")
+    private int cacheMaxSize;
+
+    @Value("${app.card-vault.cache-ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    private final SecureRandom random = new SecureRandom();
+    private SecretKeySpec key;
+    private String keyId;
+    private Map<String, Cached> cache;
+
+    /**
+     * Decrypted card details. number and expiry are null for entries that only hold a name.
+     */
+    public record CardDetails(String holderName, String number, String expiry) {
+    }
+
+    private record Cached(CardDetails details, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        byte[] raw = loadOrCreateKey(Path.of(keyFile));
+        key = new SecretKeySpec(raw, "AES");
+        try {
+            keyId = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw)).substring(0, 16);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > cacheMaxSize;
+            }
+        };
+    }
+
+    /**
+     * Encrypt card details into the vault (in the caller's transaction) and return their token
+     */
+    public String tokenize(String number, String expiry, String holderName) {
+        String token = TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes(18));
+        CardVaultEntry entry = new CardVaultEntry();
+        entry.setToken(token);
+        entry.setKeyId(keyId);
+        entry.setCiphertext(encrypt(token, new CardDetails(holderName, normalize(number), expiry)));
+        entry.setCreatedAt(LocalDateTime.now());
+        repository.save(entry);
+        return token;
+    }
+
+    /**
+     * Card details behind a token; empty when the token is unknown
+     */
+    public Optional<CardDetails> reveal(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            Cached cached = cache.get(token);
+            if (cached != null && cached.expiresAtMillis() > now) {
+                return Optional.of(cached.details());
+            }
+        }
+        Optional<CardDetails> details = repository.findById(token).map(this::decrypt);
+        details.ifPresent(d -> {
+            synchronized (cache) {
+                cache.put(token, new Cached(d, now + cacheTtlMs));
+            }
+        });
+        return details;
+    }
+
+    public static String last4(String number) {
+        String digits = normalize(number);
+        return digits != null && digits.length() >= 4 ? digits.substring(digits.length() - 4) : null;
+    }
+
+    public static String mask(String last4) {
+        return last4 != null ? "**** **** **** " + last4 : null;
+    }
+
+    /**
+     * Move card data that older versions stored inline in Payments into the vault and blank the columns
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInlineCardData() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Number legacyColumns = tx.execute(status -> (Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM sys.columns WHERE object_id = OBJECT_ID('Payments') AND name = 'card_number'")
+                .getSingleResult());
+        if (legacyColumns == null || legacyColumns.intValue() == 0) {
+            return;
+        }
+        int migrated = 0;
+        int chunk;
+        do {
+            Integer done = tx.execute(status -> migrateChunk());
+            chunk = done != null ? done : 0;
+            migrated += chunk;
+        } while (chunk == MIGRATION_CHUNK);
+        if (migrated > 0) {
+            log.info("CardVaultService: moved inline card data of {} payments into the vault", migrated);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int migrateChunk() {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT TOP (" + MIGRATION_CHUNK + ") payment_id, card_number, card_expiry, card_holder_name FROM Payments " +
+                "WHERE card_token IS NULL AND (card_number IS NOT NULL OR card_holder_name IS NOT NULL) " +
+                "ORDER BY payment_id").getResultList();
+        for (Object[] row : rows) {
+            String number = (String) row[1];
+            String token = tokenize(number, (String) row[2], (String) row[3]);
+            entityManager.createNativeQuery(
+                    "UPDATE Payments SET card_token = ?1, card_last4 = ?2, card_number = NULL, card_expiry = NULL, " +
+                    "card_cvv = NULL, card_holder_name = NULL WHERE payment_id = ?3")
+                    .setParameter(1, token)
+                    .setParameter(2, last4(number))
+                    .setParameter(3, ((Number) row[0]).longValue())
+                    .executeUpdate();
+        }
+        return rows.size();
+    }
+
+    private byte[] encrypt(String token, CardDetails details) {
+        try {
+            byte[] iv = randomBytes(IV_BYTES);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            // The token is authenticated with the data, so ciphertexts cannot be swapped between rows
+            cipher.updateAAD(token.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(objectMapper.writeValueAsBytes(details));
+            return ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Could not encrypt card details", e);
+        }
+    }
+
+    private CardDetails decrypt(CardVaultEntry entry) {
+        if (!keyId.equals(entry.getKeyId())) {
+            throw new IllegalStateException("Card vault entry " + entry.getToken() + " was encrypted with another key (" + entry.getKeyId() + ")");
+        }
+        try {
+            byte[] data = entry.getCiphertext();
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+            cipher.updateAAD(entry.getToken().getBytes(StandardCharsets.UTF_8));
+            byte[] plain = cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES);
+            return objectMapper.readValue(plain, CardDetails.class);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Could not decrypt card vault entry " + entry.getToken(), e);
+        }
+    }
+
+    private byte[] loadOrCreateKey(Path path) throws IOException {
+        if (Files.exists(path)) {
+            byte[] raw = Base64.getDecoder().decode(Files.readString(path).trim());
+            if (raw.length != 32) {
+                throw new IllegalStateException("Card vault key file " + path + " must hold a base64 encoded 256-bit key");
+            }
+            return raw;
+        }
+        long entries = repository.count();
+        if (entries > 0) {
+            // A new key would make every stored card unreadable; the old key file has to be restored
+            throw new IllegalStateException("Card vault key file " + path.toAbsolutePath() + " is missing but the vault holds "
+                    + entries + " entries - restore the key file instead of starting with a new key");
+        }
+        byte[] raw = randomBytes(32);
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // Written to a file only the owner can read and renamed into place, so the key is never
+        // visible to others or half-written, not even for a moment
+        Path tmp = createPrivateFile(dir, path.getFileName() + ".");
+        try {
+            Files.writeString(tmp, Base64.getEncoder().encodeToString(raw) + System.lineSeparator());
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        log.warn("CardVaultService: created a new key file at {} - back it up, vault entries cannot be read without it",
+                path.toAbsolutePath());
+        return raw;
+    }
+
+    private static Path createPrivateFile(Path dir, String prefix) throws IOException {
+        if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return Files.createTempFile(dir, prefix, ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        // Not a POSIX file system (Windows) - rely on the directory's ACLs
+        return Files.createTempFile(dir, prefix, ".tmp");
+    }
+
+    private byte[] randomBytes(int n) {
+        byte[] bytes = new byte[n];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String normalize(String number) {
+        return number != null ? number.replaceAll("\\s", "") : null;
+    }
+}
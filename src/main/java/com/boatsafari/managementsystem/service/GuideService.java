@@ -14,10 +14,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class GuideService {
@@ -61,70 +61,48 @@ public class GuideService {
     }
 
     public List<GuideAssignedTripDTO> getUpcomingTripsForGuide(Long guideId) {
-        List<Trip> upcomingTrips = tripRepository.findByGuide_UserIdAndDateGreaterThanEqual(
-                guideId, LocalDate.now());
-        return convertToGuideAssignedTripDTOs(upcomingTrips);
+        return toGuideAssignedTripDTOs(tripRepository.findGuideTripSummaries(guideId, LocalDate.now(), null));
     }
 
     public List<GuideAssignedTripDTO> getPastTripsForGuide(Long guideId) {
-        List<Trip> pastTrips = tripRepository.findByGuide_UserIdAndDateLessThan(
-                guideId, LocalDate.now());
-        return convertToGuideAssignedTripDTOs(pastTrips);
+        return toGuideAssignedTripDTOs(tripRepository.findGuideTripSummaries(guideId, null, LocalDate.now()));
     }
 
-    private List<GuideAssignedTripDTO> convertToGuideAssignedTripDTOs(List<Trip> trips) {
-        return trips.stream().map(trip -> {
+    // Rows of TripRepository.findGuideTripSummaries; the passenger counts come from the same statement
+    private List<GuideAssignedTripDTO> toGuideAssignedTripDTOs(List<Object[]> rows) {
+        List<GuideAssignedTripDTO> trips = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
             GuideAssignedTripDTO dto = new GuideAssignedTripDTO();
-            dto.setTripId(trip.getTripId());
-            dto.setName(trip.getName());
-            dto.setDescription(trip.getDescription());
-            dto.setDate(trip.getDate());
-            dto.setStartTime(trip.getStartTime());
-            dto.setEndTime(trip.getEndTime());
-            dto.setLocation(trip.getLocation());
-            dto.setRoute(trip.getRoute());
-            dto.setBoatName(trip.getBoat() != null ? trip.getBoat().getBoatName() : "Not assigned");
-            dto.setCapacity(trip.getCapacity());
-
-            // Count booked passengers
-            List<Booking> bookings = bookingRepository.findByTrip_TripId(trip.getTripId());
-            int bookedPassengers = bookings.stream()
-                    .filter(b -> "CONFIRMED".equals(b.getStatus()))
-                    .mapToInt(Booking::getPassengers)
-                    .sum();
-            dto.setBookedPassengers(bookedPassengers);
-
-            // Count checked-in passengers
-            long checkedInCount = passengerCheckInRepository.countCheckedInPassengersByTripId(trip.getTripId());
-            dto.setCheckedInPassengers((int) checkedInCount);
-
-            return dto;
-        }).collect(Collectors.toList());
+            dto.setTripId((Long) row[0]);
+            dto.setName((String) row[1]);
+            dto.setDescription((String) row[2]);
+            dto.setDate((LocalDate) row[3]);
+            dto.setStartTime((LocalTime) row[4]);
+            dto.setEndTime((LocalTime) row[5]);
+            dto.setLocation((String) row[6]);
+            dto.setRoute((String) row[7]);
+            dto.setBoatName(row[8] != null ? (String) row[8] : "Not assigned");
+            dto.setCapacity(((Number) row[9]).intValue());
+            dto.setBookedPassengers(((Number) row[10]).intValue());
+            dto.setCheckedInPassengers(((Number) row[11]).intValue());
+            trips.add(dto);
+        }
+        return trips;
     }
 
     public List<PassengerDTO> getPassengersForTrip(Long tripId) {
-        List<Booking> bookings = bookingRepository.findByTrip_TripId(tripId);
-        List<PassengerDTO> passengers = new ArrayList<>();
-
-        for (Booking booking : bookings) {
-            if (!"CONFIRMED".equals(booking.getStatus())) {
-                continue;
-            }
-
+        List<Object[]> rows = bookingRepository.findConfirmedPassengersByTrip(tripId);
+        List<PassengerDTO> passengers = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
             PassengerDTO passenger = new PassengerDTO();
-            passenger.setBookingId(booking.getBookingId());
-            passenger.setPassengerName(booking.getName());
-            passenger.setContact(booking.getContact());
-            passenger.setEmail(booking.getEmail());
-            passenger.setPassengerCount(booking.getPassengers());
-
-            // Check if this booking has been checked in
-            Optional<PassengerCheckIn> checkIn = passengerCheckInRepository.findByBookingBookingId(booking.getBookingId());
-            passenger.setCheckedIn(checkIn.isPresent() && checkIn.get().getCheckedIn());
-
+            passenger.setBookingId((Long) row[0]);
+            passenger.setPassengerName((String) row[1]);
+            passenger.setContact((String) row[2]);
+            passenger.setEmail((String) row[3]);
+            passenger.setPassengerCount(((Number) row[4]).intValue());
+            passenger.setCheckedIn(Boolean.TRUE.equals(row[5]));
             passengers.add(passenger);
         }
-
         return passengers;
     }
 
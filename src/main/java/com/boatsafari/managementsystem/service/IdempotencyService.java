@@ -0,0 +1,378 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.IdempotencyRecord;
+import com.boatsafari.managementsystem.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for POSTs that create bookings and payments.
+ *
+ * The first request with a key inserts an IN_PROGRESS row (unique per scope/owner/key), runs, and
+ * stores its response; retries with the same key get that response replayed. Duplicates arriving
+ * while the first one is still running on this node wait for its result through a bounded in-memory
+ * front cache, which also serves recent replays without a database round trip. A duplicate running
+ * on another node gets 409 and can retry. Successful (2xx) responses are kept. A failure releases the
+ * key so the request can be retried with it - unless the action had already reported (Attempt) that its
+ * side effect may have happened, e.g. the card was sent to the gateway: then the failure is stored too
+ * (FAILED) and replayed, because running the request again could charge the card twice.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.in-progress-timeout-ms:60000}")
+    private long inProgressTimeoutMs;
+
+    @Value("${app.idempotency.cache-max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${app.idempotency.cache-ttl-ms:600000}")
+    private long cacheTtlMs;
+
+    private TransactionTemplate requiresNew;
+    private Map<String, Entry> front;
+
+    private record Stored(int status, String body, String location, boolean kept) {
+        Stored(int status, String body, String location) {
+            this(status, body, location, false);
+        }
+
+        boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    /**
+     * Handed to the action so it can say when it passes the point of no return
+     */
+    public static final class Attempt {
+        private volatile boolean sideEffects;
+
+        /**
+         * From here on a failure may have left something behind (e.g. a card charge): keep the key
+         */
+        public void sideEffectsStarted() {
+            sideEffects = true;
+        }
+
+        /**
+         * The side effect provably did not happen after all (e.g. the gateway refused before charging)
+         */
+        public void sideEffectsAvoided() {
+            sideEffects = false;
+        }
+    }
+
+    private static final class Entry {
+        final String requestHash;
+        final CompletableFuture<Stored> result = new CompletableFuture<>();
+        volatile long expiresAtMillis = Long.MAX_VALUE; // set once the result is known
+
+        Entry(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        front = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheMaxSize;
+            }
+        };
+    }
+
+    /**
+     * Run action at most once per (scope, owner, key). Without a key the action simply runs.
+     */
+    public ResponseEntity<?> execute(String scope, String key, String owner, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        try {
+            return executeAsync(scope, key, owner, request, attempt -> CompletableFuture.completedFuture(action.get()))
+                    .get(inProgressTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return conflict();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Non-blocking variant for endpoints that answer with a CompletableFuture
+     */
+    public CompletableFuture<ResponseEntity<?>> executeAsync(String scope, String key, String owner, Object request,
+                                                             Function<Attempt, CompletableFuture<ResponseEntity<?>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.apply(new Attempt());
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("message", HEADER + " must be at most " + MAX_KEY_LENGTH + " characters")));
+        }
+        String who = owner != null ? owner.toLowerCase() : "anonymous";
+        String hash = hash(request);
+        String cacheKey = scope + "|" + who + "|" + key;
+
+        Entry mine = new Entry(hash);
+        Entry existing;
+        synchronized (front) {
+            existing = front.get(cacheKey);
+            if (existing == null || existing.expiresAtMillis < System.currentTimeMillis()) {
+                existing = null;
+                front.put(cacheKey, mine);
+            }
+        }
+        if (existing != null) {
+            if (!existing.requestHash.equals(hash)) {
+                return CompletableFuture.completedFuture(mismatch());
+            }
+            // Same request still running (or just finished) here: share its outcome
+            return existing.result.thenApply(this::replay);
+        }
+
+        Stored previous;
+        try {
+            previous = claim(scope, who, key, hash);
+        } catch (RuntimeException e) {
+            forget(cacheKey, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+        if (previous != null) {
+            if (previous.kept()) {
+                remember(mine);
+            } else {
+                forget(cacheKey, mine);
+            }
+            mine.result.complete(previous);
+            return CompletableFuture.completedFuture(replay(previous));
+        }
+
+        Attempt attempt = new Attempt();
+        CompletableFuture<ResponseEntity<?>> running;
+        try {
+            running = action.apply(attempt);
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        return running.handle((response, error) -> {
+            if (error != null) {
+                if (attempt.sideEffects) {
+                    Stored unknown = new Stored(HttpStatus.INTERNAL_SERVER_ERROR.value(), outcomeUnknownBody(), null);
+                    complete(scope, who, key, unknown, IdempotencyRecord.FAILED);
+                    remember(mine);
+                    mine.result.complete(unknown);
+                } else {
+                    release(scope, who, key);
+                    forget(cacheKey, mine);
+                    mine.result.completeExceptionally(error);
+                }
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            Stored stored = toStored(response);
+            if (stored.isSuccess() || attempt.sideEffects) {
+                complete(scope, who, key, stored, stored.isSuccess() ? IdempotencyRecord.COMPLETED : IdempotencyRecord.FAILED);
+                remember(mine);
+            } else {
+                release(scope, who, key);
+                forget(cacheKey, mine);
+            }
+            mine.result.complete(stored);
+            return response;
+        });
+    }
+
+    // Nightly clean-up of expired keys
+    @Scheduled(cron = "0 45 0 * * *")
+    public void purgeExpired() {
+        Integer deleted = requiresNew.execute(tx -> repository.deleteExpired(LocalDateTime.now()));
+        log.info("IdempotencyService: purged {} expired keys", deleted);
+    }
+
+    /**
+     * Insert the IN_PROGRESS row.
+     * @return null when this request owns the key, otherwise the response to send back
+     */
+    private Stored claim(String scope, String owner, String key, String hash) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setScope(scope);
+            record.setOwner(owner);
+            record.setIdemKey(key);
+            record.setRequestHash(hash);
+            record.setCreatedAt(now);
+            record.setExpiresAt(now.plusHours(ttlHours));
+            try {
+                requiresNew.executeWithoutResult(tx -> repository.saveAndFlush(record));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                IdempotencyRecord existing = repository.findByScopeAndOwnerAndIdemKey(scope, owner, key).orElse(null);
+                if (existing == null) {
+                    continue; // released in the meantime
+                }
+                boolean expired = existing.getExpiresAt().isBefore(now);
+                boolean abandoned = IdempotencyRecord.IN_PROGRESS.equals(existing.getStatus())
+                        && existing.getCreatedAt().isBefore(now.minusNanos(inProgressTimeoutMs * 1_000_000));
+                if (expired || abandoned) {
+                    requiresNew.executeWithoutResult(tx -> repository.deleteById(existing.getId()));
+                    continue;
+                }
+                if (!existing.getRequestHash().equals(hash)) {
+                    return toStored(mismatch());
+                }
+                if (!IdempotencyRecord.IN_PROGRESS.equals(existing.getStatus())) {
+                    return new Stored(existing.getResponseStatus(), existing.getResponseBody(),
+                            existing.getResponseLocation(), true);
+                }
+                return toStored(conflict());
+            }
+        }
+        return toStored(conflict());
+    }
+
+    private void complete(String scope, String owner, String key, Stored stored, String status) {
+        try {
+            requiresNew.executeWithoutResult(tx -> repository.findByScopeAndOwnerAndIdemKey(scope, owner, key)
+                    .ifPresent(record -> {
+                        record.setStatus(status);
+                        record.setResponseStatus(stored.status());
+                        record.setResponseBody(stored.body());
+                        record.setResponseLocation(stored.location());
+                        record.setCompletedAt(LocalDateTime.now());
+                        repository.save(record);
+                    }));
+        } catch (RuntimeException e) {
+            // The row stays IN_PROGRESS; a retry will get 409 until it times out
+            log.error("IdempotencyService: could not store response for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void release(String scope, String owner, String key) {
+        try {
+            requiresNew.executeWithoutResult(tx -> repository.findByScopeAndOwnerAndIdemKey(scope, owner, key)
+                    .ifPresent(repository::delete));
+        } catch (RuntimeException e) {
+            log.error("IdempotencyService: could not release key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void remember(Entry entry) {
+        entry.expiresAtMillis = System.currentTimeMillis() + cacheTtlMs;
+    }
+
+    private void forget(String cacheKey, Entry entry) {
+        synchronized (front) {
+            front.remove(cacheKey, entry);
+        }
+    }
+
+    private Stored toStored(ResponseEntity<?> response) {
+        String body = null;
+        if (response.getBody() != null) {
+            try {
+                body = objectMapper.writeValueAsString(response.getBody());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize response for idempotent replay", e);
+            }
+        }
+        URI location = response.getHeaders().getLocation();
+        return new Stored(response.getStatusCode().value(), body, location != null ? location.toString() : null);
+    }
+
+    private ResponseEntity<?> replay(Stored stored) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status());
+        if (stored.isSuccess()) {
+            builder.header("Idempotent-Replayed", "true");
+        }
+        if (stored.location() != null) {
+            builder.location(URI.create(stored.location()));
+        }
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private static ResponseEntity<?> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Retry-After", "1")
+                .body(Map.of("message", "A request with this " + HEADER + " is still being processed"));
+    }
+
+    private String outcomeUnknownBody() {
+        try {
+            return objectMapper.writeValueAsString(Map.of("message",
+                    "The original request failed after it was handed on, its outcome is unknown. "
+                            + "Check the booking before trying again with a new " + HEADER));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(Map.of("message", HEADER + " was already used for a different request"));
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+}
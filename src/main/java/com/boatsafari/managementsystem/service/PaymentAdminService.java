@@ -1,64 +1,214 @@
 package com.boatsafari.managementsystem.service;
 
 import com.boatsafari.managementsystem.dto.PaymentHistoryDTO;
+import com.boatsafari.managementsystem.dto.PaymentHistoryPageDTO;
 import com.boatsafari.managementsystem.dto.PaymentStatsDTO;
 import com.boatsafari.managementsystem.repository.BookingRepository;
-import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class PaymentAdminService {
 
+    private static final int EXPORT_FLUSH_EVERY = 500;
+    // SQL Server allows ~2100 parameters per statement
+    private static final int SEARCH_CHUNK = 1000;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
-    private PaymentRepository paymentRepository;
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentSearchIndex paymentSearchIndex;
+
+    @Value("${app.payments.history.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.payments.search.max-results:1000}")
+    private int maxSearchResults;
 
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
     public List<PaymentHistoryDTO> getPaymentHistory() {
         return bookingRepository.findPaymentHistoryWithDetails();
     }
 
+    // Served from in-memory counters (one GROUP BY to seed them), not nine aggregates per refresh
     public PaymentStatsDTO getPaymentStats() {
-        PaymentStatsDTO stats = new PaymentStatsDTO();
-        
-        // Get total revenue and payment count
-        Double totalRevenue = paymentRepository.getTotalRevenue();
-        stats.setTotalRevenue(totalRevenue != null ? totalRevenue : 0.0);
-        
-        Long totalPayments = paymentRepository.getTotalPaymentCount();
-        stats.setTotalPayments(totalPayments != null ? totalPayments : 0);
-        
-        // Get payment method statistics
-        Long cardPayments = paymentRepository.getPaymentCountByMethod("Card");
-        stats.setCardPayments(cardPayments != null ? cardPayments : 0);
-        
-        Double cardAmount = paymentRepository.getRevenueByMethod("Card");
-        stats.setCardPaymentAmount(cardAmount != null ? cardAmount : 0.0);
-        
-        Long onArrivalPayments = paymentRepository.getPaymentCountByMethod("On Arrival");
-        stats.setOnArrivalPayments(onArrivalPayments != null ? onArrivalPayments : 0);
-        
-        Double onArrivalAmount = paymentRepository.getRevenueByMethod("On Arrival");
-        stats.setOnArrivalPaymentAmount(onArrivalAmount != null ? onArrivalAmount : 0.0);
-        
-        // Get payment status statistics
-        Long completedPayments = paymentRepository.getPaymentCountByStatus("Completed");
-        stats.setCompletedPayments(completedPayments != null ? completedPayments : 0);
-        
-        Long pendingPayments = paymentRepository.getPaymentCountByStatus("Pending");
-        stats.setPendingPayments(pendingPayments != null ? pendingPayments : 0);
-        
-        Long failedPayments = paymentRepository.getPaymentCountByStatus("Failed");
-        stats.setFailedPayments(failedPayments != null ? failedPayments : 0);
-        
-        return stats;
+        return paymentStatsService.getStats();
     }
 
+    /**
+     * Name/email substring search goes through the trigram index; the database then only loads the
+     * matching payments (newest first, at most app.payments.search.max-results). Texts shorter than
+     * a trigram, and searches before the index is built, use the SQL LIKE query instead.
+     */
     public List<PaymentHistoryDTO> searchPayments(String customerName, String email, String status, String paymentMethod) {
-        return bookingRepository.searchPaymentHistory(customerName, email, status, paymentMethod);
+        boolean byName = customerName != null && !customerName.isEmpty();
+        boolean byEmail = email != null && !email.isEmpty();
+        boolean tooShort = (byName && customerName.length() < PaymentSearchIndex.MIN_QUERY_LENGTH)
+                || (byEmail && email.length() < PaymentSearchIndex.MIN_QUERY_LENGTH);
+        if ((!byName && !byEmail) || tooShort || !paymentSearchIndex.isReady()) {
+            return bookingRepository.searchPaymentHistory(customerName, email, status, paymentMethod);
+        }
+
+        long[] ids = byName ? paymentSearchIndex.search(PaymentSearchIndex.Field.NAME, customerName) : null;
+        if (byEmail) {
+            long[] emailIds = paymentSearchIndex.search(PaymentSearchIndex.Field.EMAIL, email);
+            ids = ids == null ? emailIds : intersectDescending(ids, emailIds);
+        }
+
+        List<PaymentHistoryDTO> results = new ArrayList<>();
+        for (int i = 0; i < ids.length && results.size() < maxSearchResults; i += SEARCH_CHUNK) {
+            List<Long> chunk = new ArrayList<>(SEARCH_CHUNK);
+            for (int j = i; j < Math.min(ids.length, i + SEARCH_CHUNK); j++) {
+                chunk.add(ids[j]);
+            }
+            results.addAll(bookingRepository.findPaymentHistoryByPaymentIds(chunk, status, paymentMethod));
+        }
+        results.sort(Comparator.comparing(PaymentHistoryDTO::getPaymentDate,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return results.size() > maxSearchResults ? new ArrayList<>(results.subList(0, maxSearchResults)) : results;
+    }
+
+    private static long[] intersectDescending(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] > b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Newest-first page of payment history after the given cursor (keyset on paymentDate, paymentId),
+     * so every page costs the same no matter how deep the admin scrolls.
+     */
+    public PaymentHistoryPageDTO getPaymentHistoryPage(String customerName, String email, String status,
+                                                       String paymentMethod, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterDate = LocalDateTime.parse(parts[0]);
+                afterId = Long.valueOf(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether there is a next page
+        List<PaymentHistoryDTO> rows = bookingRepository.findPaymentHistoryPage(customerName, email, status,
+                paymentMethod, afterDate, afterId, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new PaymentHistoryPageDTO(rows, null);
+        }
+        List<PaymentHistoryDTO> page = rows.subList(0, size);
+        PaymentHistoryDTO last = page.get(size - 1);
+        String next = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (last.getPaymentDate() + "|" + last.getPaymentId()).getBytes(StandardCharsets.UTF_8));
+        return new PaymentHistoryPageDTO(List.copyOf(page), next);
+    }
+
+    /**
+     * Write payment history between from and to (inclusive days) as CSV or NDJSON.
+     * Rows are streamed from the database with a fetch size and written straight out,
+     * so memory use does not depend on how many payments are exported.
+     */
+    public void exportPaymentHistory(String format, LocalDate from, LocalDate to, String customerName, String email,
+                                     String status, String paymentMethod, OutputStream out) {
+        boolean csv = !"ndjson".equalsIgnoreCase(format);
+        LocalDateTime start = (from != null ? from : LocalDate.of(2000, 1, 1)).atStartOfDay();
+        LocalDateTime end = (to != null ? to.plusDays(1) : LocalDate.of(9999, 12, 31)).atStartOfDay();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(txStatus -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<PaymentHistoryDTO> rows = bookingRepository.streamPaymentHistory(
+                    customerName, email, status, paymentMethod, start, end)) {
+                if (csv) {
+                    writer.write("paymentId,bookingId,customerName,customerEmail,customerContact,paymentMethod," +
+                            "status,amount,paymentDate,tripName,tripDate,passengers\n");
+                }
+                int written = 0;
+                Iterator<PaymentHistoryDTO> it = rows.iterator();
+                while (it.hasNext()) {
+                    PaymentHistoryDTO row = it.next();
+                    writer.write(csv ? toCsv(row) : objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                    if (++written % EXPORT_FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String toCsv(PaymentHistoryDTO row) {
+        return String.join(",",
+                String.valueOf(row.getPaymentId()),
+                String.valueOf(row.getBookingId()),
+                csvField(row.getCustomerName()),
+                csvField(row.getCustomerEmail()),
+                csvField(row.getCustomerContact()),
+                csvField(row.getPaymentMethod()),
+                csvField(row.getStatus()),
+                String.valueOf(row.getAmount()),
+                row.getPaymentDate() != null ? row.getPaymentDate().toString() : "",
+                csvField(row.getTripName()),
+                csvField(row.getTripDate()),
+                String.valueOf(row.getPassengers()));
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
     }
-}
\ No newline at end of file
+}
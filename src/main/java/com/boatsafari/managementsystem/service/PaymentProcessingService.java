@@ -1,12 +1,27 @@
 package com.boatsafari.managementsystem.service;
 
+import com.boatsafari.managementsystem.strategy.FeeSchedule;
 import com.boatsafari.managementsystem.strategy.PaymentStrategy;
 import com.boatsafari.managementsystem.strategy.PaymentResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -19,11 +34,37 @@ import java.util.stream.Collectors;
  * 2. Each payment method is encapsulated in its own class
  * 3. Runtime selection of payment strategy
  * 4. Follows Open/Closed Principle
+ *
+ * Payments run asynchronously, each method behind its own bulkhead: a small executor plus a cap on
+ * calls in flight, a timeout and a circuit breaker. A slow or failing provider therefore only ever
+ * queues up its own payments - never request threads or the other methods.
  */
 @Service
 public class PaymentProcessingService {
     
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessingService.class);
+    
     private final Map<String, PaymentStrategy> paymentStrategies;
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+    private final FeeTable feeTable;
+    
+    @Value("${app.payments.bulkhead.threads:4}")
+    private int bulkheadThreads;
+    
+    @Value("${app.payments.bulkhead.queue-capacity:100}")
+    private int bulkheadQueueCapacity;
+    
+    @Value("${app.payments.bulkhead.max-in-flight:200}")
+    private int maxInFlight;
+    
+    @Value("${app.payments.timeout-ms:10000}")
+    private long timeoutMs;
+    
+    @Value("${app.payments.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+    
+    @Value("${app.payments.circuit-breaker.open-ms:30000}")
+    private long openMs;
     
     /**
      * Constructor injection - Spring automatically injects all PaymentStrategy implementations
@@ -36,6 +77,19 @@ public class PaymentProcessingService {
                 PaymentStrategy::getPaymentMethodName,
                 Function.identity()
             ));
+        this.feeTable = new FeeTable(paymentStrategies);
+    }
+    
+    @PostConstruct
+    public void startBulkheads() {
+        for (String method : paymentStrategies.keySet()) {
+            bulkheads.put(method, new Bulkhead(method));
+        }
+    }
+    
+    @PreDestroy
+    public void stopBulkheads() {
+        bulkheads.values().forEach(b -> b.executor.shutdown());
     }
     
     /**
@@ -44,20 +98,116 @@ public class PaymentProcessingService {
      */
     public PaymentResult processPayment(String paymentMethod, BigDecimal amount, 
                                       String customerEmail, String paymentDetails) {
+        try {
+            return processPaymentAsync(paymentMethod, amount, customerEmail, paymentDetails).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+    
+    /**
+     * Process payment without blocking the caller.
+     * The future completes with the provider's result, or exceptionally with a TimeoutException (no answer
+     * within app.payments.timeout-ms) or a RejectedExecutionException (method overloaded or its circuit open;
+     * the provider was not called).
+     * Declined payments are a normal result, not an exception. It completes on the gateway's or the timeout's
+     * thread, so hand anything slow that follows (database work) to an executor of its own.
+     */
+    public CompletableFuture<PaymentResult> processPaymentAsync(String paymentMethod, BigDecimal amount, 
+                                                              String customerEmail, String paymentDetails) {
+        return callProvider(paymentMethod, strategy -> {
+            log.debug("Processing {} payment of {} (fee {})", strategy.getPaymentMethodName(), amount,
+                strategy.getProcessingFee(amount));
+            return strategy.processPaymentAsync(amount, customerEmail, paymentDetails);
+        });
+    }
+    
+    /**
+     * Refund through the method's provider, behind the same bulkhead, timeout and circuit breaker as payments
+     */
+    public CompletableFuture<PaymentResult> refundAsync(String paymentMethod, BigDecimal amount, 
+                                                      String customerEmail, String paymentReference) {
+        return callProvider(paymentMethod, strategy -> strategy.refundAsync(amount, customerEmail, paymentReference));
+    }
+    
+    /**
+     * Ask the method's provider whether it made the refund sent under paymentReference. Completes with a
+     * successful result when it did, an unsuccessful one when it did not, null when the provider cannot tell.
+     */
+    public CompletableFuture<PaymentResult> findRefundAsync(String paymentMethod, String paymentReference) {
+        return callProvider(paymentMethod, strategy -> strategy.findRefundAsync(paymentReference));
+    }
+    
+    private CompletableFuture<PaymentResult> callProvider(String paymentMethod,
+                                                          Function<PaymentStrategy, CompletableFuture<PaymentResult>> operation) {
         PaymentStrategy strategy = getPaymentStrategy(paymentMethod);
         
         if (strategy == null) {
-            return new PaymentResult(false, 
+            return CompletableFuture.completedFuture(new PaymentResult(false, 
                 "Unsupported payment method: " + paymentMethod, 
-                null, 0.0);
+                null, 0.0));
+        }
+        Bulkhead bulkhead = bulkheads.get(strategy.getPaymentMethodName());
+        
+        if (!bulkhead.inFlight.tryAcquire()) {
+            bulkhead.rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                strategy.getPaymentMethodName() + " payments are busy, please try again shortly"));
+        }
+        if (!bulkhead.circuit.allowRequest()) {
+            bulkhead.inFlight.release();
+            bulkhead.rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                strategy.getPaymentMethodName() + " payments are temporarily unavailable"));
         }
         
-        // Log the processing (for demonstration)
-        System.out.println("Processing payment using: " + strategy.getPaymentMethodName());
-        System.out.println("Amount: $" + amount);
-        System.out.println("Processing fee: $" + strategy.getProcessingFee(amount));
+        CompletableFuture<PaymentResult> call;
+        try {
+            call = CompletableFuture
+                .supplyAsync(() -> operation.apply(strategy), bulkhead.executor)
+                .thenCompose(Function.identity());
+        } catch (RejectedExecutionException e) {
+            bulkhead.inFlight.release();
+            bulkhead.circuit.onRejected();
+            bulkhead.rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                strategy.getPaymentMethodName() + " payments are busy, please try again shortly"));
+        }
+        
+        // The permit stays taken until the provider is really done, even after the caller timed out,
+        // so calls still running at the gateway keep counting against max-in-flight
+        call.whenComplete((result, error) -> bulkhead.inFlight.release());
         
-        return strategy.processPayment(amount, customerEmail, paymentDetails);
+        // The caller's view: a copy that times out on its own, leaving the provider call running.
+        // No hop back onto the bulkhead executor - a rejection there would lose an answered charge.
+        return call.thenApply(Function.identity())
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((result, error) -> {
+                if (error == null) {
+                    bulkhead.circuit.onSuccess();
+                } else {
+                    bulkhead.circuit.onFailure();
+                    bulkhead.failed.incrementAndGet();
+                    log.warn("{} payment failed: {}", strategy.getPaymentMethodName(), unwrap(error).toString());
+                }
+            });
+    }
+    
+    /**
+     * Bulkhead and circuit state per payment method (for monitoring)
+     */
+    public Map<String, Map<String, Object>> getBulkheadStatus() {
+        Map<String, Map<String, Object>> status = new LinkedHashMap<>();
+        bulkheads.forEach((method, b) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("circuit", b.circuit.getState());
+            m.put("inFlight", maxInFlight - b.inFlight.availablePermits());
+            m.put("queued", b.executor.getQueue().size());
+            m.put("rejected", b.rejected.get());
+            m.put("failed", b.failed.get());
+            status.put(method, m);
+        });
+        return status;
     }
     
     /**
@@ -77,6 +227,14 @@ public class PaymentProcessingService {
         return strategy != null ? strategy.getProcessingFee(amount) : 0.0;
     }
     
+    /**
+     * Fees of every payment method for each of the amounts, in one pass over the precomputed fee table.
+     * @return method -> fees, fees[i] belonging to amounts[i]; methods sorted by name
+     */
+    public Map<String, double[]> quoteProcessingFees(double[] amounts) {
+        return feeTable.quote(amounts);
+    }
+    
     /**
      * Validate payment details for a specific method
      */
@@ -86,6 +244,131 @@ public class PaymentProcessingService {
     }
     
     private PaymentStrategy getPaymentStrategy(String paymentMethod) {
-        return paymentStrategies.get(paymentMethod.toUpperCase());
+        return paymentMethod != null ? paymentStrategies.get(paymentMethod.toUpperCase()) : null;
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    // Rates and fixed parts of all strategies in flat arrays, built once at startup
+    private static final class FeeTable {
+        final String[] methods;
+        final double[] rates;
+        final double[] fixed;
+        final PaymentStrategy[] unscheduled; // strategies without a FeeSchedule, quoted one by one
+        
+        FeeTable(Map<String, PaymentStrategy> strategies) {
+            methods = strategies.keySet().stream().sorted().toArray(String[]::new);
+            rates = new double[methods.length];
+            fixed = new double[methods.length];
+            unscheduled = new PaymentStrategy[methods.length];
+            for (int m = 0; m < methods.length; m++) {
+                PaymentStrategy strategy = strategies.get(methods[m]);
+                FeeSchedule schedule = strategy.getFeeSchedule();
+                if (schedule != null) {
+                    rates[m] = schedule.getRate();
+                    fixed[m] = schedule.getFixed();
+                } else {
+                    unscheduled[m] = strategy;
+                }
+            }
+        }
+        
+        Map<String, double[]> quote(double[] amounts) {
+            Map<String, double[]> quotes = new LinkedHashMap<>();
+            for (int m = 0; m < methods.length; m++) {
+                double[] fees = new double[amounts.length];
+                if (unscheduled[m] == null) {
+                    double rate = rates[m];
+                    double fix = fixed[m];
+                    for (int i = 0; i < amounts.length; i++) {
+                        fees[i] = amounts[i] * rate + fix;
+                    }
+                } else {
+                    for (int i = 0; i < amounts.length; i++) {
+                        fees[i] = unscheduled[m].getProcessingFee(BigDecimal.valueOf(amounts[i]));
+                    }
+                }
+                quotes.put(methods[m], fees);
+            }
+            return quotes;
+        }
+    }
+    
+    private final class Bulkhead {
+        final ThreadPoolExecutor executor;
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final CircuitBreaker circuit = new CircuitBreaker(failureThreshold, openMs);
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        
+        Bulkhead(String method) {
+            AtomicInteger threadNo = new AtomicInteger();
+            executor = new ThreadPoolExecutor(bulkheadThreads, bulkheadThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(bulkheadQueueCapacity), r -> {
+                    Thread t = new Thread(r, "payment-" + method.toLowerCase() + "-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
+    }
+    
+    /**
+     * Consecutive-failure circuit breaker: after failureThreshold failures in a row the method is
+     * refused for openMs, then a single trial call decides whether it closes again.
+     */
+    static final class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openMs;
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean trialInFlight;
+        
+        CircuitBreaker(int failureThreshold, long openMs) {
+            this.failureThreshold = failureThreshold;
+            this.openMs = openMs;
+        }
+        
+        synchronized boolean allowRequest() {
+            if (openUntil == 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() < openUntil || trialInFlight) {
+                return false;
+            }
+            trialInFlight = true; // half-open
+            return true;
+        }
+        
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            openUntil = 0;
+            trialInFlight = false;
+        }
+        
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (trialInFlight || consecutiveFailures >= failureThreshold) {
+                if (openUntil == 0) {
+                    log.warn("Payment circuit opened after {} consecutive failures", consecutiveFailures);
+                }
+                openUntil = System.currentTimeMillis() + openMs;
+            }
+            trialInFlight = false;
+        }
+        
+        // The call never started (bulkhead full), so it says nothing about the provider
+        synchronized void onRejected() {
+            trialInFlight = false;
+        }
+        
+        synchronized String getState() {
+            if (openUntil == 0) {
+                return "CLOSED";
+            }
+            return System.currentTimeMillis() < openUntil ? "OPEN" : "HALF_OPEN";
+        }
     }
 }
\ No newline at end of file
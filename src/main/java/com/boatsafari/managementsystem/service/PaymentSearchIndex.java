@@ -0,0 +1,238 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over payer name and email, for the admin payment search.
+ *
+ * Every lower-cased name/email is split into 3-character grams, each gram pointing to a sorted list
+ * of payment ids. A substring query intersects the lists of its own grams and checks the few
+ * candidates left, instead of a LIKE '%x%' scan over bookings, users and Payments.
+ *
+ * Built once at startup, then caught up with new payments on a schedule (app.payments.search.catch-up-interval-ms),
+ * so searches never touch the database themselves; a nightly full rebuild picks up renamed customers.
+ * Queries shorter than a trigram cannot use the index - PaymentAdminService sends those to SQL.
+ */
+@Service
+public class PaymentSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentSearchIndex.class);
+
+    // IDENTITY values can commit out of order; re-read this many ids behind the newest one on every catch-up
+    private static final long CATCH_UP_LOOKBACK = 1000;
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.payments.search.enabled:true}")
+    private boolean enabled;
+
+    private volatile Index index = new Index();
+    private volatile boolean ready;
+
+    public enum Field { NAME, EMAIL }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Build a fresh index from the database and swap it in
+     */
+    @Scheduled(cron = "${app.payments.search.rebuild-cron:0 15 3 * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Index fresh = new Index();
+        load(fresh, 0L);
+        synchronized (this) {
+            // Payments indexed into the old index while we were loading are read again here
+            load(fresh, Math.max(0, fresh.maxId - CATCH_UP_LOOKBACK));
+            index = fresh;
+            ready = true;
+        }
+        log.info("PaymentSearchIndex: indexed {} payments in {} ms", fresh.docs.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Index payments created since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.payments.search.catch-up-interval-ms:5000}")
+    public synchronized void catchUp() {
+        if (!ready) {
+            return;
+        }
+        Index current = index;
+        load(current, Math.max(0, current.maxId - CATCH_UP_LOOKBACK));
+    }
+
+    /**
+     * Ids of payments whose payer name/email contains the query (case-insensitive), newest first
+     * @throws IllegalArgumentException for queries shorter than MIN_QUERY_LENGTH
+     */
+    public long[] search(Field field, String query) {
+        if (query == null || query.length() < MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search text must be at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        String q = query.toLowerCase(Locale.ROOT);
+        Index current = index;
+        synchronized (current) {
+            long[] candidates = current.candidates(field, q);
+            long[] hits = new long[candidates.length];
+            int n = 0;
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                String[] doc = current.docs.get(candidates[i]);
+                String value = doc != null ? doc[field.ordinal()] : null;
+                if (value != null && value.contains(q)) {
+                    hits[n++] = candidates[i];
+                }
+            }
+            return Arrays.copyOf(hits, n);
+        }
+    }
+
+    private void load(Index target, long afterId) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = bookingRepository.streamPayerDetailsAfter(afterId)) {
+                Iterator<Object[]> it = rows.iterator();
+                while (it.hasNext()) {
+                    Object[] row = it.next();
+                    synchronized (target) {
+                        target.add((Long) row[0], lower((String) row[1]), lower((String) row[2]));
+                    }
+                }
+            }
+        });
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static final class Index {
+        final Map<Long, String[]> docs = new HashMap<>();
+        final List<Map<Long, IdList>> grams = List.of(new HashMap<>(), new HashMap<>());
+        long maxId;
+
+        void add(Long paymentId, String name, String email) {
+            String[] existing = docs.get(paymentId);
+            String[] doc = {name, email};
+            if (existing != null && Arrays.equals(existing, doc)) {
+                return;
+            }
+            // Stale grams of a changed doc are harmless: candidates are always checked against docs
+            docs.put(paymentId, doc);
+            for (Field field : Field.values()) {
+                String value = doc[field.ordinal()];
+                if (value == null) {
+                    continue;
+                }
+                Map<Long, IdList> byGram = grams.get(field.ordinal());
+                for (int i = 0; i + 3 <= value.length(); i++) {
+                    byGram.computeIfAbsent(gram(value, i), g -> new IdList()).add(paymentId);
+                }
+            }
+            maxId = Math.max(maxId, paymentId);
+        }
+
+        long[] candidates(Field field, String q) {
+            Map<Long, IdList> byGram = grams.get(field.ordinal());
+            List<IdList> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                IdList list = byGram.get(gram(q, i));
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            long[] result = lists.get(0).toArray();
+            int n = result.length;
+            for (int l = 1; l < lists.size() && n > 0; l++) {
+                IdList other = lists.get(l);
+                int kept = 0;
+                for (int i = 0; i < n; i++) {
+                    if (other.contains(result[i])) {
+                        result[kept++] = result[i];
+                    }
+                }
+                n = kept;
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+
+    // Sorted, duplicate-free list of payment ids
+    private static final class IdList {
+        long[] values = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size > 0 && values[size - 1] >= id) {
+                int pos = Arrays.binarySearch(values, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id); // late commit of an older id - rare
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        private void insertAt(int pos, long id) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = id;
+            size++;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(values, 0, size, id) >= 0;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -3,17 +3,35 @@ package com.boatsafari.managementsystem.service;
 import com.boatsafari.managementsystem.dto.PaymentRequest;
 import com.boatsafari.managementsystem.model.Booking;
 import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.observer.BookingEventPublisher;
 import com.boatsafari.managementsystem.repository.BookingRepository;
 import com.boatsafari.managementsystem.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class PaymentService {
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+    private static final String REFUND_PENDING = "REFUND_PENDING";
+
     @Autowired
     private PaymentRepository paymentRepository;
 
@@ -23,80 +41,208 @@ public class PaymentService {
     @Autowired
     private BookingService bookingService; // to confirm booking on success
 
+    @Autowired
+    private TripInventoryService tripInventoryService;
+
+    @Autowired
+    private BookingEventPublisher eventPublisher;
+
+    @Autowired
+    private CardVaultService cardVaultService;
+
+    @Value("${app.payments.max-conflict-retries:5}")
+    private int maxConflictRetries;
+
+    @Value("${app.payments.recorder.threads:4}")
+    private int recorderThreads;
+
+    private final TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor recorder;
+
+    public PaymentService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void startRecorder() {
+        AtomicInteger threadNo = new AtomicInteger();
+        // Unbounded queue: a card that was charged always gets its payment recorded, never a rejection
+        recorder = new ThreadPoolExecutor(recorderThreads, recorderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "payment-recorder-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy()); // only after shutdown
+        recorder.allowCoreThreadTimeOut(true);
+    }
+
+    // Charged payments still waiting to be recorded are written before the context goes away
+    @PreDestroy
+    public void stopRecorder() throws InterruptedException {
+        recorder.shutdown();
+        if (!recorder.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.error("Payment recorder did not finish, {} charged payments not recorded", recorder.getQueue().size());
+        }
+    }
+
+    /**
+     * Validate a card payment and return the amount to charge, or null when the booking is already paid.
+     * Called before the card gateway so the charge itself happens outside any transaction.
+     * @throws IllegalStateException when the booking can no longer be paid (cancelled, or its hold expired)
+     */
+    public Double prepareCardCharge(PaymentRequest req) {
+        validateCard(req);
+        Booking booking = bookingRepository.findById(req.getBookingId())
+                .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
+        if (booking.getPayment() != null && PaymentStateMachine.isPaid(booking.getPayment().getStatus())) {
+            return null;
+        }
+        PaymentStateMachine.checkBooking(booking.getStatus(), "CONFIRMED");
+        PaymentStateMachine.checkPayment(paymentStatus(booking), "SUCCESS");
+        return booking.getTotalCost();
+    }
+
+    /**
+     * Record a payment and confirm its booking. Booking and Payment are versioned, so concurrent
+     * callbacks for the same booking cannot overwrite each other: the loser's transaction rolls back
+     * as a whole and is retried against the fresh rows, where it finds the payment already recorded.
+     * @throws IllegalStateException when the booking cannot take this payment, or it still conflicts
+     *                               after app.payments.max-conflict-retries attempts
+     */
     public Map<String, Object> processPayment(PaymentRequest req) {
-        Map<String, Object> res = new HashMap<>();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(tx -> recordPayment(req));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxConflictRetries) {
+                    log.warn("Payment for booking {} still conflicting after {} attempts", req.getBookingId(), attempt);
+                    throw new IllegalStateException("The booking is being updated by another request, please try again");
+                }
+                log.debug("Payment for booking {} conflicted (attempt {}), retrying", req.getBookingId(), attempt);
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * processPayment on the recorder executor, for callers on a gateway thread (its transaction and
+     * conflict back-off must not hold up the provider's callbacks)
+     */
+    public CompletableFuture<Map<String, Object>> processPaymentAsync(PaymentRequest req) {
+        return CompletableFuture.supplyAsync(() -> processPayment(req), recorder);
+    }
 
+    // Payment, booking status and their events commit (or roll back) together
+    private Map<String, Object> recordPayment(PaymentRequest req) {
         Booking booking = bookingRepository.findById(req.getBookingId())
                 .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
 
         // Idempotency: if already paid successfully, just return success
-        if (booking.getPayment() != null && "SUCCESS".equalsIgnoreCase(booking.getPayment().getStatus())) {
-            res.put("message", "Payment already completed");
-            res.put("bookingId", booking.getBookingId());
-            res.put("paymentId", booking.getPayment().getPaymentId());
-            res.put("bookingStatus", booking.getStatus());
-            res.put("paymentStatus", booking.getPayment().getStatus());
-            return res;
+        if (booking.getPayment() != null && PaymentStateMachine.isPaid(booking.getPayment().getStatus())) {
+            return result("Payment already completed", booking, booking.getPayment());
+        }
+        if (booking.getPayment() != null && (REFUND_PENDING.equalsIgnoreCase(booking.getPayment().getStatus())
+                || "REFUND_SENDING".equalsIgnoreCase(booking.getPayment().getStatus()))) {
+            return result("Payment already received, it is being refunded", booking, booking.getPayment());
         }
-
-        // Prepare Payment
-        Payment payment = new Payment();
-        payment.setPaymentMethod(req.getMethod());
-        payment.setPaymentDate(LocalDateTime.now());
-        payment.setAmount(booking.getTotalCost());
 
         if ("CARD".equalsIgnoreCase(req.getMethod())) {
             validateCard(req);
-            // Simulate gateway call -> success
-            payment.setStatus("SUCCESS");
-            payment.setCardNumber(req.getCardNumber());
-            payment.setCardExpiry(req.getCardExpiry());
-            payment.setCardCvv(req.getCardCvv());
-            payment.setCardHolderName(req.getCardHolderName());
-
+            // Card already charged through the gateway by PaymentController -> record success
+            Payment payment = movePayment(booking, "CARD", "SUCCESS");
+            boolean confirmable = PaymentStateMachine.canMoveBooking(booking.getStatus(), "CONFIRMED");
+            if (!confirmable) {
+                // Cancelled or expired while the card was being charged: the money is owed back, and
+                // TripCancellationService.resumeRefunds() sends the refund
+                PaymentStateMachine.checkPayment(payment.getStatus(), REFUND_PENDING);
+                payment.setStatus(REFUND_PENDING);
+            }
+            // Card details go to the vault; the CVV is not kept at all
+            payment.setCardToken(cardVaultService.tokenize(req.getCardNumber(), req.getCardExpiry(), req.getCardHolderName()));
+            payment.setCardLast4(CardVaultService.last4(req.getCardNumber()));
             Payment saved = paymentRepository.save(payment);
             booking.setPayment(saved);
 
-            // Confirm booking if within hold window and provisional
-            try {
-                bookingService.confirmBooking(booking.getBookingId());
-            } catch (Exception e) {
-                // If confirmation fails, still mark booking as confirmed since payment succeeded
-                booking.setStatus("CONFIRMED");
+            String message = "Payment successful. Booking confirmed.";
+            if (confirmable) {
+                confirm(booking);
+            } else {
+                log.warn("Booking {} was {} when its card payment {} arrived, refund pending", booking.getBookingId(),
+                        booking.getStatus(), saved.getPaymentId());
+                bookingRepository.saveAndFlush(booking);
+                message = "Payment received, but the booking is " + booking.getStatus() + ". It will be refunded.";
             }
-            bookingRepository.save(booking);
-
-            res.put("message", "Payment successful. Booking confirmed.");
-            res.put("bookingId", booking.getBookingId());
-            res.put("paymentId", saved.getPaymentId());
-            res.put("bookingStatus", booking.getStatus());
-            res.put("paymentStatus", saved.getStatus());
-            return res;
+            eventPublisher.paymentRecorded(booking, saved);
+            return result(message, booking, saved);
 
         } else if ("PAY_ON_ARRIVAL".equalsIgnoreCase(req.getMethod())) {
-            payment.setStatus("PENDING"); // will be paid at dock
-            Payment saved = paymentRepository.save(payment);
+            if (booking.getPayment() != null && "PENDING".equalsIgnoreCase(booking.getPayment().getStatus())) {
+                return result("Booking confirmed. Please pay at the dock on arrival.", booking, booking.getPayment());
+            }
+            PaymentStateMachine.checkBooking(booking.getStatus(), "CONFIRMED");
+            Payment saved = paymentRepository.save(movePayment(booking, "PAY_ON_ARRIVAL", "PENDING")); // will be paid at dock
             booking.setPayment(saved);
 
             // Confirm seat but mark payment pending
-            if (!"CONFIRMED".equalsIgnoreCase(booking.getStatus())) {
-                // Allow confirmation for cash too (skip hold check if you prefer)
-                booking.setStatus("CONFIRMED");
-            }
-            bookingRepository.save(booking);
-
-            res.put("message", "Booking confirmed. Please pay at the dock on arrival.");
-            res.put("bookingId", booking.getBookingId());
-            res.put("paymentId", saved.getPaymentId());
-            res.put("bookingStatus", booking.getStatus());
-            res.put("paymentStatus", saved.getStatus());
-            return res;
+            confirm(booking);
+            eventPublisher.paymentRecorded(booking, saved);
+            return result("Booking confirmed. Please pay at the dock on arrival.", booking, saved);
 
         } else {
             throw new IllegalArgumentException("Invalid payment method");
         }
     }
 
+    // The booking's existing payment moved to newStatus, or a new one when it has none yet
+    private Payment movePayment(Booking booking, String method, String newStatus) {
+        PaymentStateMachine.checkPayment(paymentStatus(booking), newStatus);
+        Payment payment = booking.getPayment() != null ? booking.getPayment() : new Payment();
+        payment.setPaymentMethod(method);
+        payment.setPaymentDate(LocalDateTime.now());
+        payment.setAmount(booking.getTotalCost());
+        payment.setStatus(newStatus);
+        return payment;
+    }
+
+    private void confirm(Booking booking) {
+        String oldStatus = booking.getStatus();
+        if ("CONFIRMED".equalsIgnoreCase(oldStatus)) {
+            bookingRepository.saveAndFlush(booking);
+            return;
+        }
+        // Confirmed here even when the booking engine is on: the confirmation and the payment commit (or roll
+        // back) together. The inventory UPDATE is conditional, so the engine's cached counts stay safe.
+        booking.setStatus("CONFIRMED");
+        // Flush now so a concurrent writer is detected before inventory and observers are touched
+        bookingRepository.saveAndFlush(booking);
+        tripInventoryService.applyStatusChange(booking, oldStatus, "CONFIRMED");
+        eventPublisher.bookingStatusChanged(booking, oldStatus, "CONFIRMED");
+    }
+
+    private static String paymentStatus(Booking booking) {
+        return booking.getPayment() != null ? booking.getPayment().getStatus() : null;
+    }
+
+    private static Map<String, Object> result(String message, Booking booking, Payment payment) {
+        Map<String, Object> res = new HashMap<>();
+        res.put("message", message);
+        res.put("bookingId", booking.getBookingId());
+        res.put("paymentId", payment.getPaymentId());
+        res.put("bookingStatus", booking.getStatus());
+        res.put("paymentStatus", payment.getStatus());
+        return res;
+    }
+
+    private void backOff(int attempt) {
+        try {
+            // Randomised so callbacks that collided once do not collide again in lockstep
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L << Math.min(attempt, 5)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying the payment");
+        }
+    }
+
     private void validateCard(PaymentRequest req) {
         if (isBlank(req.getCardHolderName())) throw new IllegalArgumentException("Cardholder name required");
         if (isBlank(req.getCardNumber()) || req.getCardNumber().replaceAll("\\s", "").length() != 16)
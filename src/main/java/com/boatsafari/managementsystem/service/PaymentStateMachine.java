@@ -0,0 +1,76 @@
+package com.boatsafari.managementsystem.service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed status transitions of bookings and payments on the payment path.
+ * A status missing from the tables is final. Staying in the same status is always allowed
+ * (a repeated payment callback is a no-op, not an error).
+ */
+public final class PaymentStateMachine {
+
+    public static final String NO_PAYMENT = "NONE";
+
+    private static final Map<String, Set<String>> BOOKING = Map.of(
+            "PROVISIONAL", Set.of("CONFIRMED", "CANCELLED", "EXPIRED"),
+            // The hold ran out and its seats went back on sale: it cannot be paid any more
+            "EXPIRED", Set.of("CANCELLED"),
+            "CONFIRMED", Set.of("CANCELLED", "COMPLETED"));
+
+    private static final Map<String, Set<String>> PAYMENT = Map.of(
+            NO_PAYMENT, Set.of("PENDING", "SUCCESS"),
+            // Pay-on-arrival booking paid by card after all, or given up with its trip
+            "PENDING", Set.of("SUCCESS", "CANCELLED"),
+            // REFUND_PENDING: refund owed, not sent yet; REFUND_SENDING: claimed by one sender, answer not recorded
+            // yet (back to REFUND_PENDING only when the provider confirms it has no such refund)
+            "SUCCESS", Set.of("REFUND_PENDING", "REFUNDED", "REFUND_FAILED"),
+            "REFUND_PENDING", Set.of("REFUND_SENDING"),
+            "REFUND_SENDING", Set.of("REFUNDED", "REFUND_FAILED", "REFUND_PENDING"),
+            "REFUND_FAILED", Set.of("REFUNDED"));
+
+    private PaymentStateMachine() {
+    }
+
+    public static boolean canMoveBooking(String from, String to) {
+        return allowed(BOOKING, from, to);
+    }
+
+    public static boolean canMovePayment(String from, String to) {
+        return allowed(PAYMENT, from != null ? from : NO_PAYMENT, to);
+    }
+
+    /**
+     * @throws IllegalStateException when the booking may not go from 'from' to 'to'
+     */
+    public static void checkBooking(String from, String to) {
+        if (!canMoveBooking(from, to)) {
+            throw new IllegalStateException("Booking cannot go from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException when the payment may not go from 'from' to 'to'
+     */
+    public static void checkPayment(String from, String to) {
+        if (!canMovePayment(from, to)) {
+            throw new IllegalStateException("Payment cannot go from " + (from != null ? from : NO_PAYMENT) + " to " + to);
+        }
+    }
+
+    /**
+     * Captured payment (older rows use COMPLETED)
+     */
+    public static boolean isPaid(String paymentStatus) {
+        return "SUCCESS".equalsIgnoreCase(paymentStatus) || "COMPLETED".equalsIgnoreCase(paymentStatus);
+    }
+
+    private static boolean allowed(Map<String, Set<String>> table, String from, String to) {
+        String f = from != null ? from.toUpperCase() : null;
+        String t = to.toUpperCase();
+        if (t.equals(f)) {
+            return true;
+        }
+        return f != null && table.getOrDefault(f, Set.of()).contains(t);
+    }
+}
@@ -0,0 +1,193 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.dto.PaymentStatsDTO;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Payment counters per (method, status), kept in memory.
+ *
+ * Seeded with a single GROUP BY over Payments, then moved along by PaymentStatsListener as payments
+ * are inserted, updated or deleted (after commit), so serving the admin dashboard never touches the
+ * table. Bulk UPDATEs mark the counters stale; writes made by other nodes are picked up by a periodic
+ * resync. A change that lands while a resync runs may or may not be in its query, so such a resync
+ * leaves the counters stale and the next read reloads them again.
+ */
+@Service
+public class PaymentStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentStatsService.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private volatile Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile boolean stale = true;
+    // Changes applied or marked since startup; a resync compares it before and after its query
+    private final AtomicLong changes = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Key(String method, String status) {}
+
+    private static final class Bucket {
+        final LongAdder count = new LongAdder();
+        final DoubleAdder amount = new DoubleAdder();
+    }
+
+    /**
+     * Dashboard figures. Status/method names compare case-insensitively, like the database collation.
+     */
+    public PaymentStatsDTO getStats() {
+        if (stale) {
+            resync();
+        }
+        PaymentStatsDTO stats = new PaymentStatsDTO();
+        buckets.forEach((key, bucket) -> {
+            long count = bucket.count.sum();
+            double amount = bucket.amount.sum();
+            boolean completed = "Completed".equalsIgnoreCase(key.status());
+
+            stats.setTotalPayments(stats.getTotalPayments() + count);
+            if (completed) {
+                stats.setTotalRevenue(stats.getTotalRevenue() + amount);
+                stats.setCompletedPayments(stats.getCompletedPayments() + count);
+            } else if ("Pending".equalsIgnoreCase(key.status())) {
+                stats.setPendingPayments(stats.getPendingPayments() + count);
+            } else if ("Failed".equalsIgnoreCase(key.status())) {
+                stats.setFailedPayments(stats.getFailedPayments() + count);
+            }
+
+            if ("Card".equalsIgnoreCase(key.method())) {
+                stats.setCardPayments(stats.getCardPayments() + count);
+                if (completed) {
+                    stats.setCardPaymentAmount(stats.getCardPaymentAmount() + amount);
+                }
+            } else if ("On Arrival".equalsIgnoreCase(key.method())) {
+                stats.setOnArrivalPayments(stats.getOnArrivalPayments() + count);
+                if (completed) {
+                    stats.setOnArrivalPaymentAmount(stats.getOnArrivalPaymentAmount() + amount);
+                }
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Reload all counters with one GROUP BY query
+     */
+    @Scheduled(fixedDelayString = "${app.payments.stats.resync-interval-ms:300000}",
+               initialDelayString = "${app.payments.stats.resync-interval-ms:300000}")
+    public synchronized void resync() {
+        long seen;
+        lock.writeLock().lock();
+        try {
+            seen = changes.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Key, Bucket> fresh = new ConcurrentHashMap<>();
+        for (Object[] row : paymentRepository.summarizeByMethodAndStatus()) {
+            Bucket bucket = fresh.computeIfAbsent(new Key((String) row[0], (String) row[1]), k -> new Bucket());
+            bucket.count.add(((Number) row[2]).longValue());
+            bucket.amount.add(((Number) row[3]).doubleValue());
+        }
+        lock.writeLock().lock();
+        try {
+            buckets = fresh;
+            stale = changes.get() != seen;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Payment stats resynced: {} method/status groups", fresh.size());
+    }
+
+    /**
+     * Count a payment in (+1) or out (-1) once the current transaction commits
+     */
+    public void record(String method, String status, double amount, int sign) {
+        Key key = new Key(method, status);
+        afterCommit(() -> apply(key, amount, sign, null, 0));
+    }
+
+    /**
+     * Move an updated payment from its old counter to its new one once the current transaction commits
+     */
+    public void move(String oldMethod, String oldStatus, double oldAmount,
+                     String newMethod, String newStatus, double newAmount) {
+        Key from = new Key(oldMethod, oldStatus);
+        Key to = new Key(newMethod, newStatus);
+        if (from.equals(to) && oldAmount == newAmount) {
+            return;
+        }
+        afterCommit(() -> apply(from, oldAmount, -1, to, newAmount));
+    }
+
+    /**
+     * Payments changed in a way the counters cannot follow (bulk UPDATE); reload on the next read.
+     * Inside a transaction this happens once it commits, so a read in between cannot reload the old rows
+     * and clear the flag.
+     */
+    public void markStale() {
+        afterCommit(() -> {
+            lock.readLock().lock();
+            try {
+                changes.incrementAndGet();
+                stale = true;
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Counts one change and applies it to the current counters as a whole; resync() swaps them under the
+    // write lock, so a change goes either into the counters it replaces (and is in its query) or into the
+    // fresh ones, or it makes that resync leave the counters stale
+    private void apply(Key key, double amount, int sign, Key secondKey, double secondAmount) {
+        lock.readLock().lock();
+        try {
+            changes.incrementAndGet();
+            if (stale) {
+                return; // the next read reloads everything anyway
+            }
+            add(key, amount, sign);
+            if (secondKey != null) {
+                add(secondKey, secondAmount, -sign);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Key key, double amount, int sign) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+        bucket.count.add(sign);
+        bucket.amount.add(sign * amount);
+    }
+}
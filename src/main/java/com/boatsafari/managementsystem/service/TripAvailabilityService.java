@@ -0,0 +1,135 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.dto.TripAvailabilityDTO;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat availability for many trips at once.
+ * Reads the trip_inventory counters with one joined query (plus one GROUP BY over bookings for trips
+ * that have no counters yet) and keeps each answer for a fraction of a second, so a page listing
+ * hundreds of departures costs a couple of queries no matter how often it is refreshed.
+ */
+@Service
+public class TripAvailabilityService {
+
+    // SQL Server allows ~2100 parameters per statement
+    private static final int IN_CHUNK = 1000;
+    private static final int MAX_CACHED_QUERIES = 256;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${app.availability.cache-ttl-ms:500}")
+    private long cacheTtlMs;
+
+    private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+
+    private static final class CachedResult {
+        final List<TripAvailabilityDTO> result;
+        final long expiresAtMillis;
+
+        CachedResult(List<TripAvailabilityDTO> result, long expiresAtMillis) {
+            this.result = result;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * Availability of the given trips, or of all trips between from and to (inclusive) when no ids are given
+     */
+    public List<TripAvailabilityDTO> getAvailability(LocalDate from, LocalDate to, Collection<Long> ids) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        TreeSet<Long> tripIds = ids != null ? new TreeSet<>(ids) : new TreeSet<>();
+        String key = from + "|" + to + "|" + tripIds;
+
+        long now = System.currentTimeMillis();
+        CachedResult cached = cache.get(key);
+        if (cached != null && cached.expiresAtMillis > now) {
+            return cached.result;
+        }
+
+        List<TripAvailabilityDTO> result = tripIds.isEmpty() ? loadByDate(from, to) : loadByIds(tripIds);
+        if (cache.size() >= MAX_CACHED_QUERIES) {
+            cache.clear();
+        }
+        cache.put(key, new CachedResult(List.copyOf(result), now + cacheTtlMs));
+        return result;
+    }
+
+    private List<TripAvailabilityDTO> loadByDate(LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.of(2000, 1, 1);
+        LocalDate end = to != null ? to : LocalDate.of(9999, 12, 31);
+        return toAvailability(tripRepository.findAvailabilityBetween(start, end));
+    }
+
+    private List<TripAvailabilityDTO> loadByIds(TreeSet<Long> tripIds) {
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> all = new ArrayList<>(tripIds);
+        for (int i = 0; i < all.size(); i += IN_CHUNK) {
+            rows.addAll(tripRepository.findAvailabilityByIds(all.subList(i, Math.min(all.size(), i + IN_CHUNK))));
+        }
+        return toAvailability(rows);
+    }
+
+    // rows: [tripId, date, capacity, heldSeats, confirmedSeats]
+    private List<TripAvailabilityDTO> toAvailability(List<Object[]> rows) {
+        List<Long> withoutCounters = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[3] == null) {
+                withoutCounters.add((Long) row[0]);
+            }
+        }
+        Map<Long, int[]> fromBookings = withoutCounters.isEmpty() ? Map.of() : sumFromBookings(withoutCounters);
+
+        List<TripAvailabilityDTO> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long tripId = (Long) row[0];
+            int capacity = toInt(row[2]);
+            int held;
+            int confirmed;
+            if (row[3] != null) {
+                held = toInt(row[3]);
+                confirmed = toInt(row[4]);
+            } else {
+                int[] seats = fromBookings.getOrDefault(tripId, new int[2]);
+                held = seats[0];
+                confirmed = seats[1];
+            }
+            result.add(new TripAvailabilityDTO(tripId, (LocalDate) row[1], capacity, confirmed, held,
+                    Math.max(0, capacity - held - confirmed)));
+        }
+        return result;
+    }
+
+    private Map<Long, int[]> sumFromBookings(List<Long> tripIds) {
+        Map<Long, int[]> seats = new HashMap<>();
+        for (int i = 0; i < tripIds.size(); i += IN_CHUNK) {
+            for (Object[] row : bookingRepository.sumSeatsByTrips(tripIds.subList(i, Math.min(tripIds.size(), i + IN_CHUNK)))) {
+                seats.put((Long) row[0], new int[]{toInt(row[1]), toInt(row[2])});
+            }
+        }
+        return seats;
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
@@ -0,0 +1,493 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.observer.BookingEventPublisher;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import com.boatsafari.managementsystem.strategy.PaymentResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Cancels a whole trip at once (e.g. bad weather).
+ *
+ * All active bookings of the trip are cancelled with one UPDATE in one transaction, together with the
+ * trip itself, its seat counters and their payments: captured ones become REFUND_PENDING, pay-on-arrival
+ * ones CANCELLED. Refunds are then sent to the payment providers in parallel, at most refunds-per-second
+ * and max-concurrent-refunds at a time, each payment's outcome written as soon as it is known, and
+ * customers are notified in batches. The work runs in the background; callers poll the job's progress.
+ * Before a refund goes out its payment is claimed in the database (REFUND_PENDING -> REFUND_SENDING), so
+ * one sender on one node sends it, and the payment id goes along as the provider's idempotency key.
+ * resumeRefunds() picks up REFUND_PENDING payments left behind by a restart (or by a card charge that
+ * arrived after its booking was cancelled) and settles stale REFUND_SENDING ones with the provider.
+ */
+@Service
+public class TripCancellationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TripCancellationService.class);
+
+    // SQL Server allows ~2100 parameters per statement
+    private static final int IN_CHUNK = 1000;
+    private static final int REFUND_ATTEMPTS = 3;
+    private static final long FINISHED_JOB_TTL_MS = 24 * 60 * 60 * 1000L;
+    private static final String REFUND_PENDING = "REFUND_PENDING";
+    private static final String REFUND_SENDING = "REFUND_SENDING";
+
+    public enum JobStatus { RUNNING, REFUNDING, COMPLETED, FAILED }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripInventoryService tripInventoryService;
+
+    @Autowired
+    private TripCatalog tripCatalog;
+
+    @Autowired
+    private PaymentProcessingService paymentProcessingService;
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private BookingEventPublisher eventPublisher;
+
+    @Value("${app.trips.cancellation.refunds-per-second:20}")
+    private double refundsPerSecond;
+
+    @Value("${app.trips.cancellation.max-concurrent-refunds:16}")
+    private int maxConcurrentRefunds;
+
+    @Value("${app.trips.cancellation.notify-batch-size:50}")
+    private int notifyBatchSize;
+
+    @Value("${app.trips.cancellation.refund-lease-ms:600000}")
+    private long refundLeaseMs;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final Map<String, Progress> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, Progress> runningByTrip = new ConcurrentHashMap<>();
+
+    // A refund owed: what the provider needs to send it
+    private record Refund(Long paymentId, String method, double amount, String email) {
+    }
+
+    /**
+     * Progress of a cancellation job, returned to the client while it runs
+     */
+    public static final class Progress {
+        private final String jobId = UUID.randomUUID().toString();
+        private final Long tripId;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile JobStatus status = JobStatus.RUNNING;
+        private volatile String error;
+        private volatile int bookingsCancelled;
+        private volatile int refundsQueued;
+        private final AtomicInteger refunded = new AtomicInteger();
+        private final AtomicInteger refundsFailed = new AtomicInteger();
+        private final AtomicInteger refundsUnknown = new AtomicInteger();
+        private final AtomicInteger paymentsCancelled = new AtomicInteger();
+        private final AtomicInteger notified = new AtomicInteger();
+
+        Progress(Long tripId) {
+            this.tripId = tripId;
+        }
+
+        public String getJobId() { return jobId; }
+        public Long getTripId() { return tripId; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public JobStatus getStatus() { return status; }
+        public String getError() { return error; }
+        public int getBookingsCancelled() { return bookingsCancelled; }
+        public int getRefundsQueued() { return refundsQueued; }
+        public int getRefunded() { return refunded.get(); }
+        public int getRefundsFailed() { return refundsFailed.get(); }
+        public int getRefundsUnknown() { return refundsUnknown.get(); }
+        public int getPaymentsCancelled() { return paymentsCancelled.get(); }
+        public int getNotified() { return notified.get(); }
+
+        boolean isFinished() {
+            return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+        }
+    }
+
+    public TripCancellationService(PlatformTransactionManager transactionManager,
+                                   @Value("${app.trips.cancellation.workers:2}") int workerCount) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), r -> {
+            Thread t = new Thread(r, "trip-cancellation-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Start cancelling a trip in the background. Asking again while it runs returns the running job.
+     * @throws IllegalArgumentException when the trip does not exist
+     */
+    public Progress cancelTrip(Long tripId) {
+        if (!tripRepository.existsById(tripId)) {
+            throw new IllegalArgumentException("Trip not found with id: " + tripId);
+        }
+        Progress progress = new Progress(tripId);
+        Progress running = runningByTrip.putIfAbsent(tripId, progress);
+        if (running != null) {
+            return running;
+        }
+        purgeFinished();
+        jobs.put(progress.jobId, progress);
+        workers.execute(() -> run(progress));
+        return progress;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the job is unknown (or finished long ago)
+     */
+    public Progress getProgress(String jobId) {
+        Progress progress = jobs.get(jobId);
+        if (progress == null) {
+            throw new IllegalArgumentException("Cancellation job not found: " + jobId);
+        }
+        return progress;
+    }
+
+    private void run(Progress progress) {
+        Long tripId = progress.tripId;
+        try {
+            List<Booking> cancelled = new ArrayList<>();
+            List<String> oldStatuses = new ArrayList<>();
+            List<Refund> refunds = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(tx -> cancelBookings(tripId, cancelled, oldStatuses, refunds, progress));
+            paymentStatsService.markStale();
+            progress.bookingsCancelled = cancelled.size();
+            log.info("Trip {} cancelled: {} bookings", tripId, cancelled.size());
+
+            if (!eventPublisher.isOutboxMode()) {
+                notifyInBatches(cancelled, oldStatuses, progress);
+            } else {
+                progress.notified.set(cancelled.size()); // handed to OutboxRelay with the cancellation itself
+            }
+            progress.status = JobStatus.REFUNDING;
+            sendRefunds(refunds, progress);
+            progress.status = JobStatus.COMPLETED;
+            log.info("Trip {} cancellation done: {} refunded, {} refunds failed, {} pending payments cancelled",
+                    tripId, progress.getRefunded(), progress.getRefundsFailed(), progress.getPaymentsCancelled());
+        } catch (Exception e) {
+            log.error("Trip {} cancellation failed: {}", tripId, e.getMessage(), e);
+            progress.error = e.getMessage();
+            progress.status = JobStatus.FAILED;
+        } finally {
+            progress.finishedAt = LocalDateTime.now();
+            runningByTrip.remove(tripId, progress);
+        }
+    }
+
+    // One transaction: lock the bookings, cancel them in one statement, cancel the trip, fix the counters,
+    // and record what happens to their payments so a crash after the commit cannot lose a refund
+    private void cancelBookings(Long tripId, List<Booking> cancelled, List<String> oldStatuses,
+                                List<Refund> refunds, Progress progress) {
+        List<Booking> active = bookingRepository.lockActiveByTrip(tripId);
+        int updated = bookingRepository.cancelActiveByTrip(tripId);
+        if (updated != active.size()) {
+            // Cannot happen while the rows are locked, but the counters are re-synced below anyway
+            log.warn("Trip {}: locked {} active bookings but cancelled {}", tripId, active.size(), updated);
+        }
+        for (Booking booking : active) {
+            oldStatuses.add(booking.getStatus());
+            booking.setStatus("CANCELLED"); // detached copy, only used for events and refunds
+            cancelled.add(booking);
+        }
+        settlePayments(cancelled, refunds, progress);
+
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new IllegalArgumentException("Trip not found with id: " + tripId));
+        trip.setStatus("CANCELLED");
+        tripRepository.save(trip);
+        tripCatalog.invalidate();
+        tripInventoryService.resync(tripId);
+
+        if (eventPublisher.isOutboxMode()) {
+            eventPublisher.bookingsStatusChanged(cancelled, oldStatuses, "CANCELLED");
+        }
+    }
+
+    private void notifyInBatches(List<Booking> cancelled, List<String> oldStatuses, Progress progress) {
+        int batchSize = Math.max(1, notifyBatchSize);
+        for (int i = 0; i < cancelled.size(); i += batchSize) {
+            int end = Math.min(cancelled.size(), i + batchSize);
+            eventPublisher.bookingsStatusChanged(cancelled.subList(i, end), oldStatuses.subList(i, end), "CANCELLED");
+            progress.notified.addAndGet(end - i);
+        }
+    }
+
+    // Captured payments become REFUND_PENDING, pay-on-arrival ones CANCELLED, in bulk
+    private void settlePayments(List<Booking> cancelled, List<Refund> refunds, Progress progress) {
+        List<Long> refundPending = new ArrayList<>();
+        List<Long> pendingCancelled = new ArrayList<>();
+
+        for (Booking booking : cancelled) {
+            Payment payment = booking.getPayment();
+            if (payment == null || payment.getStatus() == null) {
+                continue;
+            }
+            if (PaymentStateMachine.isPaid(payment.getStatus())) {
+                refundPending.add(payment.getPaymentId());
+                refunds.add(new Refund(payment.getPaymentId(), payment.getPaymentMethod(), payment.getAmount(),
+                        booking.getEmail()));
+                payment.setStatus(REFUND_PENDING);
+            } else if ("PENDING".equalsIgnoreCase(payment.getStatus())) {
+                pendingCancelled.add(payment.getPaymentId());
+                payment.setStatus("CANCELLED");
+            }
+        }
+        updatePaymentStatus(refundPending, REFUND_PENDING);
+        updatePaymentStatus(pendingCancelled, "CANCELLED");
+        progress.refundsQueued = refundPending.size();
+        progress.paymentsCancelled.set(pendingCancelled.size());
+    }
+
+    /**
+     * Settle refunds left in REFUND_SENDING longer than the lease (their sender died, or lost the answer) by
+     * asking the provider, then send the refunds still owed (REFUND_PENDING), e.g. after a restart or for a
+     * card charge that arrived after its booking was cancelled. Safe to run on every node at once.
+     * @return number of refunds sent to the provider
+     */
+    @Scheduled(fixedDelayString = "${app.trips.cancellation.refund-resume-interval-ms:300000}",
+               initialDelayString = "${app.trips.cancellation.refund-resume-interval-ms:300000}")
+    public int resumeRefunds() throws InterruptedException {
+        int reconciled = reconcileStaleRefunds();
+        Progress progress = new Progress(null);
+        long afterId = 0;
+        List<Object[]> chunk;
+        do {
+            chunk = paymentRepository.findRefundPendingChunk(afterId, PageRequest.of(0, IN_CHUNK));
+            List<Refund> refunds = new ArrayList<>(chunk.size());
+            for (Object[] row : chunk) {
+                refunds.add(new Refund((Long) row[0], (String) row[1], ((Number) row[2]).doubleValue(), (String) row[3]));
+            }
+            sendRefunds(refunds, progress);
+            if (!chunk.isEmpty()) {
+                afterId = (Long) chunk.get(chunk.size() - 1)[0];
+            }
+        } while (chunk.size() == IN_CHUNK);
+
+        int sent = progress.getRefunded() + progress.getRefundsFailed() + progress.getRefundsUnknown();
+        if (sent > 0 || reconciled > 0) {
+            log.info("Resumed refunds: {} stale ones settled, {} refunded, {} failed, {} without answer",
+                    reconciled, progress.getRefunded(), progress.getRefundsFailed(), progress.getRefundsUnknown());
+        }
+        return sent;
+    }
+
+    // REFUND_SENDING past the lease: REFUNDED when the provider made the refund, back to REFUND_PENDING
+    // when it has none. Never resent blindly; the provider's idempotency key makes a resend safe anyway.
+    private int reconcileStaleRefunds() {
+        LocalDateTime sentBefore = LocalDateTime.now().minusNanos(refundLeaseMs * 1_000_000);
+        int settled = 0;
+        long afterId = 0;
+        List<Object[]> chunk;
+        do {
+            chunk = paymentRepository.findStaleRefundChunk(sentBefore, afterId, PageRequest.of(0, IN_CHUNK));
+            for (Object[] row : chunk) {
+                Long paymentId = (Long) row[0];
+                afterId = paymentId;
+                PaymentResult found;
+                try {
+                    found = paymentProcessingService.findRefundAsync(providerMethod((String) row[1]),
+                            String.valueOf(paymentId)).join();
+                } catch (Exception e) {
+                    log.warn("Could not look up the refund of payment {}: {}", paymentId, e.getMessage());
+                    continue;
+                }
+                if (found == null) {
+                    log.warn("Refund of payment {} is stuck in REFUND_SENDING and its provider cannot be asked - "
+                            + "check it with the provider", paymentId);
+                    continue;
+                }
+                String status = found.isSuccess() ? "REFUNDED" : REFUND_PENDING;
+                Integer updated = transactionTemplate.execute(tx ->
+                        paymentRepository.settleStaleRefund(paymentId, sentBefore, status));
+                if (updated != null && updated > 0) {
+                    settled++;
+                }
+            }
+        } while (chunk.size() == IN_CHUNK);
+        if (settled > 0) {
+            paymentStatsService.markStale();
+        }
+        return settled;
+    }
+
+    // Rate-limited and bounded; outcomes are written as they come in, on this thread
+    private void sendRefunds(List<Refund> refunds, Progress progress) throws InterruptedException {
+        Queue<Long> refunded = new ConcurrentLinkedQueue<>();
+        Queue<Long> refundFailed = new ConcurrentLinkedQueue<>();
+        RateLimiter rateLimiter = new RateLimiter(refundsPerSecond);
+        Semaphore concurrency = new Semaphore(Math.max(1, maxConcurrentRefunds));
+        for (Refund refund : refunds) {
+            rateLimiter.acquire();
+            concurrency.acquire();
+            recordRefunds(refunded, refundFailed);
+            if (!claim(refund.paymentId())) {
+                concurrency.release(); // refunded already, or being sent by another job or node
+                continue;
+            }
+            refund(refund, 1).whenComplete((ok, error) -> {
+                if (error != null) {
+                    // Outcome unknown: stays REFUND_SENDING until reconcileStaleRefunds() asks the provider
+                    progress.refundsUnknown.incrementAndGet();
+                } else if (ok) {
+                    refunded.add(refund.paymentId());
+                    progress.refunded.incrementAndGet();
+                } else {
+                    refundFailed.add(refund.paymentId());
+                    progress.refundsFailed.incrementAndGet();
+                }
+                concurrency.release();
+            });
+        }
+        // Wait for the refunds still in flight
+        concurrency.acquire(Math.max(1, maxConcurrentRefunds));
+        recordRefunds(refunded, refundFailed);
+    }
+
+    // REFUND_PENDING -> REFUND_SENDING in the database; only one sender on any node gets the row
+    private boolean claim(Long paymentId) {
+        Integer claimed = transactionTemplate.execute(tx -> paymentRepository.claimRefund(paymentId, LocalDateTime.now()));
+        return claimed != null && claimed > 0;
+    }
+
+    private void recordRefunds(Queue<Long> refunded, Queue<Long> refundFailed) {
+        List<Long> ok = drain(refunded);
+        List<Long> failed = drain(refundFailed);
+        if (ok.isEmpty() && failed.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (!ok.isEmpty()) {
+                    paymentRepository.updateStatusIf(ok, REFUND_SENDING, "REFUNDED");
+                }
+                if (!failed.isEmpty()) {
+                    paymentRepository.updateStatusIf(failed, REFUND_SENDING, "REFUND_FAILED");
+                }
+            });
+            paymentStatsService.markStale();
+        } catch (Exception e) {
+            // They stay REFUND_SENDING; reconcileStaleRefunds() settles them from the provider's records
+            log.error("Could not record the outcome of refunds {} / {}: {}", ok, failed, e.getMessage());
+        }
+    }
+
+    private static List<Long> drain(Queue<Long> queue) {
+        List<Long> ids = new ArrayList<>();
+        for (Long id; (id = queue.poll()) != null; ) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    // true when refunded, false when declined (final); completes exceptionally when the provider never
+    // answered after the retries. Every attempt carries the payment id as the provider's idempotency key.
+    private CompletableFuture<Boolean> refund(Refund refund, int attempt) {
+        return paymentProcessingService
+                .refundAsync(providerMethod(refund.method()), BigDecimal.valueOf(refund.amount()), refund.email(),
+                        String.valueOf(refund.paymentId()))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        if (!result.isSuccess()) {
+                            log.warn("Refund of payment {} declined: {}", refund.paymentId(), result.getMessage());
+                        }
+                        return CompletableFuture.completedFuture(result.isSuccess());
+                    }
+                    if (attempt >= REFUND_ATTEMPTS) {
+                        log.warn("Refund of payment {} unanswered after {} attempts: {}",
+                                refund.paymentId(), attempt, error.getMessage());
+                        return CompletableFuture.<Boolean>failedFuture(error);
+                    }
+                    return CompletableFuture
+                            .supplyAsync(() -> null, CompletableFuture.delayedExecutor(
+                                    200L << attempt, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> refund(refund, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private static String providerMethod(String paymentMethod) {
+        return "CARD".equalsIgnoreCase(paymentMethod) ? "CREDIT_CARD" : paymentMethod;
+    }
+
+    private void updatePaymentStatus(List<Long> paymentIds, String status) {
+        for (int i = 0; i < paymentIds.size(); i += IN_CHUNK) {
+            paymentRepository.updateStatus(paymentIds.subList(i, Math.min(paymentIds.size(), i + IN_CHUNK)), status);
+        }
+    }
+
+    private void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(FINISHED_JOB_TTL_MS * 1_000_000);
+        jobs.values().removeIf(p -> p.isFinished() && p.finishedAt.isBefore(cutoff));
+    }
+
+    // Spaces permits evenly: at most permitsPerSecond calls to acquire() return per second
+    private static final class RateLimiter {
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (1_000_000_000L / permitsPerSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            long now = System.nanoTime();
+            long wait = nextFreeNanos - now;
+            nextFreeNanos = Math.max(now, nextFreeNanos) + intervalNanos;
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The public trip list (GET /api/trips) as one pre-serialized JSON payload with a strong ETag.
+ * Built from the database on first use and again after a trip write (invalidate()), so anonymous
+ * browsing is served from memory. Boat and guide details are embedded in the payload; edits to
+ * those outside the trip and boat services show up after app.trip-catalog.max-age-ms.
+ */
+@Service
+public class TripCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(TripCatalog.class);
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.trip-catalog.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot current;
+
+    /**
+     * @param etag quoted strong ETag (a hash of the JSON)
+     */
+    public record Snapshot(long version, byte[] json, String etag, long builtAtMillis) {
+    }
+
+    public Snapshot get() {
+        Snapshot snapshot = current;
+        if (isFresh(snapshot)) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current;
+            if (isFresh(snapshot)) {
+                return snapshot;
+            }
+            // Read the version first: a write during the load leaves this snapshot outdated, so the next call reloads
+            long v = version.get();
+            List<Trip> trips = tripRepository.findAll();
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(trips);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize the trip catalog", e);
+            }
+            snapshot = new Snapshot(v, json, etagOf(json), System.currentTimeMillis());
+            current = snapshot;
+            log.debug("Trip catalog rebuilt: {} trips, {} bytes, version {}", trips.size(), json.length, v);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Trips changed: rebuild on the next read, and again once the current transaction commits
+     * (a read before the commit still sees the old rows)
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null && snapshot.version() == version.get()
+                && System.currentTimeMillis() - snapshot.builtAtMillis() < maxAgeMs;
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
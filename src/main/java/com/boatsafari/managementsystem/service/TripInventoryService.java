@@ -0,0 +1,209 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.TripInventory;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.TripInventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Keeps the per-trip seat counters (trip_inventory) in step with booking statuses.
+ * Every change is a single conditional UPDATE, so concurrent bookings can never oversell a trip.
+ */
+@Service
+public class TripInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TripInventoryService.class);
+
+    private enum SeatBucket { NONE, HELD, CONFIRMED }
+
+    @Autowired
+    private TripInventoryRepository tripInventoryRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    /**
+     * Hold seats for a new provisional booking.
+     * @throws IllegalArgumentException when the trip does not have enough free seats
+     */
+    @Transactional
+    public void holdSeats(Trip trip, int seats) {
+        if (tripInventoryRepository.tryHold(trip.getTripId(), seats) == 1) {
+            return;
+        }
+        // Either the counters do not exist yet or the trip is full - create them and try once more
+        ensureInventory(trip.getTripId());
+        if (tripInventoryRepository.tryHold(trip.getTripId(), seats) == 1) {
+            return;
+        }
+        throw new IllegalArgumentException("Not enough seats available. Available: " + getAvailableSeats(trip));
+    }
+
+    /**
+     * Move a booking's seats between the held/confirmed counters after its status changed.
+     * @throws IllegalStateException when a cancelled booking is reinstated on a full trip
+     */
+    @Transactional
+    public void applyStatusChange(Booking booking, String oldStatus, String newStatus) {
+        if (booking.getTrip() == null) {
+            return;
+        }
+        Long tripId = booking.getTrip().getTripId();
+        int seats = booking.getPassengers();
+        SeatBucket from = bucketOf(oldStatus);
+        SeatBucket to = bucketOf(newStatus);
+        if (from == to) {
+            return;
+        }
+
+        int updated;
+        if (from == SeatBucket.HELD && to == SeatBucket.CONFIRMED) {
+            updated = tripInventoryRepository.promoteHeld(tripId, seats);
+        } else if (from == SeatBucket.HELD && to == SeatBucket.NONE) {
+            updated = tripInventoryRepository.releaseHeld(tripId, seats);
+        } else if (from == SeatBucket.CONFIRMED && to == SeatBucket.NONE) {
+            updated = tripInventoryRepository.releaseConfirmed(tripId, seats);
+        } else if (from == SeatBucket.NONE) {
+            ensureInventory(tripId);
+            updated = to == SeatBucket.HELD
+                    ? tripInventoryRepository.tryHold(tripId, seats)
+                    : tripInventoryRepository.tryConfirm(tripId, seats);
+            if (updated == 0) {
+                throw new IllegalStateException("Not enough seats available to reinstate booking " + booking.getBookingId());
+            }
+        } else {
+            // CONFIRMED -> HELD is not a normal transition; rebuild the counters from the bookings table
+            updated = 0;
+        }
+
+        if (updated == 0) {
+            log.warn("Trip inventory out of step for trip {} ({} -> {}), re-syncing", tripId, oldStatus, newStatus);
+            resync(tripId);
+        }
+    }
+
+    /**
+     * Give back held seats for a trip in one statement (e.g. expired holds).
+     */
+    @Transactional
+    public void releaseHeldSeats(Long tripId, int seats) {
+        if (seats <= 0) {
+            return;
+        }
+        if (tripInventoryRepository.releaseHeld(tripId, seats) == 0) {
+            log.warn("Trip inventory out of step for trip {} while releasing {} held seats, re-syncing", tripId, seats);
+            resync(tripId);
+        }
+    }
+
+    /**
+     * Rebuild the counters of a trip from its bookings. Used after free-form admin edits.
+     */
+    @Transactional
+    public void resync(Long tripId) {
+        int[] seats = countSeatsFromBookings(tripId);
+        if (tripInventoryRepository.insertIfAbsent(tripId, seats[0], seats[1]) == 0) {
+            tripInventoryRepository.overwrite(tripId, seats[0], seats[1]);
+        }
+        log.info("Trip inventory re-synced: tripId={}, held={}, confirmed={}", tripId, seats[0], seats[1]);
+    }
+
+    public int getAvailableSeats(Trip trip) {
+        return tripInventoryRepository.findById(trip.getTripId())
+                .map(i -> Math.max(0, trip.getCapacity() - i.getHeldSeats() - i.getConfirmedSeats()))
+                .orElseGet(() -> {
+                    int[] seats = countSeatsFromBookings(trip.getTripId());
+                    return Math.max(0, trip.getCapacity() - seats[0] - seats[1]);
+                });
+    }
+
+    /**
+     * Current counters for a trip, creating them from the bookings table if needed
+     */
+    @Transactional
+    public TripInventory getInventory(Long tripId) {
+        ensureInventory(tripId);
+        return tripInventoryRepository.findById(tripId)
+                .orElseThrow(() -> new IllegalStateException("Trip inventory missing for trip " + tripId));
+    }
+
+    /**
+     * Apply net seat changes accumulated by the booking engine in one statement.
+     * @return false when the change would push the trip over capacity or below zero
+     */
+    @Transactional
+    public boolean applyDelta(Long tripId, int heldDelta, int confirmedDelta) {
+        if (heldDelta == 0 && confirmedDelta == 0) {
+            return true;
+        }
+        return tripInventoryRepository.applyDelta(tripId, heldDelta, confirmedDelta) == 1;
+    }
+
+    @Transactional
+    public void deleteInventory(Long tripId) {
+        if (tripInventoryRepository.existsById(tripId)) {
+            tripInventoryRepository.deleteById(tripId);
+        }
+    }
+
+    private void ensureInventory(Long tripId) {
+        if (tripInventoryRepository.existsById(tripId)) {
+            return;
+        }
+        int[] seats = countSeatsFromBookings(tripId);
+        if (tripInventoryRepository.insertIfAbsent(tripId, seats[0], seats[1]) == 1) {
+            log.info("Trip inventory created: tripId={}, held={}, confirmed={}", tripId, seats[0], seats[1]);
+        }
+    }
+
+    // [held, confirmed] computed with one aggregate query
+    private int[] countSeatsFromBookings(Long tripId) {
+        List<Object[]> rows = bookingRepository.sumSeatsByTrip(tripId);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return new int[]{0, 0};
+        }
+        Object[] row = rows.get(0);
+        return new int[]{toInt(row[0]), toInt(row[1])};
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    /**
+     * Net [held, confirmed] seat change caused by a booking moving from oldStatus to newStatus
+     */
+    static int[] seatDeltas(String oldStatus, String newStatus, int seats) {
+        int[] delta = new int[2];
+        SeatBucket from = bucketOf(oldStatus);
+        SeatBucket to = bucketOf(newStatus);
+        if (from == SeatBucket.HELD) delta[0] -= seats;
+        if (from == SeatBucket.CONFIRMED) delta[1] -= seats;
+        if (to == SeatBucket.HELD) delta[0] += seats;
+        if (to == SeatBucket.CONFIRMED) delta[1] += seats;
+        return delta;
+    }
+
+    private static SeatBucket bucketOf(String status) {
+        if (status == null) {
+            return SeatBucket.NONE;
+        }
+        switch (status.toUpperCase()) {
+            case "PROVISIONAL":
+                return SeatBucket.HELD;
+            case "CONFIRMED":
+            case "COMPLETED":
+                return SeatBucket.CONFIRMED;
+            default:
+                return SeatBucket.NONE;
+        }
+    }
+}
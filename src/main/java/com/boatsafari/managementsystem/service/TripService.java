@@ -17,6 +17,12 @@ public class TripService {
     @Autowired
     private TripRepository tripRepository;
 
+    @Autowired
+    private TripInventoryService tripInventoryService;
+
+    @Autowired
+    private TripCatalog tripCatalog;
+
     public List<Trip> getAllTrips() {
         return tripRepository.findAll();
     }
@@ -41,12 +47,16 @@ public class TripService {
      * @return The updated trip
      */
     public Trip updateTrip(Trip trip) {
-        return tripRepository.save(trip);
+        Trip saved = tripRepository.save(trip);
+        tripCatalog.invalidate();
+        return saved;
     }
 
     public Trip createTrip(Trip trip) {
         // Optional: guard against duplicates on same day/time/route
-        return tripRepository.save(trip);
+        Trip saved = tripRepository.save(trip);
+        tripCatalog.invalidate();
+        return saved;
     }
 
     // Convenience creator with primitives (used by seeder)
@@ -58,7 +68,9 @@ public class TripService {
         t.setCapacity(capacity);
         t.setPrice(price);
         t.setRoute(route);
-        return tripRepository.save(t);
+        Trip saved = tripRepository.save(t);
+        tripCatalog.invalidate();
+        return saved;
     }
 
     public Trip updateTrip(Long id, Trip tripDetails) {
@@ -73,7 +85,12 @@ public class TripService {
             existingTrip.setRoute(tripDetails.getRoute());
             existingTrip.setBoat(tripDetails.getBoat());
             existingTrip.setGuide(tripDetails.getGuide());
-            return tripRepository.save(existingTrip);
+            if (tripDetails.getHighDemand() != null) {
+                existingTrip.setHighDemand(tripDetails.getHighDemand());
+            }
+            Trip saved = tripRepository.save(existingTrip);
+            tripCatalog.invalidate();
+            return saved;
         }
         return null;
     }
@@ -81,6 +98,8 @@ public class TripService {
     public boolean deleteTrip(Long id) {
         if (tripRepository.existsById(id)) {
             tripRepository.deleteById(id);
+            tripInventoryService.deleteInventory(id);
+            tripCatalog.invalidate();
             return true;
         }
         return false;
@@ -2,6 +2,7 @@ package com.boatsafari.managementsystem.service;
 
 import com.boatsafari.managementsystem.model.*;
 import com.boatsafari.managementsystem.repository.UserRepository;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,9 @@ public class UserService {
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CurrentUserUtil currentUserUtil; // cached current user must not outlive a change
+
     public User register(User user) {
         // Create a Customer instance instead of generic User
         Customer customer = new Customer();
@@ -65,7 +69,9 @@ public class UserService {
 
     public User updateUser(User user) {
         // Validate and update (e.g., check if exists)
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        currentUserUtil.invalidate(saved.getUserId());
+        return saved;
     }
 
     /**
@@ -108,6 +114,7 @@ public class UserService {
 
         // Delete the existing user first
         System.out.println("Deleting existing user...");
+        currentUserUtil.invalidate(userId);
         userRepository.delete(existingUser);
         userRepository.flush(); // Ensure deletion is committed
         System.out.println("User deleted successfully");
@@ -174,6 +181,7 @@ public class UserService {
             User user = userOpt.get();
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            currentUserUtil.invalidate(userId);
         } else {
             throw new RuntimeException("User not found with ID: " + userId);
         }
@@ -181,6 +189,7 @@ public class UserService {
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        currentUserUtil.invalidate(id);
     }
 
     /**
@@ -245,7 +254,9 @@ public class UserService {
 
         // Save the user with the new type/role
         try {
-            return userRepository.save(updatedUser);
+            User saved = userRepository.save(updatedUser);
+            currentUserUtil.invalidate(userId);
+            return saved;
         } catch (Exception e) {
             System.err.println("Error saving user with new role: " + e.getMessage());
             e.printStackTrace();
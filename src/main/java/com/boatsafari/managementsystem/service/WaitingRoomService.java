@@ -0,0 +1,270 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.repository.TripRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Virtual waiting room for high-demand trips.
+ *
+ * Customers take a ticket per trip and are admitted strictly in ticket order, at most
+ * app.waiting-room.max-active at a time per trip. Only admitted tickets may create a booking, so a
+ * release of a popular trip puts a fixed number of bookers on the database instead of everyone at once.
+ * An admitted ticket is freed when its booking succeeds or after admission-ttl; waiting tickets that
+ * stop polling are skipped so the line keeps moving.
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitingRoomService.class);
+
+    public enum TicketStatus { WAITING, ADMITTED }
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Value("${app.waiting-room.max-active:20}")
+    private int maxActive;
+
+    @Value("${app.waiting-room.max-waiting:10000}")
+    private int maxWaiting;
+
+    @Value("${app.waiting-room.admission-ttl-ms:300000}")
+    private long admissionTtlMs;
+
+    @Value("${app.waiting-room.poll-timeout-ms:30000}")
+    private long pollTimeoutMs;
+
+    @Value("${app.waiting-room.flag-cache-ttl-ms:5000}")
+    private long flagCacheTtlMs;
+
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> highDemandFlags = new ConcurrentHashMap<>(); // tripId -> [flag, expiresAt]
+
+    /**
+     * Snapshot of a ticket returned to the client
+     */
+    public static final class TicketView {
+        private final String ticketId;
+        private final Long tripId;
+        private final TicketStatus status;
+        private final int position; // 0 once admitted
+        private final long admittedUntil;
+
+        TicketView(String ticketId, Long tripId, TicketStatus status, int position, long admittedUntil) {
+            this.ticketId = ticketId;
+            this.tripId = tripId;
+            this.status = status;
+            this.position = position;
+            this.admittedUntil = admittedUntil;
+        }
+
+        public String getTicketId() { return ticketId; }
+        public Long getTripId() { return tripId; }
+        public TicketStatus getStatus() { return status; }
+        public int getPosition() { return position; }
+        public long getAdmittedUntil() { return admittedUntil; }
+    }
+
+    private static final class Ticket {
+        final String id = UUID.randomUUID().toString();
+        final String owner;
+        final long seq;
+        long lastSeenAt;
+        long admittedUntil;
+
+        Ticket(String owner, long seq, long now) {
+            this.owner = owner;
+            this.seq = seq;
+            this.lastSeenAt = now;
+        }
+    }
+
+    private static final class Room {
+        long nextSeq;
+        final Deque<Ticket> waiting = new ArrayDeque<>();
+        final Map<String, Ticket> waitingById = new HashMap<>();
+        final Map<String, Ticket> admitted = new LinkedHashMap<>();
+    }
+
+    /**
+     * Whether bookings for this trip have to go through the waiting room (flag cached for a few seconds)
+     */
+    public boolean isHighDemand(Long tripId) {
+        if (tripId == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long[] cached = highDemandFlags.get(tripId);
+        if (cached != null && cached[1] > now) {
+            return cached[0] == 1;
+        }
+        boolean flag = tripRepository.findHighDemandById(tripId).orElse(false);
+        highDemandFlags.put(tripId, new long[]{flag ? 1 : 0, now + flagCacheTtlMs});
+        return flag;
+    }
+
+    /**
+     * Take a ticket for a trip. A customer asking again gets their existing ticket back.
+     * @throws IllegalStateException when the line is full
+     */
+    public TicketView join(Long tripId, String owner) {
+        while (true) {
+            Room room = rooms.computeIfAbsent(tripId, id -> new Room());
+            synchronized (room) {
+                if (rooms.get(tripId) != room) {
+                    continue; // removed by sweep() in the meantime
+                }
+                return join(tripId, room, owner);
+            }
+        }
+    }
+
+    private TicketView join(Long tripId, Room room, String owner) {
+        long now = System.currentTimeMillis();
+        expire(room, now);
+        for (Ticket t : room.admitted.values()) {
+            if (t.owner.equalsIgnoreCase(owner)) {
+                return view(tripId, room, t);
+            }
+        }
+        for (Ticket t : room.waiting) {
+            if (t.owner.equalsIgnoreCase(owner)) {
+                t.lastSeenAt = now;
+                return view(tripId, room, t);
+            }
+        }
+        if (room.waiting.size() >= maxWaiting) {
+            throw new IllegalStateException("The waiting room is full, please try again later");
+        }
+        Ticket ticket = new Ticket(owner, room.nextSeq++, now);
+        room.waiting.addLast(ticket);
+        room.waitingById.put(ticket.id, ticket);
+        admit(room, now);
+        return view(tripId, room, ticket);
+    }
+
+    /**
+     * Current status/position of a ticket; polling also keeps a waiting ticket alive.
+     * @throws IllegalArgumentException when the ticket is unknown or has expired
+     */
+    public TicketView poll(Long tripId, String ticketId, String owner) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            throw new IllegalArgumentException("Queue ticket not found or expired");
+        }
+        long now = System.currentTimeMillis();
+        synchronized (room) {
+            expire(room, now);
+            Ticket ticket = find(room, ticketId, owner);
+            if (room.waitingById.containsKey(ticketId)) {
+                ticket.lastSeenAt = now;
+            }
+            admit(room, now);
+            return view(tripId, room, ticket);
+        }
+    }
+
+    /**
+     * Whether this ticket may create a booking for the trip right now
+     */
+    public boolean isAdmitted(Long tripId, String ticketId, String owner) {
+        if (ticketId == null) {
+            return false;
+        }
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return false;
+        }
+        synchronized (room) {
+            Ticket ticket = room.admitted.get(ticketId);
+            return ticket != null && ticket.owner.equalsIgnoreCase(owner)
+                    && ticket.admittedUntil > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Free the slot of an admitted ticket (booking done) and let the next customer in
+     */
+    public void complete(Long tripId, String ticketId) {
+        Room room = rooms.get(tripId);
+        if (room == null || ticketId == null) {
+            return;
+        }
+        synchronized (room) {
+            if (room.admitted.remove(ticketId) != null) {
+                admit(room, System.currentTimeMillis());
+            }
+        }
+    }
+
+    // Rooms are not touched on every request, so move the lines along periodically too
+    @Scheduled(fixedDelayString = "${app.waiting-room.sweep-interval-ms:1000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        rooms.forEach((tripId, room) -> {
+            synchronized (room) {
+                expire(room, now);
+                admit(room, now);
+                if (room.waiting.isEmpty() && room.admitted.isEmpty()) {
+                    rooms.remove(tripId, room);
+                }
+            }
+        });
+    }
+
+    private void expire(Room room, long now) {
+        room.admitted.values().removeIf(t -> t.admittedUntil <= now);
+    }
+
+    // Admit in ticket order, skipping tickets whose owner stopped polling
+    private void admit(Room room, long now) {
+        while (room.admitted.size() < maxActive && !room.waiting.isEmpty()) {
+            Ticket next = room.waiting.pollFirst();
+            room.waitingById.remove(next.id);
+            if (now - next.lastSeenAt > pollTimeoutMs) {
+                log.debug("Waiting room: dropping abandoned ticket {}", next.id);
+                continue;
+            }
+            next.admittedUntil = now + admissionTtlMs;
+            room.admitted.put(next.id, next);
+        }
+    }
+
+    private Ticket find(Room room, String ticketId, String owner) {
+        Ticket ticket = room.admitted.get(ticketId);
+        if (ticket == null) {
+            ticket = room.waitingById.get(ticketId);
+        }
+        if (ticket == null || !ticket.owner.equalsIgnoreCase(owner)) {
+            throw new IllegalArgumentException("Queue ticket not found or expired");
+        }
+        return ticket;
+    }
+
+    private TicketView view(Long tripId, Room room, Ticket ticket) {
+        if (room.admitted.containsKey(ticket.id)) {
+            return new TicketView(ticket.id, tripId, TicketStatus.ADMITTED, 0, ticket.admittedUntil);
+        }
+        // Tickets ahead = waiting tickets with a lower sequence number
+        int position = 1;
+        Iterator<Ticket> it = room.waiting.iterator();
+        while (it.hasNext() && it.next().seq < ticket.seq) {
+            position++;
+        }
+        return new TicketView(ticket.id, tripId, TicketStatus.WAITING, position, 0);
+    }
+}
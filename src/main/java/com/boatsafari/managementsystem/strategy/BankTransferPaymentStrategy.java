@@ -1,8 +1,9 @@
 package com.boatsafari.managementsystem.strategy;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Concrete Strategy for Bank Transfer Payment
@@ -11,27 +12,46 @@ import java.util.UUID;
 @Component("bankTransferPayment")
 public class BankTransferPaymentStrategy implements PaymentStrategy {
     
+    // Fixed $5 fee for bank transfers
+    private static final FeeSchedule FEES = FeeSchedule.fixed(5.00);
+
+    private static final long PROVIDER_LATENCY_MS = 3000;
+    
+    @Autowired
+    private StubPaymentGateway gateway;
+    
     @Override
     public PaymentResult processPayment(BigDecimal amount, String customerEmail, String paymentDetails) {
+        return processPaymentAsync(amount, customerEmail, paymentDetails).join();
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> processPaymentAsync(BigDecimal amount, String customerEmail, String paymentDetails) {
         if (!validatePaymentDetails(paymentDetails)) {
-            return new PaymentResult(false, "Invalid bank account details", null, 0.0);
+            return CompletableFuture.completedFuture(new PaymentResult(false, "Invalid bank account details", null, 0.0));
         }
         
-        // Simulate bank transfer processing
-        try {
-            Thread.sleep(3000); // Bank transfers take longer
-            
-            String transactionId = "BT-" + UUID.randomUUID().toString().substring(0, 8);
-            double fee = getProcessingFee(amount);
-            
-            return new PaymentResult(true, 
+        // Bank transfers take longer (~3s), no thread waits for the answer
+        double fee = getProcessingFee(amount);
+        return gateway.charge("BT", PROVIDER_LATENCY_MS)
+            .thenApply(transactionId -> new PaymentResult(true, 
                 "Bank transfer initiated successfully", 
                 transactionId, 
-                fee);
-                
-        } catch (InterruptedException e) {
-            return new PaymentResult(false, "Bank transfer failed", null, 0.0);
-        }
+                fee));
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> refundAsync(BigDecimal amount, String customerEmail, String paymentReference) {
+        return gateway.refund("BT", paymentReference, PROVIDER_LATENCY_MS)
+            .thenApply(refundId -> new PaymentResult(true, "Bank transfer refund initiated", refundId, 0.0));
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> findRefundAsync(String paymentReference) {
+        return gateway.findRefund("BT", paymentReference, PROVIDER_LATENCY_MS)
+            .thenApply(refundId -> refundId != null
+                ? new PaymentResult(true, "Bank transfer refund found", refundId, 0.0)
+                : new PaymentResult(false, "No refund for " + paymentReference, null, 0.0));
     }
     
     @Override
@@ -48,7 +68,11 @@ public class BankTransferPaymentStrategy implements PaymentStrategy {
     
     @Override
     public double getProcessingFee(BigDecimal amount) {
-        // Fixed $5 fee for bank transfers
-        return 5.00;
+        return FEES.feeFor(amount.doubleValue());
+    }
+
+    @Override
+    public FeeSchedule getFeeSchedule() {
+        return FEES;
     }
 }
\ No newline at end of file
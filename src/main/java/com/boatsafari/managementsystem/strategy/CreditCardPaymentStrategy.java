@@ -1,8 +1,9 @@
 package com.boatsafari.managementsystem.strategy;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 /**
@@ -15,28 +16,46 @@ public class CreditCardPaymentStrategy implements PaymentStrategy {
     private static final Pattern CREDIT_CARD_PATTERN = 
         Pattern.compile("^[0-9]{13,19}$");
     
+    // 2.5% processing fee for credit cards
+    private static final FeeSchedule FEES = FeeSchedule.percentage(0.025);
+
+    private static final long PROVIDER_LATENCY_MS = 2000;
+    
+    @Autowired
+    private StubPaymentGateway gateway;
+    
     @Override
     public PaymentResult processPayment(BigDecimal amount, String customerEmail, String paymentDetails) {
+        return processPaymentAsync(amount, customerEmail, paymentDetails).join();
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> processPaymentAsync(BigDecimal amount, String customerEmail, String paymentDetails) {
         if (!validatePaymentDetails(paymentDetails)) {
-            return new PaymentResult(false, "Invalid credit card number", null, 0.0);
+            return CompletableFuture.completedFuture(new PaymentResult(false, "Invalid credit card number", null, 0.0));
         }
         
-        // Simulate credit card processing
-        try {
-            Thread.sleep(2000); // Simulate processing delay
-            
-            // Generate transaction ID
-            String transactionId = "CC-" + UUID.randomUUID().toString().substring(0, 8);
-            double fee = getProcessingFee(amount);
-            
-            return new PaymentResult(true, 
+        // Simulated card network round trip (~2s), no thread waits for the answer
+        double fee = getProcessingFee(amount);
+        return gateway.charge("CC", PROVIDER_LATENCY_MS)
+            .thenApply(transactionId -> new PaymentResult(true, 
                 "Credit card payment successful", 
                 transactionId, 
-                fee);
-                
-        } catch (InterruptedException e) {
-            return new PaymentResult(false, "Payment processing interrupted", null, 0.0);
-        }
+                fee));
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> refundAsync(BigDecimal amount, String customerEmail, String paymentReference) {
+        return gateway.refund("CC", paymentReference, PROVIDER_LATENCY_MS)
+            .thenApply(refundId -> new PaymentResult(true, "Credit card refund issued", refundId, 0.0));
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> findRefundAsync(String paymentReference) {
+        return gateway.findRefund("CC", paymentReference, PROVIDER_LATENCY_MS)
+            .thenApply(refundId -> refundId != null
+                ? new PaymentResult(true, "Credit card refund found", refundId, 0.0)
+                : new PaymentResult(false, "No refund for " + paymentReference, null, 0.0));
     }
     
     @Override
@@ -52,7 +71,11 @@ public class CreditCardPaymentStrategy implements PaymentStrategy {
     
     @Override
     public double getProcessingFee(BigDecimal amount) {
-        // 2.5% processing fee for credit cards
-        return amount.multiply(BigDecimal.valueOf(0.025)).doubleValue();
+        return FEES.feeFor(amount.doubleValue());
+    }
+
+    @Override
+    public FeeSchedule getFeeSchedule() {
+        return FEES;
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.boatsafari.managementsystem.strategy;
+
+/**
+ * Processing fee of a payment method as a percentage plus a fixed part: fee = amount * rate + fixed.
+ * Plain doubles so fee quotes for many amounts need no BigDecimal per amount.
+ */
+public final class FeeSchedule {
+
+    private final double rate;
+    private final double fixed;
+
+    private FeeSchedule(double rate, double fixed) {
+        this.rate = rate;
+        this.fixed = fixed;
+    }
+
+    public static FeeSchedule percentage(double rate) {
+        return new FeeSchedule(rate, 0.0);
+    }
+
+    public static FeeSchedule fixed(double fee) {
+        return new FeeSchedule(0.0, fee);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public double getFixed() {
+        return fixed;
+    }
+
+    public double feeFor(double amount) {
+        return amount * rate + fixed;
+    }
+}
@@ -1,8 +1,9 @@
 package com.boatsafari.managementsystem.strategy;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Concrete Strategy for PayPal Payment
@@ -11,27 +12,46 @@ import java.util.UUID;
 @Component("paypalPayment")
 public class PayPalPaymentStrategy implements PaymentStrategy {
     
+    // 3.0% processing fee for PayPal
+    private static final FeeSchedule FEES = FeeSchedule.percentage(0.030);
+
+    private static final long PROVIDER_LATENCY_MS = 1500;
+    
+    @Autowired
+    private StubPaymentGateway gateway;
+    
     @Override
     public PaymentResult processPayment(BigDecimal amount, String customerEmail, String paymentDetails) {
+        return processPaymentAsync(amount, customerEmail, paymentDetails).join();
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> processPaymentAsync(BigDecimal amount, String customerEmail, String paymentDetails) {
         if (!validatePaymentDetails(paymentDetails)) {
-            return new PaymentResult(false, "Invalid PayPal email", null, 0.0);
+            return CompletableFuture.completedFuture(new PaymentResult(false, "Invalid PayPal email", null, 0.0));
         }
         
-        // Simulate PayPal API call
-        try {
-            Thread.sleep(1500); // Simulate API delay
-            
-            String transactionId = "PP-" + UUID.randomUUID().toString().substring(0, 8);
-            double fee = getProcessingFee(amount);
-            
-            return new PaymentResult(true, 
+        // Simulated PayPal API call (~1.5s), no thread waits for the answer
+        double fee = getProcessingFee(amount);
+        return gateway.charge("PP", PROVIDER_LATENCY_MS)
+            .thenApply(transactionId -> new PaymentResult(true, 
                 "PayPal payment successful", 
                 transactionId, 
-                fee);
-                
-        } catch (InterruptedException e) {
-            return new PaymentResult(false, "PayPal processing failed", null, 0.0);
-        }
+                fee));
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> refundAsync(BigDecimal amount, String customerEmail, String paymentReference) {
+        return gateway.refund("PP", paymentReference, PROVIDER_LATENCY_MS)
+            .thenApply(refundId -> new PaymentResult(true, "PayPal refund issued", refundId, 0.0));
+    }
+    
+    @Override
+    public CompletableFuture<PaymentResult> findRefundAsync(String paymentReference) {
+        return gateway.findRefund("PP", paymentReference, PROVIDER_LATENCY_MS)
+            .thenApply(refundId -> refundId != null
+                ? new PaymentResult(true, "PayPal refund found", refundId, 0.0)
+                : new PaymentResult(false, "No refund for " + paymentReference, null, 0.0));
     }
     
     @Override
@@ -48,7 +68,11 @@ public class PayPalPaymentStrategy implements PaymentStrategy {
     
     @Override
     public double getProcessingFee(BigDecimal amount) {
-        // 3.0% processing fee for PayPal
-        return amount.multiply(BigDecimal.valueOf(0.030)).doubleValue();
+        return FEES.feeFor(amount.doubleValue());
+    }
+
+    @Override
+    public FeeSchedule getFeeSchedule() {
+        return FEES;
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.boatsafari.managementsystem.strategy;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Strategy Pattern Implementation for Payment Processing
@@ -11,4 +12,38 @@ public interface PaymentStrategy {
     boolean validatePaymentDetails(String paymentDetails);
     String getPaymentMethodName();
     double getProcessingFee(BigDecimal amount);
-}
\ No newline at end of file
+
+    /**
+     * Fee as rate + fixed part, for batch fee quotes. Strategies whose fee does not fit that shape
+     * return null and are quoted through getProcessingFee instead.
+     */
+    default FeeSchedule getFeeSchedule() {
+        return null;
+    }
+
+    /**
+     * Non-blocking variant: the future completes when the provider has answered.
+     * Strategies talking to a slow provider should override this instead of blocking in processPayment.
+     */
+    default CompletableFuture<PaymentResult> processPaymentAsync(BigDecimal amount, String customerEmail, String paymentDetails) {
+        return CompletableFuture.completedFuture(processPayment(amount, customerEmail, paymentDetails));
+    }
+
+    /**
+     * Give money back to the customer (e.g. a trip cancelled for weather). paymentReference is the
+     * provider's idempotency key: sending the same refund again must not pay out twice.
+     * The default refuses, for methods whose provider has no refund API.
+     */
+    default CompletableFuture<PaymentResult> refundAsync(BigDecimal amount, String customerEmail, String paymentReference) {
+        return CompletableFuture.completedFuture(new PaymentResult(false,
+            getPaymentMethodName() + " payments cannot be refunded automatically", null, 0.0));
+    }
+
+    /**
+     * Look up the refund sent earlier under paymentReference: a successful result when the provider
+     * made it, an unsuccessful one when it has none. The default completes with null (cannot tell).
+     */
+    default CompletableFuture<PaymentResult> findRefundAsync(String paymentReference) {
+        return CompletableFuture.completedFuture(null);
+    }
+}
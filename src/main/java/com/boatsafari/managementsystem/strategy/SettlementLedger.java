@@ -0,0 +1,107 @@
+package com.boatsafari.managementsystem.strategy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * The payment gateway's daily settlement ledger, read from local files
+ * (app.reconciliation.ledger-dir/settlement-YYYY-MM-DD.csv, header "payment_id,amount,status").
+ * Lines must be sorted by payment_id; they are read one at a time so a file of any size
+ * can be reconciled without loading it.
+ */
+@Component
+public class SettlementLedger {
+
+    @Value("${app.reconciliation.ledger-dir:gateway-ledger}")
+    private String ledgerDir;
+
+    public record Entry(long paymentId, double amount, String status) {}
+
+    public boolean exists(LocalDate day) {
+        return Files.isRegularFile(file(day));
+    }
+
+    /**
+     * Open the ledger of one day positioned after afterPaymentId
+     */
+    public Cursor open(LocalDate day, long afterPaymentId) throws IOException {
+        Cursor cursor = new Cursor(Files.newBufferedReader(file(day), StandardCharsets.UTF_8), file(day).toString());
+        while (cursor.peek() != null && cursor.peek().paymentId() <= afterPaymentId) {
+            cursor.next();
+        }
+        return cursor;
+    }
+
+    private Path file(LocalDate day) {
+        return Paths.get(ledgerDir, "settlement-" + day + ".csv");
+    }
+
+    /**
+     * Forward-only reader over a ledger file
+     */
+    public static final class Cursor implements Closeable {
+        private final BufferedReader reader;
+        private final String name;
+        private Entry next;
+        private long lastId = Long.MIN_VALUE;
+        private int lineNo;
+
+        Cursor(BufferedReader reader, String name) {
+            this.reader = reader;
+            this.name = name;
+            advance();
+        }
+
+        public Entry peek() {
+            return next;
+        }
+
+        public Entry next() {
+            Entry current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNo++;
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("payment_id")) {
+                        continue;
+                    }
+                    String[] cols = line.split(",");
+                    if (cols.length < 3) {
+                        throw new IllegalStateException(name + ":" + lineNo + ": expected payment_id,amount,status");
+                    }
+                    long id = Long.parseLong(cols[0].trim());
+                    if (id <= lastId) {
+                        throw new IllegalStateException(name + ":" + lineNo + ": ledger is not sorted by payment_id");
+                    }
+                    lastId = id;
+                    next = new Entry(id, Double.parseDouble(cols[1].trim()), cols[2].trim());
+                    return;
+                }
+                next = null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.boatsafari.managementsystem.strategy;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the external payment providers.
+ *
+ * A charge answers after the provider's usual latency, but the wait is a timer on a tiny scheduler
+ * instead of a sleeping thread, so thousands of payments can be in flight without tying up request
+ * threads. app.payments.gateway.failure-rate makes a share of the calls fail, to exercise the
+ * timeouts and circuit breakers in PaymentProcessingService.
+ *
+ * Refunds are idempotent like a real provider's: a refund sent again under the same idempotency key
+ * answers with the first refund's reference instead of paying out twice, and can be looked up later.
+ */
+@Component
+public class StubPaymentGateway {
+
+    @Value("${app.payments.gateway.failure-rate:0}")
+    private double failureRate;
+
+    @Value("${app.payments.gateway.latency-factor:1.0}")
+    private double latencyFactor;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "payment-gateway-stub");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Refund reference per prefix:idempotencyKey, and how many refund requests arrived per key
+    private final Map<String, String> refunds = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> refundRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Submit a charge; the future completes with the provider's transaction id
+     * (or exceptionally when the provider fails) after about latencyMs.
+     */
+    public CompletableFuture<String> charge(String transactionPrefix, long latencyMs) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        long delay = Math.max(0, Math.round(latencyMs * latencyFactor));
+        timer.schedule(() -> {
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                future.completeExceptionally(new IllegalStateException("Payment provider unavailable"));
+            } else {
+                future.complete(transactionPrefix + "-" + UUID.randomUUID().toString().substring(0, 8));
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * Refund (part of) an earlier charge; completes with the refund reference like charge().
+     * Sent again with the same idempotency key, it answers with the first refund's reference.
+     */
+    public CompletableFuture<String> refund(String transactionPrefix, String idempotencyKey, long latencyMs) {
+        String key = transactionPrefix + ":" + idempotencyKey;
+        refundRequests.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        String earlier = refunds.get(key);
+        if (earlier != null) {
+            return later(earlier, latencyMs);
+        }
+        return charge("RF-" + transactionPrefix, latencyMs).thenApply(reference -> {
+            String first = refunds.putIfAbsent(key, reference);
+            return first != null ? first : reference;
+        });
+    }
+
+    /**
+     * The reference of the refund made under this idempotency key, or null when there is none
+     */
+    public CompletableFuture<String> findRefund(String transactionPrefix, String idempotencyKey, long latencyMs) {
+        return later(refunds.get(transactionPrefix + ":" + idempotencyKey), latencyMs);
+    }
+
+    /**
+     * Number of refund requests that reached the provider under this idempotency key
+     */
+    public int refundRequests(String transactionPrefix, String idempotencyKey) {
+        AtomicInteger count = refundRequests.get(transactionPrefix + ":" + idempotencyKey);
+        return count != null ? count.get() : 0;
+    }
+
+    private <T> CompletableFuture<T> later(T value, long latencyMs) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        timer.schedule(() -> future.complete(value), Math.max(0, Math.round(latencyMs * latencyFactor)),
+                TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
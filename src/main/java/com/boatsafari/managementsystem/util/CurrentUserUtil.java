@@ -4,15 +4,53 @@ package com.boatsafari.managementsystem.util;
 import com.boatsafari.managementsystem.model.User;
 import com.boatsafari.managementsystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the logged-in user.
+ * The user is looked up at most once per request (request memo), and across requests it comes from a
+ * short-lived cache keyed by the userId carried in the JWT. UserService invalidates entries on change,
+ * and again after the change commits.
+ * The returned User is shared - read it, do not modify it.
+ */
 @Component
 public class CurrentUserUtil {
 
+    // Set by JwtAuthenticationFilter from the verified token
+    public static final String USER_ID_ATTRIBUTE = "jwt.userId";
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserUtil.class.getName() + ".user";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${app.current-user.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${app.current-user.cache-max-size:5000}")
+    private int cacheMaxSize;
+
+    private final Map<Long, CachedUser> cache = new ConcurrentHashMap<>();
+
+    private static final class CachedUser {
+        final User user;
+        final long expiresAtMillis;
+
+        CachedUser(User user, long expiresAtMillis) {
+            this.user = user;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
     public String getCurrentEmail() {
         if (SecurityContextHolder.getContext().getAuthentication() == null) return null;
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -24,10 +62,80 @@ public class CurrentUserUtil {
         if (email == null) {
             throw new IllegalArgumentException("Not authenticated. Please login again.");
         }
-        User user = userRepository.findByEmail(email);
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object memo = request.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (memo instanceof User && email.equalsIgnoreCase(((User) memo).getEmail())) {
+                return (User) memo;
+            }
+        }
+
+        User user = lookup(email, request);
         if (user == null) {
             throw new IllegalArgumentException("Account not found for: " + email + ". Please login again.");
         }
+        if (request != null) {
+            request.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
         return user;
     }
-}
\ No newline at end of file
+
+    /**
+     * Drop a user from the cache after it was changed or deleted: now, and again once the current
+     * transaction commits (a request in between still reads the old row and would cache it again)
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        cache.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(userId);
+                }
+            });
+        }
+    }
+
+    private User lookup(String email, RequestAttributes request) {
+        Object tokenUserId = request != null
+                ? request.getAttribute(USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) : null;
+        if (!(tokenUserId instanceof Long)) {
+            return userRepository.findByEmail(email);
+        }
+
+        Long userId = (Long) tokenUserId;
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(userId);
+        if (cached != null && cached.expiresAtMillis > now && email.equalsIgnoreCase(cached.user.getEmail())) {
+            return cached.user;
+        }
+
+        // The id in an older token may no longer match (e.g. role change re-creates the user) - fall back to email
+        User user = userRepository.findById(userId)
+                .filter(u -> email.equalsIgnoreCase(u.getEmail()))
+                .orElse(null);
+        if (user == null) {
+            cache.remove(userId);
+            return userRepository.findByEmail(email);
+        }
+
+        if (cache.size() >= cacheMaxSize) {
+            evict(now);
+        }
+        cache.put(userId, new CachedUser(user, now + cacheTtlMs));
+        return user;
+    }
+
+    private void evict(long now) {
+        cache.entrySet().removeIf(e -> e.getValue().expiresAtMillis <= now);
+        Iterator<Long> it = cache.keySet().iterator();
+        while (cache.size() >= cacheMaxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -9,8 +9,15 @@ import com.nimbusds.jwt.SignedJWT;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtils {
@@ -18,6 +25,16 @@ public class JwtUtils {
     @Value("${jwt.secret}")
     private String secret; // Must be at least 256 bits (32 characters) for HS256
 
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${jwt.verified-cache.ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    private volatile JWSVerifier verifier;
+
+    private final Map<String, CacheEntry> verifiedCache = new ConcurrentHashMap<>();
+
     public String generateToken(User user) {
         try {
             // Create claims
@@ -70,63 +87,131 @@ public class JwtUtils {
         }
     }
 
-    public String getEmailFromToken(String token) {
-        try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(secret.getBytes());
+    /**
+     * Claims of a token whose signature and expiry have been checked
+     */
+    public static final class VerifiedToken {
+        private final String email;
+        private final String role;
+        private final Long userId;
+        private final long expiresAtMillis;
+
+        VerifiedToken(String email, String role, Long userId, long expiresAtMillis) {
+            this.email = email;
+            this.role = role;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
 
-            if (signedJWT.verify(verifier)) {
-                return signedJWT.getJWTClaimsSet().getSubject();
-            }
-            return null;
-        } catch (ParseException | JOSEException e) {
-            return null;
+        public String getEmail() { return email; }
+        public String getRole() { return role; }
+        public Long getUserId() { return userId; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    // Cached verification result; only valid until the token expires or the cache TTL runs out
+    private static final class CacheEntry {
+        final VerifiedToken token;
+        final long validUntilMillis;
+
+        CacheEntry(VerifiedToken token, long validUntilMillis) {
+            this.token = token;
+            this.validUntilMillis = validUntilMillis;
         }
     }
 
-    public Long getUserIdFromToken(String token) {
-        try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(secret.getBytes());
+    /**
+     * Parse the token once, check signature and expiry, and return its claims.
+     * Tokens verified recently are answered from a small cache keyed by the SHA-256 of the token.
+     * @return the verified claims, or null when the token is malformed, forged or expired
+     */
+    public VerifiedToken parseAndVerify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String key = digest(token);
 
-            if (signedJWT.verify(verifier)) {
-                JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
-                return claims.getLongClaim("userId");
+        CacheEntry cached = verifiedCache.get(key);
+        if (cached != null) {
+            if (cached.validUntilMillis > now) {
+                return cached.token;
             }
-            return null;
-        } catch (ParseException | JOSEException e) {
-            return null;
+            verifiedCache.remove(key, cached);
+        }
+
+        VerifiedToken verified = verify(token, now);
+        if (verified != null) {
+            if (verifiedCache.size() >= cacheMaxSize) {
+                evict(now);
+            }
+            verifiedCache.put(key, new CacheEntry(verified, Math.min(verified.getExpiresAtMillis(), now + cacheTtlMs)));
         }
+        return verified;
     }
 
-    public String getRoleFromToken(String token) {
+    private VerifiedToken verify(String token, long now) {
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(secret.getBytes());
-
-            if (signedJWT.verify(verifier)) {
-                JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
-                return claims.getStringClaim("role");
+            if (!signedJWT.verify(verifier())) {
+                return null;
             }
-            return null;
+            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+            Date expiration = claims.getExpirationTime();
+            if (expiration == null || expiration.getTime() <= now) {
+                return null;
+            }
+            return new VerifiedToken(claims.getSubject(), claims.getStringClaim("role"),
+                    claims.getLongClaim("userId"), expiration.getTime());
         } catch (ParseException | JOSEException e) {
             return null;
         }
     }
 
-    public boolean validateToken(String token) {
-        try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(secret.getBytes());
+    // Drop expired entries; if the cache is still full, drop arbitrary ones to stay within the bound
+    private void evict(long now) {
+        verifiedCache.entrySet().removeIf(e -> e.getValue().validUntilMillis <= now);
+        Iterator<String> it = verifiedCache.keySet().iterator();
+        while (verifiedCache.size() >= cacheMaxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
 
-            if (!signedJWT.verify(verifier)) {
-                return false;
-            }
+    private JWSVerifier verifier() throws JOSEException {
+        JWSVerifier v = verifier;
+        if (v == null) {
+            v = new MACVerifier(secret.getBytes()); // thread-safe, built once
+            verifier = v;
+        }
+        return v;
+    }
 
-            Date expiration = signedJWT.getJWTClaimsSet().getExpirationTime();
-            return expiration != null && expiration.after(new Date());
-        } catch (Exception e) {
-            return false;
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
+
+    public String getEmailFromToken(String token) {
+        VerifiedToken verified = parseAndVerify(token);
+        return verified != null ? verified.getEmail() : null;
+    }
+
+    public Long getUserIdFromToken(String token) {
+        VerifiedToken verified = parseAndVerify(token);
+        return verified != null ? verified.getUserId() : null;
+    }
+
+    public String getRoleFromToken(String token) {
+        VerifiedToken verified = parseAndVerify(token);
+        return verified != null ? verified.getRole() : null;
+    }
+
+    public boolean validateToken(String token) {
+        return parseAndVerify(token) != null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+-- When a trip cancellation refund was handed to the provider (Payments in REFUND_SENDING)
+-- Hibernate adds this column automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('Payments') AND name = 'refund_sent_at')
+BEGIN
+    ALTER TABLE Payments ADD refund_sent_at DATETIME2 NULL;
+    PRINT 'Added refund_sent_at column to Payments';
+END
+ELSE
+BEGIN
+    PRINT 'refund_sent_at column already exists on Payments';
+END
@@ -0,0 +1,12 @@
+-- Flag for trips whose bookings go through the virtual waiting room
+-- Hibernate adds this column automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('trips') AND name = 'high_demand')
+BEGIN
+    ALTER TABLE trips ADD high_demand BIT NOT NULL DEFAULT 0;
+    PRINT 'Added high_demand column to trips';
+END
+ELSE
+BEGIN
+    PRINT 'high_demand column already exists';
+END
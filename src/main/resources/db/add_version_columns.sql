@@ -0,0 +1,22 @@
+-- Optimistic locking version columns for bookings and Payments
+-- Hibernate adds these columns automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('bookings') AND name = 'version')
+BEGIN
+    ALTER TABLE bookings ADD version BIGINT NOT NULL DEFAULT 0;
+    PRINT 'Added version column to bookings';
+END
+ELSE
+BEGIN
+    PRINT 'version column already exists on bookings';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('Payments') AND name = 'version')
+BEGIN
+    ALTER TABLE Payments ADD version BIGINT NOT NULL DEFAULT 0;
+    PRINT 'Added version column to Payments';
+END
+ELSE
+BEGIN
+    PRINT 'version column already exists on Payments';
+END
@@ -0,0 +1,34 @@
+-- Append-only audit trail written by AuditLogService
+-- Hibernate creates this table automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'audit_log')
+BEGIN
+    CREATE TABLE audit_log (
+        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+        created_at DATETIME2 NOT NULL,
+        event_type VARCHAR(40) NOT NULL,
+        booking_id BIGINT NULL,
+        trip_id BIGINT NULL,
+        customer_email VARCHAR(255) NULL,
+        old_status VARCHAR(30) NULL,
+        new_status VARCHAR(30) NULL,
+        details VARCHAR(500) NULL
+    );
+    PRINT 'Created audit_log table';
+END
+ELSE
+BEGIN
+    PRINT 'audit_log table already exists';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_audit_log_booking_created' AND object_id = OBJECT_ID('audit_log'))
+BEGIN
+    CREATE INDEX IX_audit_log_booking_created ON audit_log (booking_id, created_at);
+    PRINT 'Created IX_audit_log_booking_created index';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_audit_log_created' AND object_id = OBJECT_ID('audit_log'))
+BEGIN
+    CREATE INDEX IX_audit_log_created ON audit_log (created_at);
+    PRINT 'Created IX_audit_log_created index';
+END
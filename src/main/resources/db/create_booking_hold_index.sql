@@ -0,0 +1,11 @@
+-- Index used by HoldExpiryReaper: startup load of PROVISIONAL hold deadlines and locking of due holds
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_bookings_status_hold_timer' AND object_id = OBJECT_ID('bookings'))
+BEGIN
+    CREATE INDEX IX_bookings_status_hold_timer ON bookings (status, hold_timer);
+    PRINT 'Created IX_bookings_status_hold_timer index';
+END
+ELSE
+BEGIN
+    PRINT 'IX_bookings_status_hold_timer index already exists';
+END
@@ -0,0 +1,31 @@
+-- Card data vault: card details encrypted by the application, Payments keep only a token and last four digits
+-- Hibernate creates the table and columns automatically (ddl-auto=update); this script is for manual setups
+-- On startup the application moves card data still stored inline in Payments into the vault and blanks those columns
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'card_vault')
+BEGIN
+    CREATE TABLE card_vault (
+        token VARCHAR(40) NOT NULL PRIMARY KEY,
+        key_id VARCHAR(16) NOT NULL,
+        ciphertext VARBINARY(1024) NOT NULL,
+        created_at DATETIME2 NOT NULL
+    );
+    PRINT 'Created card_vault table';
+END
+ELSE
+BEGIN
+    PRINT 'card_vault table already exists';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('Payments') AND name = 'card_token')
+BEGIN
+    ALTER TABLE Payments ADD card_token VARCHAR(40) NULL, card_last4 VARCHAR(4) NULL;
+    PRINT 'Added card_token and card_last4 columns to Payments';
+END
+ELSE
+BEGIN
+    PRINT 'card_token column already exists';
+END
+
+-- Once the application has migrated the inline card data, the old columns can be dropped:
+-- ALTER TABLE Payments DROP COLUMN card_number, card_expiry, card_cvv, card_holder_name;
@@ -0,0 +1,32 @@
+-- Idempotency-Key records for POST /api/bookings and POST /api/payments
+-- Hibernate creates this table automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'idempotency_keys')
+BEGIN
+    CREATE TABLE idempotency_keys (
+        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+        scope VARCHAR(50) NOT NULL,
+        owner VARCHAR(100) NOT NULL,
+        idem_key VARCHAR(255) NOT NULL,
+        request_hash VARCHAR(64) NOT NULL,
+        status VARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS',
+        response_status INT NULL,
+        response_body NVARCHAR(MAX) NULL,
+        response_location VARCHAR(255) NULL,
+        created_at DATETIME2 NOT NULL DEFAULT SYSDATETIME(),
+        completed_at DATETIME2 NULL,
+        expires_at DATETIME2 NOT NULL,
+        CONSTRAINT UX_idempotency_scope_owner_key UNIQUE (scope, owner, idem_key)
+    );
+    PRINT 'Created idempotency_keys table';
+END
+ELSE
+BEGIN
+    PRINT 'idempotency_keys table already exists';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_idempotency_expires_at' AND object_id = OBJECT_ID('idempotency_keys'))
+BEGIN
+    CREATE INDEX IX_idempotency_expires_at ON idempotency_keys (expires_at);
+    PRINT 'Created IX_idempotency_expires_at index';
+END
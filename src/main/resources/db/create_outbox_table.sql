@@ -0,0 +1,47 @@
+-- Transactional outbox for booking/payment events (app.booking.observers.dispatch=outbox)
+-- Hibernate creates this table automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'outbox')
+BEGIN
+    CREATE TABLE outbox (
+        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+        aggregate_type VARCHAR(30) NOT NULL,
+        aggregate_id BIGINT NOT NULL,
+        event_type VARCHAR(40) NOT NULL,
+        old_status VARCHAR(30) NULL,
+        new_status VARCHAR(30) NULL,
+        payment_id BIGINT NULL,
+        status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+        attempts INT NOT NULL DEFAULT 0,
+        delivered_observers VARCHAR(500) NULL,
+        next_attempt_at DATETIME2 NULL,
+        claim_token VARCHAR(36) NULL,
+        claimed_at DATETIME2 NULL,
+        created_at DATETIME2 NOT NULL DEFAULT SYSDATETIME(),
+        processed_at DATETIME2 NULL,
+        last_error VARCHAR(1000) NULL
+    );
+    PRINT 'Created outbox table';
+END
+ELSE
+BEGIN
+    PRINT 'outbox table already exists';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('outbox') AND name = 'next_attempt_at')
+BEGIN
+    ALTER TABLE outbox ADD next_attempt_at DATETIME2 NULL;
+    PRINT 'Added next_attempt_at column to outbox';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_outbox_status_id' AND object_id = OBJECT_ID('outbox'))
+BEGIN
+    CREATE INDEX IX_outbox_status_id ON outbox (status, id);
+    PRINT 'Created IX_outbox_status_id index';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_outbox_aggregate' AND object_id = OBJECT_ID('outbox'))
+BEGIN
+    CREATE INDEX IX_outbox_aggregate ON outbox (aggregate_type, aggregate_id, id);
+    PRINT 'Created IX_outbox_aggregate index';
+END
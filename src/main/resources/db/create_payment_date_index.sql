@@ -0,0 +1,11 @@
+-- Index used by the keyset-paginated payment history and the streaming export (ORDER BY payment_date DESC, payment_id DESC)
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_payments_date_id' AND object_id = OBJECT_ID('Payments'))
+BEGIN
+    CREATE INDEX IX_payments_date_id ON Payments (payment_date DESC, payment_id DESC);
+    PRINT 'Created IX_payments_date_id index';
+END
+ELSE
+BEGIN
+    PRINT 'IX_payments_date_id index already exists';
+END
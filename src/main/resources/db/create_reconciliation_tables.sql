@@ -0,0 +1,85 @@
+-- Payment reconciliation checkpoints and findings (PaymentReconciliationJob)
+-- Hibernate creates these tables automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'reconciliation_checkpoints')
+BEGIN
+    CREATE TABLE reconciliation_checkpoints (
+        settlement_date DATE PRIMARY KEY,
+        status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+        last_payment_id BIGINT NOT NULL DEFAULT 0,
+        rows_checked BIGINT NOT NULL DEFAULT 0,
+        findings BIGINT NOT NULL DEFAULT 0,
+        last_error VARCHAR(1000) NULL,
+        updated_at DATETIME2 NULL,
+        owner VARCHAR(36) NULL,
+        lease_until DATETIME2 NULL
+    );
+    PRINT 'Created reconciliation_checkpoints table';
+END
+ELSE
+BEGIN
+    PRINT 'reconciliation_checkpoints table already exists';
+END
+
+-- Run that owns a day while reconciling it (claimed with a conditional UPDATE, held by a lease)
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('reconciliation_checkpoints') AND name = 'owner')
+BEGIN
+    ALTER TABLE reconciliation_checkpoints ADD owner VARCHAR(36) NULL, lease_until DATETIME2 NULL;
+    PRINT 'Added owner and lease_until columns to reconciliation_checkpoints';
+END
+ELSE
+BEGIN
+    PRINT 'owner column already exists on reconciliation_checkpoints';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'reconciliation_findings')
+BEGIN
+    CREATE TABLE reconciliation_findings (
+        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+        settlement_date DATE NOT NULL,
+        payment_id BIGINT NOT NULL,
+        finding_type VARCHAR(30) NOT NULL,
+        db_amount FLOAT NULL,
+        ledger_amount FLOAT NULL,
+        details VARCHAR(500) NULL,
+        created_at DATETIME2 NOT NULL DEFAULT SYSDATETIME()
+    );
+    PRINT 'Created reconciliation_findings table';
+END
+ELSE
+BEGIN
+    PRINT 'reconciliation_findings table already exists';
+END
+
+-- A payment is reported at most once per day and finding type; also serves the findings-by-day query.
+-- Duplicates left by overlapping runs before this index existed are removed first (the oldest is kept).
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_reconciliation_findings_day_payment_type' AND object_id = OBJECT_ID('reconciliation_findings'))
+BEGIN
+    WITH duplicates AS (
+        SELECT ROW_NUMBER() OVER (PARTITION BY settlement_date, payment_id, finding_type ORDER BY id) AS n
+        FROM reconciliation_findings)
+    DELETE FROM duplicates WHERE n > 1;
+    CREATE UNIQUE INDEX UX_reconciliation_findings_day_payment_type
+        ON reconciliation_findings (settlement_date, payment_id, finding_type);
+    PRINT 'Created UX_reconciliation_findings_day_payment_type index';
+END
+
+IF EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_reconciliation_findings_date' AND object_id = OBJECT_ID('reconciliation_findings'))
+BEGIN
+    DROP INDEX IX_reconciliation_findings_date ON reconciliation_findings;
+    PRINT 'Dropped IX_reconciliation_findings_date index (covered by UX_reconciliation_findings_day_payment_type)';
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_reconciliation_findings_payment' AND object_id = OBJECT_ID('reconciliation_findings'))
+BEGIN
+    CREATE INDEX IX_reconciliation_findings_payment ON reconciliation_findings (payment_id, finding_type);
+    PRINT 'Created IX_reconciliation_findings_payment index';
+END
+
+-- Stuck pay-on-arrival check: only the PENDING payments, in payment id order
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_payments_pending' AND object_id = OBJECT_ID('Payments'))
+BEGIN
+    CREATE INDEX IX_payments_pending ON Payments (payment_id) INCLUDE (payment_method, amount, payment_date)
+        WHERE status = 'PENDING';
+    PRINT 'Created IX_payments_pending index';
+END
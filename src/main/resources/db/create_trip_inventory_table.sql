@@ -0,0 +1,28 @@
+-- Per-trip seat counters used by TripInventoryService
+-- Hibernate creates this table automatically (ddl-auto=update); this script is for manual setups
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'trip_inventory')
+BEGIN
+    CREATE TABLE trip_inventory (
+        trip_id BIGINT PRIMARY KEY,
+        held_seats INT NOT NULL DEFAULT 0,
+        confirmed_seats INT NOT NULL DEFAULT 0
+    );
+    PRINT 'Created trip_inventory table';
+END
+ELSE
+BEGIN
+    PRINT 'trip_inventory table already exists';
+END
+
+-- Seed counters from existing bookings (PROVISIONAL = held, CONFIRMED/COMPLETED = confirmed)
+INSERT INTO trip_inventory (trip_id, held_seats, confirmed_seats)
+SELECT t.trip_id,
+       COALESCE(SUM(CASE WHEN UPPER(b.status) = 'PROVISIONAL' THEN b.passengers ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN UPPER(b.status) IN ('CONFIRMED', 'COMPLETED') THEN b.passengers ELSE 0 END), 0)
+FROM trips t
+LEFT JOIN bookings b ON b.trip_id = t.trip_id
+WHERE NOT EXISTS (SELECT 1 FROM trip_inventory i WHERE i.trip_id = t.trip_id)
+GROUP BY t.trip_id;
+
+PRINT 'Trip inventory seeded';
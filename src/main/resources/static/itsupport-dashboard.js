@@ -2,6 +2,9 @@
 const API_BASE = '/api/itsupport';
 let currentBookings = [];
 let currentCustomers = [];
+let customerPage = 0;
+let customerTotalPages = 0;
+const CUSTOMER_PAGE_SIZE = 50;
 let currentFeedback = [];
 let currentFeedbackId = null;
 
@@ -432,14 +435,23 @@ function refreshBookings() {
 
 // ================= CUSTOMERS FUNCTIONALITY =================
 
-// Load all customers
-async function loadCustomers() {
+// Load one page of customers (the search box filters them on the server)
+async function loadCustomers(page = 0) {
+    const search = document.getElementById('customerSearchFilter')?.value || '';
+    const params = new URLSearchParams({ page, size: CUSTOMER_PAGE_SIZE });
+    if (search) {
+        params.append('search', search);
+    }
+
     try {
         showLoading('customersTableContainer');
-        const response = await fetchWithAuth(`${API_BASE}/customers`);
+        const response = await fetchWithAuth(`${API_BASE}/customers?${params}`);
         if (response.ok) {
-            currentCustomers = await response.json();
-            renderCustomersTable(currentCustomers);
+            const data = await response.json();
+            currentCustomers = data.items;
+            customerPage = data.page;
+            customerTotalPages = data.totalPages;
+            renderCustomersTable(currentCustomers, data);
         } else {
             showError('customersTableContainer', 'Failed to load customers');
         }
@@ -450,33 +462,26 @@ async function loadCustomers() {
 }
 
 // Apply customer filters
-async function applyCustomerFilters() {
-    const search = document.getElementById('customerSearchFilter').value;
-    
-    try {
-        showLoading('customersTableContainer');
-        const url = search ? `${API_BASE}/customers?search=${encodeURIComponent(search)}` : `${API_BASE}/customers`;
-        const response = await fetchWithAuth(url);
-        if (response.ok) {
-            currentCustomers = await response.json();
-            renderCustomersTable(currentCustomers);
-        } else {
-            showError('customersTableContainer', 'Failed to filter customers');
-        }
-    } catch (error) {
-        console.error('Error filtering customers:', error);
-        showError('customersTableContainer', 'Error filtering customers');
-    }
+function applyCustomerFilters() {
+    loadCustomers(0);
 }
 
 // Clear customer filters
 function clearCustomerFilters() {
     document.getElementById('customerSearchFilter').value = '';
-    loadCustomers();
+    loadCustomers(0);
+}
+
+// Previous / next page of customers
+function changeCustomerPage(delta) {
+    const page = customerPage + delta;
+    if (page >= 0 && page < customerTotalPages) {
+        loadCustomers(page);
+    }
 }
 
 // Render customers table
-function renderCustomersTable(customers) {
+function renderCustomersTable(customers, pageInfo) {
     const container = document.getElementById('customersTableContainer');
     
     if (!customers || customers.length === 0) {
@@ -529,6 +534,19 @@ function renderCustomersTable(customers) {
                 `).join('')}
             </tbody>
         </table>
+        ${pageInfo ? `
+            <div class="table-pagination">
+                <button class="btn btn-secondary btn-small" onclick="changeCustomerPage(-1)" ${pageInfo.page <= 0 ? 'disabled' : ''}>
+                    <i class="fas fa-chevron-left"></i>
+                    Previous
+                </button>
+                <span>Page ${pageInfo.page + 1} of ${pageInfo.totalPages} (${pageInfo.totalItems} customers)</span>
+                <button class="btn btn-secondary btn-small" onclick="changeCustomerPage(1)" ${pageInfo.page + 1 >= pageInfo.totalPages ? 'disabled' : ''}>
+                    Next
+                    <i class="fas fa-chevron-right"></i>
+                </button>
+            </div>
+        ` : ''}
     `;
 }
 
@@ -670,7 +688,7 @@ function renderCustomerModal(customer, bookings, feedback) {
 
 // Refresh customers
 function refreshCustomers() {
-    loadCustomers();
+    loadCustomers(customerPage);
 }
 
 // ================= FEEDBACK FUNCTIONALITY =================
@@ -0,0 +1,51 @@
+package com.boatsafari.managementsystem.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The full payment history pages and exports are only for admins
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaymentAdminSecurityTests {
+
+    private static final String[] ADMIN_ONLY = {
+            "/api/admin/payments/history/page",
+            "/api/admin/payments/export"
+    };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousRequestsAreRefused() throws Exception {
+        for (String url : ADMIN_ONLY) {
+            int status = mockMvc.perform(get(url)).andReturn().getResponse().getStatus();
+            assertTrue(status == 401 || status == 403, url + " answered " + status);
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void customersAreForbidden() throws Exception {
+        for (String url : ADMIN_ONLY) {
+            assertEquals(403, mockMvc.perform(get(url)).andReturn().getResponse().getStatus(), url);
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminsGetTheHistoryPage() throws Exception {
+        assertEquals(200, mockMvc.perform(get("/api/admin/payments/history/page").param("limit", "5"))
+                .andReturn().getResponse().getStatus());
+    }
+}
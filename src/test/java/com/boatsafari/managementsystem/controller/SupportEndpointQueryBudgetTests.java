@@ -0,0 +1,90 @@
+package com.boatsafari.managementsystem.controller;
+
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.boatsafari.managementsystem.support.QueryCountAssertions.assertMaxQueries;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statement ceilings of the support list endpoints; a list that starts loading something per row fails here
+ */
+@SpringBootTest
+@Import(TestData.class)
+class SupportEndpointQueryBudgetTests {
+
+    private static final int CUSTOMERS = 6;
+    private static final int BOOKINGS_PER_CUSTOMER = 3;
+
+    @Autowired
+    private ITSupportController itSupportController;
+
+    @Autowired
+    private SupportController supportController;
+
+    @Autowired
+    private TestData testData;
+
+    private Trip trip;
+    private final List<User> customers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        trip = testData.trip("Query budget test trip", CUSTOMERS * BOOKINGS_PER_CUSTOMER * 2, 7);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            User customer = testData.customer("budget", "Budget", "Customer" + i);
+            customers.add(customer);
+            for (int b = 0; b < BOOKINGS_PER_CUSTOMER; b++) {
+                testData.booking(trip, customer, "CONFIRMED", 2);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+        customers.clear();
+    }
+
+    @Test
+    void bookingSearchesRunOneStatement() {
+        ResponseEntity<?> bookings = assertMaxQueries(1, () -> itSupportController.getAllBookings(
+                null, null, null, trip.getTripId(), null, null));
+        assertEquals(200, bookings.getStatusCode().value());
+        assertEquals(CUSTOMERS * BOOKINGS_PER_CUSTOMER, ((List<?>) bookings.getBody()).size());
+
+        ResponseEntity<?> page = assertMaxQueries(1, () -> itSupportController.getBookingsPage(
+                null, null, null, trip.getTripId(), null, null, null, 5));
+        assertEquals(200, page.getStatusCode().value());
+
+        ResponseEntity<?> history = assertMaxQueries(1, () -> supportController.bookingHistory(
+                null, null, trip.getTripId(), null, null));
+        assertEquals(CUSTOMERS * BOOKINGS_PER_CUSTOMER, ((List<?>) history.getBody()).size());
+    }
+
+    @Test
+    void customerListCountsInFixedNumberOfStatements() {
+        // Page, total count, grouped booking counts, grouped feedback counts
+        ResponseEntity<?> response = assertMaxQueries(4, () -> itSupportController.getAllCustomers(
+                "budget-", 0, CUSTOMERS));
+        assertEquals(200, response.getStatusCode().value());
+        ITSupportController.CustomerPageDTO page = (ITSupportController.CustomerPageDTO) response.getBody();
+        assertEquals(CUSTOMERS, page.getItems().size());
+        page.getItems().forEach(c -> assertEquals(BOOKINGS_PER_CUSTOMER, c.getTotalBookings()));
+
+        ResponseEntity<?> single = assertMaxQueries(3, () -> itSupportController.getCustomerDetails(
+                customers.get(0).getUserId()));
+        assertEquals(200, single.getStatusCode().value());
+    }
+}
@@ -0,0 +1,199 @@
+package com.boatsafari.managementsystem.schedule;
+
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.model.ReconciliationCheckpoint;
+import com.boatsafari.managementsystem.model.ReconciliationFinding;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.repository.ReconciliationCheckpointRepository;
+import com.boatsafari.managementsystem.repository.ReconciliationFindingRepository;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Chunks of two payments, so every day takes several chunks and checkpoints
+@SpringBootTest(properties = "app.reconciliation.chunk-size=2")
+@Import(TestData.class)
+class PaymentReconciliationJobTests {
+
+    // Far enough back that no other payment was taken on these days
+    private static final LocalDate DAY = LocalDate.of(2001, 3, 10);
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+
+    @TempDir
+    static Path ledgerDir;
+
+    @DynamicPropertySource
+    static void ledgerDir(DynamicPropertyRegistry registry) {
+        registry.add("app.reconciliation.ledger-dir", () -> ledgerDir.toString());
+    }
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PaymentReconciliationJob reconciliationJob;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ReconciliationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ReconciliationFindingRepository findingRepository;
+
+    private Payment matched;
+    private Payment amountOff;
+    private Payment missing;
+    private Payment onArrival;
+    private Payment lateNight;
+    private long unknownId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        User customer = testData.customer("recon", "Recon", "Test");
+        Trip trip = testData.trip("Reconciliation test trip", 100, 7);
+        matched = payment(trip, customer, "CARD", "SUCCESS", "10:00");
+        amountOff = payment(trip, customer, "CARD", "SUCCESS", "11:00");
+        missing = payment(trip, customer, "CARD", "SUCCESS", "12:00");
+        onArrival = payment(trip, customer, "PAY_ON_ARRIVAL", "PENDING", "13:00");
+        // Captured a minute before midnight, settled by the gateway the next day
+        lateNight = payment(trip, customer, "CARD", "SUCCESS", "23:59");
+        unknownId = lateNight.getPaymentId() + 1_000_000;
+
+        ledger(DAY, entry(matched, 25.0), entry(amountOff, 30.0), entry(onArrival, 25.0),
+                unknownId + ",40.00,SETTLED");
+        ledger(NEXT_DAY, entry(lateNight, 25.0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (LocalDate day : List.of(DAY, NEXT_DAY, NEXT_DAY.plusDays(1))) {
+            findingRepository.deleteAll(findings(day));
+            checkpointRepository.deleteById(day);
+            Files.deleteIfExists(ledgerFile(day));
+        }
+        testData.cleanUp();
+    }
+
+    @Test
+    void mergesBothSidesAndMatchesCapturesSettledTheNextDay() throws IOException {
+        // The next day waits for the ledger of the day after it
+        assertEquals(Map.of(DAY, ReconciliationCheckpoint.DONE, NEXT_DAY, ReconciliationCheckpoint.NO_LEDGER),
+                reconciliationJob.reconcile(DAY, NEXT_DAY, false));
+        ledger(NEXT_DAY.plusDays(1));
+        assertEquals(Map.of(DAY, ReconciliationCheckpoint.DONE, NEXT_DAY, ReconciliationCheckpoint.DONE),
+                reconciliationJob.reconcile(DAY, NEXT_DAY, false));
+
+        assertEquals(Set.of(
+                amountOff.getPaymentId() + " " + ReconciliationFinding.AMOUNT_MISMATCH,
+                missing.getPaymentId() + " " + ReconciliationFinding.MISSING_CAPTURE,
+                onArrival.getPaymentId() + " " + ReconciliationFinding.STATUS_MISMATCH,
+                unknownId + " " + ReconciliationFinding.UNKNOWN_CAPTURE), findingKeys(DAY));
+        // The late-night capture is neither missing on its own day nor unknown on the day it settled
+        assertEquals(Set.of(), findingKeys(NEXT_DAY));
+        assertEquals(5, checkpointRepository.findById(DAY).orElseThrow().getRowsChecked());
+    }
+
+    @Test
+    void resumesAfterTheCheckpointedPayment() throws IOException {
+        ledger(NEXT_DAY.plusDays(1));
+        // A run that died after its first chunk (matched, amountOff) had committed
+        ReconciliationCheckpoint crashed = new ReconciliationCheckpoint();
+        crashed.setSettlementDate(DAY);
+        crashed.setStatus(ReconciliationCheckpoint.FAILED);
+        crashed.setLastPaymentId(amountOff.getPaymentId());
+        crashed.setRowsChecked(2);
+        checkpointRepository.save(crashed);
+
+        assertEquals(ReconciliationCheckpoint.DONE, reconciliationJob.reconcile(DAY, DAY, false).get(DAY));
+
+        // Nothing up to the checkpoint is looked at again
+        assertEquals(Set.of(
+                missing.getPaymentId() + " " + ReconciliationFinding.MISSING_CAPTURE,
+                onArrival.getPaymentId() + " " + ReconciliationFinding.STATUS_MISMATCH,
+                unknownId + " " + ReconciliationFinding.UNKNOWN_CAPTURE), findingKeys(DAY));
+        ReconciliationCheckpoint done = checkpointRepository.findById(DAY).orElseThrow();
+        assertEquals(5, done.getRowsChecked());
+        assertEquals(lateNight.getPaymentId(), done.getLastPaymentId());
+        assertNull(done.getOwner());
+
+        // A finished day is skipped unless restarted, which replaces its findings
+        assertEquals(ReconciliationCheckpoint.DONE, reconciliationJob.reconcile(DAY, DAY, false).get(DAY));
+        assertEquals(3, findings(DAY).size());
+        assertEquals(ReconciliationCheckpoint.DONE, reconciliationJob.reconcile(DAY, DAY, true).get(DAY));
+        assertEquals(4, findings(DAY).size());
+    }
+
+    @Test
+    void dayHeldByAnotherRunIsLeftAloneUntilItsLeaseRunsOut() throws IOException {
+        ledger(NEXT_DAY.plusDays(1));
+        ReconciliationCheckpoint held = new ReconciliationCheckpoint();
+        held.setSettlementDate(DAY);
+        held.setStatus(ReconciliationCheckpoint.RUNNING);
+        held.setOwner("another-node");
+        held.setLeaseUntil(LocalDateTime.now().plusHours(1));
+        checkpointRepository.save(held);
+
+        assertEquals(ReconciliationCheckpoint.RUNNING, reconciliationJob.reconcile(DAY, DAY, false).get(DAY));
+        assertTrue(findings(DAY).isEmpty());
+        assertEquals("another-node", checkpointRepository.findById(DAY).orElseThrow().getOwner());
+
+        // The other run died: once its lease is over the day is taken over
+        held.setLeaseUntil(LocalDateTime.now().minusMinutes(1));
+        checkpointRepository.save(held);
+        assertEquals(ReconciliationCheckpoint.DONE, reconciliationJob.reconcile(DAY, DAY, false).get(DAY));
+        assertEquals(4, findings(DAY).size());
+    }
+
+    private Payment payment(Trip trip, User customer, String method, String status, String time) {
+        Payment payment = testData.payment(testData.booking(trip, customer, "CONFIRMED", 1), method, status);
+        payment.setPaymentDate(LocalDateTime.of(DAY, LocalTime.parse(time)));
+        return paymentRepository.save(payment);
+    }
+
+    private static String entry(Payment payment, double amount) {
+        return payment.getPaymentId() + "," + amount + ",SETTLED";
+    }
+
+    private static void ledger(LocalDate day, String... lines) throws IOException {
+        Files.writeString(ledgerFile(day), "payment_id,amount,status\n" + String.join("\n", lines) + "\n");
+    }
+
+    private static Path ledgerFile(LocalDate day) {
+        return ledgerDir.resolve("settlement-" + day + ".csv");
+    }
+
+    private List<ReconciliationFinding> findings(LocalDate day) {
+        return findingRepository.findBySettlementDateOrderByPaymentIdAsc(day, PageRequest.of(0, 100));
+    }
+
+    private Set<String> findingKeys(LocalDate day) {
+        return findings(day).stream().map(f -> f.getPaymentId() + " " + f.getFindingType()).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,184 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.config.QueryCounter;
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.TripInventory;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.TripInventoryRepository;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import com.boatsafari.managementsystem.support.TestData;
+import com.boatsafari.managementsystem.util.CurrentUserUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Import(TestData.class)
+class BookingConcurrencyTests {
+
+    private static final int CAPACITY = 50;
+    private static final int REQUESTS = 300;
+    private static final int THREADS = 32;
+
+    // A busy departure with this many bookings already on it
+    private static final int EXISTING_BOOKINGS = 1000;
+    private static final Predicate<String> READS_BOOKINGS =
+            sql -> sql.toLowerCase().startsWith("select") && sql.toLowerCase().contains(" from bookings");
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripInventoryRepository tripInventoryRepository;
+
+    @Autowired
+    private CurrentUserUtil currentUserUtil;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = testData.customer("load", "Load", "Test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+    }
+
+    @Test
+    void parallelBookingsNeverOversellATrip() throws Exception {
+        Trip trip = testData.trip("Concurrency test trip", CAPACITY, 7);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(pool.submit(() -> {
+                testData.authenticate(customer, "CUSTOMER");
+                try {
+                    start.await();
+                    bookingService.createProvisionalBooking(trip.getTripId(), "Load Test", "0771234567",
+                            customer.getEmail(), 1);
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        int bookedSeats = bookingRepository.findByTrip_TripId(trip.getTripId()).stream()
+                .mapToInt(Booking::getPassengers).sum();
+        TripInventory inventory = tripInventoryRepository.findById(trip.getTripId()).orElseThrow();
+
+        assertEquals(CAPACITY, accepted.get());
+        assertEquals(REQUESTS - CAPACITY, rejected.get());
+        assertEquals(CAPACITY, bookedSeats);
+        assertEquals(CAPACITY, inventory.getHeldSeats());
+        assertEquals(0, inventory.getConfirmedSeats());
+        assertTrue(bookedSeats <= trip.getCapacity());
+    }
+
+    @Test
+    void holdingSeatsDoesNotReadTheTripsBookings() {
+        Trip quiet = testData.trip("Quiet departure test trip", 100, 7);
+        Trip busy = testData.trip("Busy departure test trip", EXISTING_BOOKINGS * 2, 7);
+        List<Booking> existing = new ArrayList<>(EXISTING_BOOKINGS);
+        for (int i = 0; i < EXISTING_BOOKINGS; i++) {
+            Booking b = bookingService.newProvisionalBooking(customer, busy, "Existing", "0771234567",
+                    customer.getEmail(), 1);
+            b.setStatus("CONFIRMED");
+            existing.add(b);
+        }
+        bookingRepository.saveAll(existing);
+
+        testData.authenticate(customer, "CUSTOMER");
+        // The first booking of a trip sets up its seat counters from the bookings already there
+        create(quiet);
+        create(busy);
+
+        List<String> onQuietTrip = statementsOf(() -> create(quiet));
+        List<String> onBusyTrip = statementsOf(() -> create(busy));
+        assertEquals(onQuietTrip.size(), onBusyTrip.size(), "statements on the busy trip: " + onBusyTrip);
+        assertTrue(onBusyTrip.stream().noneMatch(READS_BOOKINGS), "statements on the busy trip: " + onBusyTrip);
+        // ... which the previous create path did on every booking
+        assertTrue(statementsOf(() -> createBySummingBookings(busy.getTripId(), 1)).stream()
+                .anyMatch(READS_BOOKINGS));
+    }
+
+    private void create(Trip trip) {
+        bookingService.createProvisionalBooking(trip.getTripId(), "Statement Test", "0771234567",
+                customer.getEmail(), 1);
+    }
+
+    private static List<String> statementsOf(Runnable call) {
+        try (QueryCounter.Scope scope = QueryCounter.open(true)) {
+            call.run();
+            return List.copyOf(scope.getStatements());
+        }
+    }
+
+    /**
+     * The create path before the seat inventory: load every booking of the trip and sum its passengers
+     */
+    private Booking createBySummingBookings(Long tripId, int passengers) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            User user = currentUserUtil.getCurrentUser();
+            bookingService.validateBookingRequest("Statement Test", "0771234567", user.getEmail(), passengers);
+            Trip trip = tripRepository.findById(tripId).orElseThrow();
+            int bookedSeats = bookingRepository.findByTrip_TripId(tripId).stream()
+                    .mapToInt(Booking::getPassengers).sum();
+            if (bookedSeats + passengers > trip.getCapacity()) {
+                throw new IllegalArgumentException("Not enough seats available");
+            }
+            Booking saved = bookingRepository.save(bookingService.newProvisionalBooking(user, trip, "Statement Test",
+                    "0771234567", user.getEmail(), passengers));
+            bookingService.notifyBookingCreated(saved);
+            return saved;
+        });
+    }
+}
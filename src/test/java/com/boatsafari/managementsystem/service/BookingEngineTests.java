@@ -0,0 +1,255 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.TripInventory;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.observer.BookingObserver;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.TripInventoryRepository;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.booking.engine.enabled=true",
+        "app.booking.observers.dispatch=sync"
+})
+@Import(TestData.class)
+class BookingEngineTests {
+
+    private static final int THREADS = 32;
+    private static final int CAPACITY = 40;
+    private static final int REQUESTS = 300;
+    private static final int HOT_TRIP_BOOKINGS = 400;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private BookingEngine bookingEngine;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TripInventoryRepository tripInventoryRepository;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = testData.customer("engine", "Engine", "Test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+    }
+
+    @Test
+    void lastSeatsGiveExactlyCapacityConfirmations() throws Exception {
+        Trip trip = testData.trip("Engine last seats trip", CAPACITY, 7);
+
+        List<Booking> created = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(REQUESTS, i -> {
+            try {
+                created.add(bookingEngine.createProvisionalBooking(trip.getTripId(), "Engine Test",
+                        "0771234567", customer.getEmail(), 1));
+            } catch (IllegalArgumentException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        assertEquals(CAPACITY, created.size());
+        assertEquals(REQUESTS - CAPACITY, rejected.get());
+
+        runConcurrently(created.size(), i -> bookingEngine.confirmBooking(created.get(i).getBookingId()));
+
+        long confirmed = bookingRepository.findByTrip_TripId(trip.getTripId()).stream()
+                .filter(b -> "CONFIRMED".equals(b.getStatus())).count();
+        TripInventory inventory = tripInventoryRepository.findById(trip.getTripId()).orElseThrow();
+        assertEquals(CAPACITY, confirmed);
+        assertEquals(CAPACITY, inventory.getConfirmedSeats());
+        assertEquals(0, inventory.getHeldSeats());
+    }
+
+    @Test
+    void eventsOfEachBookingArriveInCommandOrder() throws Exception {
+        Trip trip = testData.trip("Engine ordering trip", CAPACITY, 7);
+        Map<Long, List<String>> events = new ConcurrentHashMap<>();
+        BookingObserver recorder = new BookingObserver() {
+            @Override
+            public void onBookingCreated(Booking booking) {
+                events.computeIfAbsent(booking.getBookingId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                        .add("CREATED");
+            }
+
+            @Override
+            public void onBookingStatusChanged(Booking booking, String oldStatus, String newStatus) {
+                events.computeIfAbsent(booking.getBookingId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(oldStatus + "->" + newStatus);
+            }
+
+            @Override
+            public String getObserverName() {
+                return "EngineOrderRecorder";
+            }
+        };
+        bookingService.addObserver(recorder);
+        try {
+            List<Long> bookingIds = Collections.synchronizedList(new ArrayList<>());
+            runConcurrently(CAPACITY, i -> {
+                Booking booking = bookingEngine.createProvisionalBooking(trip.getTripId(), "Engine Test",
+                        "0771234567", customer.getEmail(), 1);
+                bookingEngine.confirmBooking(booking.getBookingId());
+                bookingEngine.updateBookingStatus(booking.getBookingId(), "COMPLETED");
+                bookingIds.add(booking.getBookingId());
+            });
+
+            assertEquals(CAPACITY, bookingIds.size());
+            for (Long bookingId : bookingIds) {
+                assertEquals(List.of("CREATED", "PROVISIONAL->CONFIRMED", "CONFIRMED->COMPLETED"),
+                        events.get(bookingId), "events of booking " + bookingId);
+            }
+        } finally {
+            bookingService.removeObserver(recorder);
+        }
+    }
+
+    @Test
+    void engineFillsAHotTripExactlyLikeTheDirectPath() throws Exception {
+        Trip direct = testData.trip("Direct hot trip", HOT_TRIP_BOOKINGS, 8);
+        Trip engine = testData.trip("Engine hot trip", HOT_TRIP_BOOKINGS, 8);
+
+        book(direct, HOT_TRIP_BOOKINGS, false);
+        book(engine, HOT_TRIP_BOOKINGS, true);
+
+        // Every seat taken once, whether the holds were batched by the engine or made one by one
+        for (Trip trip : List.of(direct, engine)) {
+            assertEquals(HOT_TRIP_BOOKINGS, bookingRepository.findByTrip_TripId(trip.getTripId()).size());
+            assertEquals(HOT_TRIP_BOOKINGS,
+                    tripInventoryRepository.findById(trip.getTripId()).orElseThrow().getHeldSeats());
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void stopAnswersEveryQueuedCommand() throws Exception {
+        Trip trip = testData.trip("Engine shutdown trip", 100_000, 7);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        AtomicInteger timedOut = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                testData.authenticate(customer, "CUSTOMER");
+                try {
+                    while (true) {
+                        try {
+                            bookingEngine.createProvisionalBooking(trip.getTripId(), "Engine Test",
+                                    "0771234567", customer.getEmail(), 1);
+                            accepted.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            if (e.getMessage().contains("timed out")) {
+                                timedOut.incrementAndGet();
+                            } else {
+                                refused.incrementAndGet();
+                            }
+                            return null;
+                        }
+                    }
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        Thread.sleep(300);
+        bookingEngine.stop();
+        for (Future<?> f : futures) {
+            f.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        // Every command queued before the stop was persisted and answered; nothing was left hanging
+        assertEquals(0, timedOut.get());
+        assertEquals(THREADS, refused.get());
+        assertTrue(accepted.get() > 0);
+        assertEquals(accepted.get(), bookingRepository.findByTrip_TripId(trip.getTripId()).size());
+        assertEquals(accepted.get(), tripInventoryRepository.findById(trip.getTripId()).orElseThrow().getHeldSeats());
+    }
+
+    private void book(Trip trip, int bookings, boolean viaEngine) throws Exception {
+        runConcurrently(bookings, i -> {
+            if (viaEngine) {
+                bookingEngine.createProvisionalBooking(trip.getTripId(), "Hot Trip Test", "0771234567",
+                        customer.getEmail(), 1);
+            } else {
+                bookingService.createProvisionalBooking(trip.getTripId(), "Hot Trip Test", "0771234567",
+                        customer.getEmail(), 1);
+            }
+        });
+    }
+
+    private interface Step {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * Run count steps on THREADS threads as the test customer, all starting together
+     */
+    private void runConcurrently(int count, Step step) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            Callable<Void> task = () -> {
+                testData.authenticate(customer, "CUSTOMER");
+                try {
+                    start.await();
+                    step.run(index);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            };
+            futures.add(pool.submit(task));
+        }
+        start.countDown();
+        try {
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.dto.GuideAssignedTripDTO;
+import com.boatsafari.managementsystem.dto.PassengerDTO;
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.PassengerCheckIn;
+import com.boatsafari.managementsystem.model.SafariGuide;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.repository.PassengerCheckInRepository;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.boatsafari.managementsystem.support.QueryCountAssertions.assertMaxQueries;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Import(TestData.class)
+class GuideDashboardQueryCountTests {
+
+    private static final int PASSENGERS_PER_BOOKING = 2;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private GuideService guideService;
+
+    @Autowired
+    private PassengerCheckInRepository passengerCheckInRepository;
+
+    private SafariGuide guide;
+    private final List<Trip> trips = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        guide = testData.guide("Query", "Count");
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+        trips.clear();
+    }
+
+    @Test
+    void guideDashboardRunsOneStatementHoweverManyTripsAndBookings() {
+        addTrips(2, 2);
+        checkTripList(2, 2);
+        checkPassengerList(2);
+
+        addTrips(10, 8);
+        checkTripList(12, 8);
+        checkPassengerList(8);
+    }
+
+    // Trips with bookingsPerTrip confirmed bookings, every other one checked in, plus one cancelled booking
+    private void addTrips(int count, int bookingsPerTrip) {
+        for (int i = 0; i < count; i++) {
+            Trip trip = testData.trip("Guide dashboard test trip " + (trips.size() + 1),
+                    bookingsPerTrip * PASSENGERS_PER_BOOKING + 10, trips.size() + 1, guide);
+            trips.add(trip);
+
+            for (int b = 0; b < bookingsPerTrip; b++) {
+                Booking booking = testData.booking(trip, null, "CONFIRMED", PASSENGERS_PER_BOOKING);
+                if (b % 2 == 0) {
+                    PassengerCheckIn checkIn = new PassengerCheckIn();
+                    checkIn.setBooking(booking);
+                    checkIn.setCheckedIn(true);
+                    checkIn.setCheckedInBy(guide);
+                    passengerCheckInRepository.save(checkIn);
+                }
+            }
+            testData.booking(trip, null, "CANCELLED", PASSENGERS_PER_BOOKING);
+        }
+    }
+
+    private void checkTripList(int expectedTrips, int bookingsOfNewestTrips) {
+        List<GuideAssignedTripDTO> upcoming = assertMaxQueries(1,
+                () -> guideService.getUpcomingTripsForGuide(guide.getUserId()));
+
+        assertEquals(expectedTrips, upcoming.size());
+        GuideAssignedTripDTO last = upcoming.get(upcoming.size() - 1);
+        assertEquals(bookingsOfNewestTrips * PASSENGERS_PER_BOOKING, last.getBookedPassengers());
+        assertEquals((bookingsOfNewestTrips + 1) / 2, last.getCheckedInPassengers());
+    }
+
+    private void checkPassengerList(int expectedBookings) {
+        Long tripId = trips.get(trips.size() - 1).getTripId();
+        List<PassengerDTO> passengers = assertMaxQueries(1, () -> guideService.getPassengersForTrip(tripId));
+
+        assertEquals(expectedBookings, passengers.size());
+        assertEquals((expectedBookings + 1) / 2, passengers.stream().filter(PassengerDTO::isCheckedIn).count());
+    }
+}
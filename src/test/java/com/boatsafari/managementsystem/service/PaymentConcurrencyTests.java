@@ -0,0 +1,171 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.dto.PaymentRequest;
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.TripInventory;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.TripInventoryRepository;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Import(TestData.class)
+class PaymentConcurrencyTests {
+
+    private static final int BOOKINGS = 10;
+    private static final int CALLBACKS_PER_BOOKING = 20;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TripInventoryRepository tripInventoryRepository;
+
+    private User customer;
+    private Trip trip;
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        customer = testData.customer("pay", "Payment", "Test");
+        trip = testData.trip("Payment concurrency test trip", BOOKINGS * 2, 7);
+
+        testData.authenticate(customer, "CUSTOMER");
+        try {
+            for (int i = 0; i < BOOKINGS; i++) {
+                bookingIds.add(bookingService.createProvisionalBooking(trip.getTripId(), "Payment Test",
+                        "0771234567", customer.getEmail(), 2).getBookingId());
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+        bookingIds.clear();
+    }
+
+    @Test
+    void concurrentPaymentCallbacksLeaveOnePaymentPerConfirmedBooking() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        Map<Long, Set<Long>> paymentIdsSeen = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < BOOKINGS * CALLBACKS_PER_BOOKING; i++) {
+            Long bookingId = bookingIds.get(i % BOOKINGS);
+            // Mostly card callbacks, with some pay-on-arrival requests racing them
+            boolean card = i % 4 != 3;
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    Map<String, Object> result = paymentService.processPayment(request(bookingId, card));
+                    paymentIdsSeen.computeIfAbsent(bookingId, id -> ConcurrentHashMap.newKeySet())
+                            .add((Long) result.get("paymentId"));
+                    succeeded.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    conflicted.incrementAndGet(); // still contended after the bounded retries
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(BOOKINGS * CALLBACKS_PER_BOOKING, succeeded.get() + conflicted.get());
+        int passengers = 0;
+        for (Long bookingId : bookingIds) {
+            Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+            assertEquals("CONFIRMED", booking.getStatus());
+            assertNotNull(booking.getPayment());
+            assertEquals("SUCCESS", booking.getPayment().getStatus());
+            // Every callback that went through saw the one payment the booking ended up with
+            assertEquals(Set.of(booking.getPayment().getPaymentId()), paymentIdsSeen.get(bookingId));
+            passengers += booking.getPassengers();
+        }
+        TripInventory inventory = tripInventoryRepository.findById(trip.getTripId()).orElseThrow();
+        assertEquals(0, inventory.getHeldSeats());
+        assertEquals(passengers, inventory.getConfirmedSeats());
+        assertTrue(succeeded.get() >= BOOKINGS);
+    }
+
+    @Test
+    void expiredBookingIsNotCharged() {
+        Booking expired = testData.booking(trip, customer, "EXPIRED", 1);
+
+        assertThrows(IllegalStateException.class,
+                () -> paymentService.prepareCardCharge(request(expired.getBookingId(), true)));
+        assertThrows(IllegalStateException.class,
+                () -> paymentService.processPayment(request(expired.getBookingId(), false)));
+    }
+
+    @Test
+    void cardPaymentForCancelledBookingIsOwedBack() {
+        Booking cancelled = testData.booking(trip, customer, "CANCELLED", 1);
+
+        Map<String, Object> result = paymentService.processPayment(request(cancelled.getBookingId(), true));
+        assertEquals("CANCELLED", result.get("bookingStatus"));
+        assertEquals("REFUND_PENDING", result.get("paymentStatus"));
+        // A repeated callback finds the refund already owed
+        assertEquals("REFUND_PENDING", paymentService.processPayment(request(cancelled.getBookingId(), true))
+                .get("paymentStatus"));
+    }
+
+    private PaymentRequest request(Long bookingId, boolean card) {
+        PaymentRequest request = new PaymentRequest();
+        request.setBookingId(bookingId);
+        if (card) {
+            request.setMethod("CARD");
+            request.setCardHolderName("Payment Test");
+            request.setCardNumber("4111111111111111");
+            request.setCardExpiry("12/30");
+            request.setCardCvv("123");
+        } else {
+            request.setMethod("PAY_ON_ARRIVAL");
+        }
+        return request;
+    }
+}
@@ -0,0 +1,135 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.dto.PaymentHistoryDTO;
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.repository.UserRepository;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static com.boatsafari.managementsystem.support.QueryCountAssertions.assertMaxQueries;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Import(TestData.class)
+class PaymentSearchIndexTests {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PaymentSearchIndex paymentSearchIndex;
+
+    @Autowired
+    private PaymentAdminService paymentAdminService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Unique letters so other payments in the database never match
+    private final String token = UUID.randomUUID().toString().replaceAll("[^a-f]", "") + "qx";
+
+    private Trip trip;
+
+    @BeforeEach
+    void setUp() {
+        trip = testData.trip("Search index test trip", 20, 7);
+        assertTrue(paymentSearchIndex.isReady());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+    }
+
+    @Test
+    void trigramsFindSubstringsOfNameAndEmail() {
+        User customer = testData.customer("srch" + token, "Marisol" + token, "Test");
+        Payment payment = paymentFor(customer);
+        paymentSearchIndex.catchUp();
+
+        // Infix, any case
+        assertTrue(found(PaymentSearchIndex.Field.NAME, ("isol" + token).toUpperCase(), payment));
+        assertTrue(found(PaymentSearchIndex.Field.EMAIL, "rch" + token, payment));
+        // Every trigram of the query has to match, in the right field
+        assertFalse(found(PaymentSearchIndex.Field.NAME, "marisol" + token + "zz", payment));
+        assertFalse(found(PaymentSearchIndex.Field.NAME, "srch" + token, payment));
+    }
+
+    @Test
+    void renamedPayersAreFoundUnderTheNewNameOnly() {
+        User customer = testData.customer("srch" + token, "Oldname" + token, "Test");
+        Payment payment = paymentFor(customer);
+        paymentSearchIndex.catchUp();
+        assertTrue(found(PaymentSearchIndex.Field.NAME, "oldname" + token, payment));
+
+        customer.setFirstName("Newname" + token);
+        userRepository.save(customer);
+        paymentSearchIndex.catchUp();
+
+        assertTrue(found(PaymentSearchIndex.Field.NAME, "newname" + token, payment));
+        assertFalse(found(PaymentSearchIndex.Field.NAME, "oldname" + token, payment));
+    }
+
+    @Test
+    void deletedPaymentsDropOutOfSearchResults() {
+        User customer = testData.customer("srch" + token, "Removed" + token, "Test");
+        Booking booking = testData.booking(trip, customer, "CONFIRMED", 1);
+        Payment payment = testData.payment(booking, "CARD", "SUCCESS");
+        paymentSearchIndex.catchUp();
+        assertTrue(adminSearchFinds("removed" + token, payment));
+
+        bookingRepository.delete(booking);
+        paymentRepository.deleteById(payment.getPaymentId());
+        paymentSearchIndex.catchUp();
+
+        assertFalse(adminSearchFinds("removed" + token, payment));
+    }
+
+    @Test
+    void shortQueriesGoToSqlInsteadOfScanningTheIndex() {
+        User customer = testData.customer("srch" + token, "Short" + token, "Test");
+        Payment payment = paymentFor(customer);
+
+        assertThrows(IllegalArgumentException.class, () -> paymentSearchIndex.search(PaymentSearchIndex.Field.NAME, "sh"));
+
+        // One LIKE query, no index lookup and no catch-up
+        List<PaymentHistoryDTO> results = assertMaxQueries(1,
+                () -> paymentAdminService.searchPayments("Sh", null, null, "CARD"));
+        assertTrue(results.stream().anyMatch(r -> payment.getPaymentId().equals(r.getPaymentId())));
+    }
+
+    private Payment paymentFor(User customer) {
+        return testData.payment(testData.booking(trip, customer, "CONFIRMED", 1), "CARD", "SUCCESS");
+    }
+
+    private boolean found(PaymentSearchIndex.Field field, String query, Payment payment) {
+        return Arrays.stream(paymentSearchIndex.search(field, query)).anyMatch(id -> id == payment.getPaymentId());
+    }
+
+    private boolean adminSearchFinds(String name, Payment payment) {
+        return paymentAdminService.searchPayments(name, null, null, null).stream()
+                .anyMatch(r -> payment.getPaymentId().equals(r.getPaymentId()));
+    }
+}
@@ -0,0 +1,169 @@
+package com.boatsafari.managementsystem.service;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import com.boatsafari.managementsystem.strategy.StubPaymentGateway;
+import com.boatsafari.managementsystem.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.trips.cancellation.refunds-per-second=1000")
+@Import(TestData.class)
+class TripCancellationServiceTests {
+
+    private static final int OWED_REFUNDS = 20;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private TripCancellationService tripCancellationService;
+
+    @Autowired
+    private PaymentProcessingService paymentProcessingService;
+
+    @Autowired
+    private StubPaymentGateway gateway;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    private User customer;
+    private Trip trip;
+
+    @BeforeEach
+    void setUp() {
+        customer = testData.customer("cancel", "Cancel", "Test");
+        trip = testData.trip("Trip cancellation test trip", 100, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.cleanUp();
+    }
+
+    @Test
+    void cancellingATripCancelsBookingsAndSettlesTheirPayments() throws Exception {
+        Booking paidByCard = testData.booking(trip, customer, "CONFIRMED", 2);
+        Payment card = testData.payment(paidByCard, "CARD", "SUCCESS");
+        Booking payOnArrival = testData.booking(trip, customer, "CONFIRMED", 1);
+        Payment pending = testData.payment(payOnArrival, "PAY_ON_ARRIVAL", "PENDING");
+        Booking provisional = testData.booking(trip, customer, "PROVISIONAL", 1);
+
+        TripCancellationService.Progress progress = awaitFinished(tripCancellationService.cancelTrip(trip.getTripId()));
+
+        assertEquals(TripCancellationService.JobStatus.COMPLETED, progress.getStatus());
+        assertEquals(3, progress.getBookingsCancelled());
+        assertEquals(1, progress.getRefundsQueued());
+        assertEquals(1, progress.getRefunded());
+        assertEquals(1, progress.getPaymentsCancelled());
+        assertEquals("CANCELLED", tripRepository.findById(trip.getTripId()).orElseThrow().getStatus());
+        for (Booking booking : List.of(paidByCard, payOnArrival, provisional)) {
+            assertEquals("CANCELLED", bookingRepository.findById(booking.getBookingId()).orElseThrow().getStatus());
+        }
+        assertEquals("REFUNDED", status(card));
+        assertEquals("CANCELLED", status(pending));
+        assertEquals(1, gateway.refundRequests("CC", String.valueOf(card.getPaymentId())));
+    }
+
+    @Test
+    void refundsOwedBeforeARestartAreSentOnceByConcurrentResumes() throws Exception {
+        // As left behind by a process that died right after the cancel transaction committed
+        List<Payment> owed = new ArrayList<>();
+        for (int i = 0; i < OWED_REFUNDS; i++) {
+            owed.add(testData.payment(testData.booking(trip, customer, "CANCELLED", 1), "CARD", "REFUND_PENDING"));
+        }
+
+        // Two nodes resuming at the same time
+        ExecutorService nodes = Executors.newFixedThreadPool(2);
+        Callable<Integer> resume = tripCancellationService::resumeRefunds;
+        List<Future<Integer>> runs = List.of(nodes.submit(resume), nodes.submit(resume));
+        for (Future<Integer> run : runs) {
+            run.get(2, TimeUnit.MINUTES);
+        }
+        nodes.shutdown();
+
+        for (Payment payment : owed) {
+            assertEquals("REFUNDED", status(payment));
+            assertEquals(1, gateway.refundRequests("CC", String.valueOf(payment.getPaymentId())),
+                    "refund requests for payment " + payment.getPaymentId());
+        }
+    }
+
+    @Test
+    void staleRefundsAreSettledWithTheProviderNotResentBlindly() throws Exception {
+        Payment madeByProvider = staleSending(testData.booking(trip, customer, "CANCELLED", 1));
+        Payment neverArrived = staleSending(testData.booking(trip, customer, "CANCELLED", 1));
+        // The provider made the first refund, but its sender died before writing REFUNDED
+        assertTrue(paymentProcessingService.refundAsync("CREDIT_CARD", BigDecimal.valueOf(madeByProvider.getAmount()),
+                customer.getEmail(), String.valueOf(madeByProvider.getPaymentId())).get(1, TimeUnit.MINUTES).isSuccess());
+
+        tripCancellationService.resumeRefunds();
+
+        assertEquals("REFUNDED", status(madeByProvider));
+        assertEquals(1, gateway.refundRequests("CC", String.valueOf(madeByProvider.getPaymentId())));
+        assertEquals("REFUNDED", status(neverArrived));
+        assertEquals(1, gateway.refundRequests("CC", String.valueOf(neverArrived.getPaymentId())));
+    }
+
+    @Test
+    void refundStillBeingSentIsLeftAlone() throws Exception {
+        Payment sending = testData.payment(testData.booking(trip, customer, "CANCELLED", 1), "CARD", "REFUND_SENDING");
+        sending.setRefundSentAt(LocalDateTime.now());
+        paymentRepository.save(sending);
+
+        tripCancellationService.resumeRefunds();
+
+        assertEquals("REFUND_SENDING", status(sending));
+        assertEquals(0, gateway.refundRequests("CC", String.valueOf(sending.getPaymentId())));
+    }
+
+    // A refund claimed an hour ago whose answer was never recorded
+    private Payment staleSending(Booking booking) {
+        Payment payment = testData.payment(booking, "CARD", "REFUND_SENDING");
+        payment.setRefundSentAt(LocalDateTime.now().minusHours(1));
+        return paymentRepository.save(payment);
+    }
+
+    private String status(Payment payment) {
+        return paymentRepository.findById(payment.getPaymentId()).orElseThrow().getStatus();
+    }
+
+    private static TripCancellationService.Progress awaitFinished(TripCancellationService.Progress progress)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (progress.getFinishedAt() == null) {
+            assertTrue(System.nanoTime() < deadline, "cancellation job did not finish");
+            Thread.sleep(50);
+        }
+        return progress;
+    }
+}
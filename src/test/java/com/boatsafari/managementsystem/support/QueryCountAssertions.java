@@ -0,0 +1,57 @@
+package com.boatsafari.managementsystem.support;
+
+import com.boatsafari.managementsystem.config.QueryCounter;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Query budgets for tests: run a call (a controller method, a service method) and fail when it
+ * prepares more SQL statements than allowed. Counts statements on the calling thread only.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /**
+     * Run the call and return its result
+     * @throws AssertionError when it ran more than maxStatements statements (the message lists them)
+     */
+    public static <T> T assertMaxQueries(int maxStatements, ThrowingSupplier<T> call) {
+        try (QueryCounter.Scope scope = QueryCounter.open(true)) {
+            T result;
+            try {
+                result = call.get();
+            } catch (Throwable t) {
+                throw new AssertionError("Call failed: " + t, t);
+            }
+            check(maxStatements, scope);
+            return result;
+        }
+    }
+
+    public static void assertMaxQueries(int maxStatements, Executable call) {
+        assertMaxQueries(maxStatements, () -> {
+            call.execute();
+            return null;
+        });
+    }
+
+    private static void check(int maxStatements, QueryCounter.Scope scope) {
+        if (scope.getCount() <= maxStatements) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append("Expected at most ").append(maxStatements).append(" SQL statements but ran ")
+                .append(scope.getCount()).append(':');
+        List<String> statements = scope.getStatements();
+        for (int i = 0; i < statements.size(); i++) {
+            message.append(System.lineSeparator()).append(i + 1).append(". ").append(statements.get(i));
+        }
+        fail(message.toString());
+    }
+}
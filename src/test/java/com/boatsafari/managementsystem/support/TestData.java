@@ -0,0 +1,160 @@
+package com.boatsafari.managementsystem.support;
+
+import com.boatsafari.managementsystem.model.Booking;
+import com.boatsafari.managementsystem.model.Customer;
+import com.boatsafari.managementsystem.model.Payment;
+import com.boatsafari.managementsystem.model.SafariGuide;
+import com.boatsafari.managementsystem.model.Trip;
+import com.boatsafari.managementsystem.model.User;
+import com.boatsafari.managementsystem.repository.BookingRepository;
+import com.boatsafari.managementsystem.repository.PassengerCheckInRepository;
+import com.boatsafari.managementsystem.repository.PaymentRepository;
+import com.boatsafari.managementsystem.repository.TripInventoryRepository;
+import com.boatsafari.managementsystem.repository.TripRepository;
+import com.boatsafari.managementsystem.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Users and trips for integration tests against the real database. Everything created here is
+ * remembered and removed again by cleanUp(), together with the bookings, payments, check-ins and
+ * inventory rows the test left on those trips. Add it with @Import(TestData.class).
+ */
+public class TestData {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PassengerCheckInRepository passengerCheckInRepository;
+
+    @Autowired
+    private TripInventoryRepository tripInventoryRepository;
+
+    private final List<Trip> trips = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    /**
+     * A customer with a unique @boatsafari.test email (emailPrefix-uuid@boatsafari.test)
+     */
+    public User customer(String emailPrefix, String firstName, String secondName) {
+        Customer c = new Customer();
+        c.setFirstName(firstName);
+        c.setSecondName(secondName);
+        c.setEmail(emailPrefix + "-" + UUID.randomUUID() + "@boatsafari.test");
+        c.setPassword("not-used");
+        return remember(userRepository.save(c));
+    }
+
+    public SafariGuide guide(String firstName, String secondName) {
+        SafariGuide g = new SafariGuide();
+        g.setFirstName(firstName);
+        g.setSecondName(secondName);
+        g.setEmail("guide-" + UUID.randomUUID() + "@boatsafari.test");
+        g.setPassword("not-used");
+        return remember(userRepository.save(g));
+    }
+
+    /**
+     * A 09:00-12:00 trip at 25.00 per passenger, daysAhead days from today
+     */
+    public Trip trip(String name, int capacity, int daysAhead) {
+        return trip(name, capacity, daysAhead, null);
+    }
+
+    public Trip trip(String name, int capacity, int daysAhead, SafariGuide guide) {
+        Trip t = new Trip();
+        t.setName(name);
+        t.setDate(LocalDate.now().plusDays(daysAhead));
+        t.setStartTime(LocalTime.of(9, 0));
+        t.setEndTime(LocalTime.of(12, 0));
+        t.setCapacity(capacity);
+        t.setPrice(25.0);
+        t.setGuide(guide);
+        Trip saved = tripRepository.save(t);
+        trips.add(saved);
+        return saved;
+    }
+
+    /**
+     * A booking saved directly (no seat inventory, no observers)
+     */
+    public Booking booking(Trip trip, User customer, String status, int passengers) {
+        Booking booking = new Booking();
+        booking.setName("Test Passenger");
+        booking.setContact("0771234567");
+        booking.setEmail(customer != null ? customer.getEmail() : "passenger@boatsafari.test");
+        booking.setPassengers(passengers);
+        booking.setStatus(status);
+        booking.setCustomer(customer);
+        booking.setTrip(trip);
+        return bookingRepository.save(booking);
+    }
+
+    /**
+     * A payment attached to the booking (saved directly, no gateway, no observers)
+     */
+    public Payment payment(Booking booking, String method, String status) {
+        Payment payment = new Payment();
+        payment.setPaymentMethod(method);
+        payment.setPaymentDate(LocalDateTime.now());
+        payment.setAmount(booking.getPassengers() * 25.0);
+        payment.setStatus(status);
+        Payment saved = paymentRepository.save(payment);
+        booking.setPayment(saved);
+        booking.setVersion(bookingRepository.save(booking).getVersion()); // keep the caller's copy saveable
+        return saved;
+    }
+
+    /**
+     * Run the following service calls on this thread as the given user
+     */
+    public void authenticate(User user, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                user.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_" + role))));
+    }
+
+    public void cleanUp() {
+        for (Trip trip : trips) {
+            Long tripId = trip.getTripId();
+            passengerCheckInRepository.deleteAll(passengerCheckInRepository.findByBooking_Trip_TripId(tripId));
+            List<Booking> bookings = bookingRepository.findByTrip_TripId(tripId);
+            List<Long> paymentIds = bookings.stream().map(Booking::getPayment).filter(Objects::nonNull)
+                    .map(Payment::getPaymentId).toList();
+            bookingRepository.deleteAll(bookings);
+            paymentRepository.deleteAllById(paymentIds);
+            tripInventoryRepository.findById(tripId).ifPresent(tripInventoryRepository::delete);
+            tripRepository.deleteById(tripId);
+        }
+        for (User user : users) {
+            userRepository.deleteById(user.getUserId());
+        }
+        trips.clear();
+        users.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    private <U extends User> U remember(U user) {
+        users.add(user);
+        return user;
+    }
+}